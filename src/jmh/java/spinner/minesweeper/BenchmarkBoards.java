@@ -0,0 +1,58 @@
+package spinner.minesweeper;
+
+/*Board setups shared by the benchmarks
+- Spec from a side length and a bomb density
+- Mid-game positions, reached by revealing random safe cells
+- Every game is seeded from the caller's Random and left out of GameMetrics
+*/
+
+import java.util.Random;
+
+final class BenchmarkBoards
+{
+    private BenchmarkBoards() {
+    }
+
+    static BoardSpec spec(int size, double density) {
+        int cells = size * size;
+        int bombs = Math.min(cells - 1, (int) Math.round(cells * density));
+        return new BoardSpec(size, size, bombs);
+    }
+
+    // Seeded, uncounted game so benchmark runs neither vary nor show up in the metrics
+    static Minesweeper newGame(BoardSpec spec, Random random) {
+        return new Minesweeper(spec, random.nextLong(), false);
+    }
+
+    // Reveals random safe cells until the given share of safe cells is open
+    static Minesweeper midGame(BoardSpec spec, double openShare, Random random) {
+        Minesweeper game = newGame(spec, random);
+        int safeCells = spec.getCellCount() - spec.getBombs();
+        int target = (int) (safeCells * openShare);
+
+        while (game.getRevealedSafeCount() < target && game.getGameState() == Minesweeper.GameState.PLAYING) {
+            int row = random.nextInt(spec.getRows());
+            int col = random.nextInt(spec.getCols());
+
+            if (!game.hasBomb(row, col)) {
+                game.revealCell(row, col);
+            }
+        }
+        return game;
+    }
+
+    // Random clicks on hidden cells until the game ends, returns the move count
+    static int playRandom(Minesweeper game, Random random) {
+        int moves = 0;
+        while (game.getGameState() == Minesweeper.GameState.PLAYING) {
+            int row = random.nextInt(game.getRows());
+            int col = random.nextInt(game.getCols());
+
+            if (!game.isRevealed(row, col)) {
+                game.revealCell(row, col);
+                moves++;
+            }
+        }
+        return moves;
+    }
+}
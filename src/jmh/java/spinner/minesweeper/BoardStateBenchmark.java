@@ -0,0 +1,121 @@
+package spinner.minesweeper;
+
+/*Whole-board operations on a mid-game position
+- Read-only: fork, toInput, getVisibleBoard, BoardEncoder into a reused buffer,
+  hidden neighbour counts and the frontier (word-parallel, into reused arrays)
+- Mutating: autoFlag, autoReveal (run on a fresh copy every invocation)
+*/
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardStateBenchmark
+{
+    @Param({"9", "64", "512"})
+    private int size;
+
+    @Param({"0.1", "0.2"})
+    private double density;
+
+    private Minesweeper template;
+    private final BoardEncoder scalarEncoder = new BoardEncoder(BoardEncoder.Layout.SCALAR);
+    private final BoardEncoder oneHotEncoder = new BoardEncoder(BoardEncoder.Layout.ONE_HOT);
+    private float[] buffer;
+    private long[] counts;
+    private int[] frontier;
+
+    // Fresh copy for the mutating benchmarks, kept out of the read-only ones' allocation numbers
+    @State(Scope.Thread)
+    public static class FreshGame
+    {
+        private Minesweeper game;
+
+        @Setup(Level.Invocation)
+        public void setUp(BoardStateBenchmark benchmark) {
+            game = benchmark.template.deepCopy();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        template = BenchmarkBoards.midGame(BenchmarkBoards.spec(size, density), 0.5, new Random(42));
+        buffer = new float[oneHotEncoder.size(template.getSpec())];
+        counts = new long[(template.getSpec().getCellCount() + 15) / 16];
+        frontier = new int[template.getSpec().getCellCount()];
+    }
+
+    @Benchmark
+    public Minesweeper fork() {
+        return template.fork();
+    }
+
+    // A fork plus one reveal: the first write copies one block of the reveal layer
+    @Benchmark
+    public RevealResult forkAndReveal() {
+        Minesweeper copy = template.fork();
+        return copy.revealCell(0, 0);
+    }
+
+    @Benchmark
+    public double[] toInput() {
+        return template.toInput();
+    }
+
+    @Benchmark
+    public float[] encodeScalar() {
+        scalarEncoder.encode(template, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public float[] encodeOneHot() {
+        oneHotEncoder.encode(template, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public int[][] getVisibleBoard() {
+        return template.getVisibleBoard();
+    }
+
+    @Benchmark
+    public long[] hiddenNeighbourCounts() {
+        template.getHiddenNeighbourCounts(counts);
+        return counts;
+    }
+
+    @Benchmark
+    public int frontierCells() {
+        return template.getFrontierCells(frontier);
+    }
+
+    @Benchmark
+    public Minesweeper autoFlag(FreshGame fresh) {
+        fresh.game.autoFlag();
+        return fresh.game;
+    }
+
+    @Benchmark
+    public Minesweeper autoReveal(FreshGame fresh) {
+        fresh.game.autoReveal();
+        return fresh.game;
+    }
+}
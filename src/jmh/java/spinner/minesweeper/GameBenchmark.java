@@ -0,0 +1,54 @@
+package spinner.minesweeper;
+
+/*Whole-game costs
+- placeBombs: building a new game, which lays out the bombs
+- randomPlay: a new game played with random clicks until it ends
+*/
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark
+{
+    @Param({"9", "64", "512"})
+    private int size;
+
+    @Param({"0.1", "0.2"})
+    private double density;
+
+    private final Random random = new Random(42);
+    private BoardSpec spec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        spec = BenchmarkBoards.spec(size, density);
+    }
+
+    @Benchmark
+    public Minesweeper placeBombs() {
+        return BenchmarkBoards.newGame(spec, random);
+    }
+
+    @Benchmark
+    public int randomPlay() {
+        return BenchmarkBoards.playRandom(BenchmarkBoards.newGame(spec, random), random);
+    }
+}
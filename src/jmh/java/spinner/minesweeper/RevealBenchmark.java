@@ -0,0 +1,88 @@
+package spinner.minesweeper;
+
+/*Cost of revealCell
+- singleReveal: one click on a hidden cell of a mid-game board
+- floodFill: worst case, a click on a board with no bombs opens every cell
+*/
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RevealBenchmark
+{
+    @Param({"9", "64", "512"})
+    private int size;
+
+    @Param({"0.1", "0.2"})
+    private double density;
+
+    private final Random random = new Random(42);
+    private Minesweeper template;
+
+    // Fresh copy of the mid-game template and a hidden cell to click
+    @State(Scope.Thread)
+    public static class MidGame
+    {
+        private Minesweeper game;
+        private int row;
+        private int col;
+
+        @Setup(Level.Invocation)
+        public void setUp(RevealBenchmark benchmark) {
+            game = benchmark.template.deepCopy();
+            do {
+                row = benchmark.random.nextInt(benchmark.size);
+                col = benchmark.random.nextInt(benchmark.size);
+            } while (game.isRevealed(row, col));
+        }
+    }
+
+    // Fresh board with no bombs, any click opens every cell
+    @State(Scope.Thread)
+    public static class EmptyGame
+    {
+        private Minesweeper game;
+        private int row;
+        private int col;
+
+        @Setup(Level.Invocation)
+        public void setUp(RevealBenchmark benchmark) {
+            game = BenchmarkBoards.newGame(new BoardSpec(benchmark.size, benchmark.size, 0), benchmark.random);
+            row = benchmark.random.nextInt(benchmark.size);
+            col = benchmark.random.nextInt(benchmark.size);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        template = BenchmarkBoards.midGame(BenchmarkBoards.spec(size, density), 0.3, random);
+    }
+
+    @Benchmark
+    public RevealResult singleReveal(MidGame state) {
+        return state.game.revealCell(state.row, state.col);
+    }
+
+    @Benchmark
+    public RevealResult floodFill(EmptyGame state) {
+        return state.game.revealCell(state.row, state.col);
+    }
+}
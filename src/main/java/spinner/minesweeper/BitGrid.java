@@ -0,0 +1,136 @@
+package spinner.minesweeper;
+
+/*One bit per cell, packed into longs
+- Each row starts on a fresh word so a row can be processed 64 cells at a time
+- Used for the bomb, revealed and flagged layers of the model
+- Words are grouped in blocks of 64 (4096 bits); fork() shares blocks copy-on-write
+*/
+
+final class BitGrid
+{
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_WORDS = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_WORDS - 1;
+
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final int wordCount;
+    private final long[][] blocks;
+    // True while a block may also be referenced by another grid - copied before the first write
+    private final boolean[] shared;
+
+    BitGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.wordCount = rows * wordsPerRow;
+
+        int blockCount = (wordCount + BLOCK_MASK) >>> BLOCK_SHIFT;
+        this.blocks = new long[blockCount][];
+        this.shared = new boolean[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            blocks[b] = new long[Math.min(BLOCK_WORDS, wordCount - (b << BLOCK_SHIFT))];
+        }
+    }
+
+    // Fork: shares every block with other, both sides copy a block before writing to it
+    private BitGrid(BitGrid other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.wordsPerRow = other.wordsPerRow;
+        this.wordCount = other.wordCount;
+        this.blocks = other.blocks.clone();
+        this.shared = new boolean[blocks.length];
+
+        java.util.Arrays.fill(shared, true);
+        java.util.Arrays.fill(other.shared, true);
+    }
+
+    BitGrid fork() {
+        return new BitGrid(this);
+    }
+
+    boolean get(int row, int col) {
+        return (word(row * wordsPerRow + (col >>> 6)) & (1L << col)) != 0;
+    }
+
+    void set(int row, int col) {
+        int w = row * wordsPerRow + (col >>> 6);
+        writableBlock(w >>> BLOCK_SHIFT)[w & BLOCK_MASK] |= 1L << col;
+    }
+
+    void clear(int row, int col) {
+        int w = row * wordsPerRow + (col >>> 6);
+        writableBlock(w >>> BLOCK_SHIFT)[w & BLOCK_MASK] &= ~(1L << col);
+    }
+
+    long word(int w) {
+        return blocks[w >>> BLOCK_SHIFT][w & BLOCK_MASK];
+    }
+
+    void setWord(int w, long value) {
+        writableBlock(w >>> BLOCK_SHIFT)[w & BLOCK_MASK] = value;
+    }
+
+    void setAll() {
+        for (int w = 0; w < wordCount; w++) {
+            setWord(w, -1L);
+        }
+        clearPadding();
+    }
+
+    void invert() {
+        for (int w = 0; w < wordCount; w++) {
+            setWord(w, ~word(w));
+        }
+        clearPadding();
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long[] block : blocks) {
+            for (long word : block) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getCols() {
+        return cols;
+    }
+
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    int getWordCount() {
+        return wordCount;
+    }
+
+    private long[] writableBlock(int b) {
+        if (shared[b]) {
+            blocks[b] = blocks[b].clone();
+            shared[b] = false;
+        }
+        return blocks[b];
+    }
+
+    // Keep the padding bits past the last column clear
+    private void clearPadding() {
+        int tail = cols & 63;
+        if (tail == 0) {
+            return;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            int w = row * wordsPerRow + wordsPerRow - 1;
+            setWord(w, word(w) & ((1L << tail) - 1));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package spinner.minesweeper;
+
+/*Word-parallel board kernels - 64 cells per step on BitGrid-style rows
+- Input layers are plain long[] copies of a grid's words (see load), one fresh word per row,
+  padding past the last column clear
+- Neighbour planes are a word and the adjacent rows' words shifted by one column, with the bit
+  carried over from the next word; there are no per-cell bounds checks
+- Neighbour counts spread each row to one nibble per cell once, then add rows and shifted rows
+  16 cells per long (SWAR) - straight into Minesweeper's 4-bits-per-cell adjacent count packing
+*/
+
+final class BitKernels
+{
+    // SPREAD[b] has bit i of b moved to bit 4 * i - one nibble per cell
+    private static final int[] SPREAD = new int[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            for (int i = 0; i < 8; i++) {
+                if ((b & (1 << i)) != 0) {
+                    SPREAD[b] |= 1 << (i << 2);
+                }
+            }
+        }
+    }
+
+    private BitKernels() {
+    }
+
+    // Copies a grid's words into dest (grid.getWordCount() long)
+    static long[] load(BitGrid grid, long[] dest) {
+        for (int w = 0; w < grid.getWordCount(); w++) {
+            dest[w] = grid.word(w);
+        }
+        return dest;
+    }
+
+    // dest = cells set in neither grid - e.g. hidden and unflagged; padding stays clear
+    static long[] neither(BitGrid a, BitGrid b, long[] dest) {
+        int wordsPerRow = a.getWordsPerRow();
+        long tailMask = tailMask(a.getCols());
+
+        for (int w = 0; w < a.getWordCount(); w++) {
+            long word = ~(a.word(w) | b.word(w));
+            dest[w] = w % wordsPerRow == wordsPerRow - 1 ? word & tailMask : word;
+        }
+        return dest;
+    }
+
+    // dest = cells clear in the grid; padding stays clear
+    static long[] not(BitGrid grid, long[] dest) {
+        int wordsPerRow = grid.getWordsPerRow();
+        long tailMask = tailMask(grid.getCols());
+
+        for (int w = 0; w < grid.getWordCount(); w++) {
+            long word = ~grid.word(w);
+            dest[w] = w % wordsPerRow == wordsPerRow - 1 ? word & tailMask : word;
+        }
+        return dest;
+    }
+
+    // Number of cells set in both grids - e.g. correct flags
+    static int countAnd(BitGrid a, BitGrid b) {
+        int count = 0;
+        for (int w = 0; w < a.getWordCount(); w++) {
+            count += Long.bitCount(a.word(w) & b.word(w));
+        }
+        return count;
+    }
+
+    // Number of cells set in a and clear in b - e.g. revealed safe cells
+    static int countAndNot(BitGrid a, BitGrid b) {
+        int count = 0;
+        for (int w = 0; w < a.getWordCount(); w++) {
+            count += Long.bitCount(a.word(w) & ~b.word(w));
+        }
+        return count;
+    }
+
+    // The same inside rows [rowStart, rowEnd) x columns [colStart, colEnd); a null b counts every cell set in a
+    static int countAndNot(BitGrid a, BitGrid b, int rowStart, int rowEnd, int colStart, int colEnd) {
+        if (rowStart >= rowEnd || colStart >= colEnd) {
+            return 0;
+        }
+
+        int wordsPerRow = a.getWordsPerRow();
+        int first = colStart >>> 6;
+        int last = (colEnd - 1) >>> 6;
+        long firstMask = -1L << colStart;
+        long lastMask = -1L >>> (63 - ((colEnd - 1) & 63));
+
+        int count = 0;
+        for (int row = rowStart; row < rowEnd; row++) {
+            int base = row * wordsPerRow;
+            for (int w = first; w <= last; w++) {
+                long bits = b == null ? a.word(base + w) : a.word(base + w) & ~b.word(base + w);
+                if (w == first) {
+                    bits &= firstMask;
+                }
+                if (w == last) {
+                    bits &= lastMask;
+                }
+                count += Long.bitCount(bits);
+            }
+        }
+        return count;
+    }
+
+    // Cells set in a and clear in b (a null b: every cell set in a), summed into dest per square block
+    // of blockSize cells - row-major, (cols + blockSize - 1) / blockSize blocks per row. One pass over
+    // the words, empty words cost a load
+    static void blockCounts(BitGrid a, BitGrid b, int blockSize, int[] dest) {
+        int cols = a.getCols();
+        int wordsPerRow = a.getWordsPerRow();
+        int blocksPerRow = (cols + blockSize - 1) / blockSize;
+        java.util.Arrays.fill(dest, 0, ((a.getRows() + blockSize - 1) / blockSize) * blocksPerRow, 0);
+
+        for (int row = 0; row < a.getRows(); row++) {
+            int base = row * wordsPerRow;
+            int blockBase = row / blockSize * blocksPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long bits = b == null ? a.word(base + w) : a.word(base + w) & ~b.word(base + w);
+                // Split the word where it crosses block edges, starting at the lowest cell still set
+                while (bits != 0) {
+                    int block = ((w << 6) + Long.numberOfTrailingZeros(bits)) / blockSize;
+                    int span = Math.min(64, (block + 1) * blockSize - (w << 6));
+                    long part = span == 64 ? bits : bits & ((1L << span) - 1);
+                    dest[blockBase + block] += Long.bitCount(part);
+                    bits &= ~part;
+                }
+            }
+        }
+    }
+
+    // For every cell, how many of its 8 neighbours are set in words; 4 bits per cell,
+    // 16 cells per long, indexed by row * cols + col. dest is overwritten
+    static void neighbourCounts(long[] words, int rows, int cols, long[] dest) {
+        int wordsPerRow = (cols + 63) >>> 6;
+        int lastSlice = (cols - 1) >>> 4;
+        // Rows whose length is a multiple of 16 start on a long, so every long is written whole
+        boolean aligned = (cols & 15) == 0;
+        if (!aligned) {
+            java.util.Arrays.fill(dest, 0, (rows * cols + 15) >>> 4, 0L);
+        }
+
+        // Rolling window of spread rows, one nibble per cell; rows off the board stay zero
+        long[] up = new long[wordsPerRow << 2];
+        long[] mid = new long[wordsPerRow << 2];
+        long[] down = new long[wordsPerRow << 2];
+        long[] column = new long[wordsPerRow << 2];
+        spreadRow(words, 0, wordsPerRow, mid);
+        if (rows > 1) {
+            spreadRow(words, wordsPerRow, wordsPerRow, down);
+        }
+
+        for (int row = 0; row < rows; row++) {
+            // Each nibble stays at 9 or below, so adding whole longs never carries between cells
+            for (int j = 0; j <= lastSlice; j++) {
+                column[j] = up[j] + mid[j] + down[j];
+            }
+
+            int cell = row * cols;
+            for (int j = 0; j <= lastSlice; j++) {
+                long sum = column[j];
+                long previous = j > 0 ? column[j - 1] : 0;
+                long next = j < lastSlice ? column[j + 1] : 0;
+                long counts = sum + (sum << 4 | previous >>> 60) + (sum >>> 4 | next << 60) - mid[j];
+
+                if (aligned) {
+                    dest[(cell >>> 4) + j] = counts;
+                } else {
+                    place(counts, cell + (j << 4), Math.min(16, cols - (j << 4)), dest);
+                }
+            }
+
+            long[] spare = up;
+            up = mid;
+            mid = down;
+            down = spare;
+            if (row + 2 < rows) {
+                spreadRow(words, (row + 2) * wordsPerRow, wordsPerRow, down);
+            } else {
+                java.util.Arrays.fill(down, 0L);
+            }
+        }
+    }
+
+    // dest = cells with at least one set neighbour (the cell itself does not count)
+    static void dilate(long[] words, int rows, int cols, long[] dest) {
+        int wordsPerRow = (cols + 63) >>> 6;
+        long tailMask = tailMask(cols);
+
+        for (int row = 0; row < rows; row++) {
+            int base = row * wordsPerRow;
+            int up = row > 0 ? base - wordsPerRow : -1;
+            int down = row < rows - 1 ? base + wordsPerRow : -1;
+
+            for (int i = 0; i < wordsPerRow; i++) {
+                boolean last = i == wordsPerRow - 1;
+                long near = left(words[base + i], i == 0 ? 0 : words[base + i - 1])
+                        | right(words[base + i], last ? 0 : words[base + i + 1]);
+
+                // Above and below: the three cells of that row, i.e. the word smeared by one column
+                if (up >= 0) {
+                    long word = words[up + i];
+                    near |= word | left(word, i == 0 ? 0 : words[up + i - 1])
+                            | right(word, last ? 0 : words[up + i + 1]);
+                }
+                if (down >= 0) {
+                    long word = words[down + i];
+                    near |= word | left(word, i == 0 ? 0 : words[down + i - 1])
+                            | right(word, last ? 0 : words[down + i + 1]);
+                }
+                dest[base + i] = last ? near & tailMask : near;
+            }
+        }
+    }
+
+    // Neighbour counts of one 64-cell row, given the rows above and below and how many cells are set
+    // in the column just left (col -1) and just right (col 64) of those three rows. Writes 4 longs
+    // at dest[offset] in the neighbourCounts packing - used for rows that end at a tile edge
+    static void rowCounts(long up, long mid, long down, int leftColumn, int rightColumn, long[] dest, int offset) {
+        long previous = (long) leftColumn << 60;
+        long sum = columnSums(up, mid, down, 0);
+
+        for (int j = 0; j < 4; j++) {
+            long next = j < 3 ? columnSums(up, mid, down, (j + 1) << 4) : rightColumn;
+            dest[offset + j] = sum + (sum << 4 | previous >>> 60) + (sum >>> 4 | next << 60)
+                    - spread((int) (mid >>> (j << 4)));
+            previous = sum;
+            sum = next;
+        }
+    }
+
+    // One bit per nibble: bit i is set where nibble i of a equals nibble i of b
+    static long equalNibbles(long a, long b) {
+        long d = a ^ b;
+        d |= d >>> 1;
+        d |= d >>> 2;
+        return compact(~d & 0x1111111111111111L);
+    }
+
+    // Reads one 4-bit count from the packing neighbourCounts writes
+    static int count(long[] counts, int cell) {
+        return (int) (counts[cell >>> 4] >>> ((cell & 15) << 2)) & 0xF;
+    }
+
+    // Bit c is the cell at column c - 1, so each cell sees its left-hand neighbour
+    private static long left(long word, long previous) {
+        return (word << 1) | (previous >>> 63);
+    }
+
+    // Bit c is the cell at column c + 1
+    private static long right(long word, long next) {
+        return (word >>> 1) | (next << 63);
+    }
+
+    // ORs the first `cells` counts (up to 16) into dest at cell index `cell`, which may straddle two longs
+    private static void place(long counts, int cell, int cells, long[] dest) {
+        if (cells < 16) {
+            counts &= (1L << (cells << 2)) - 1;
+        }
+
+        int offset = (cell & 15) << 2;
+        dest[cell >>> 4] |= counts << offset;
+        if (offset != 0 && (counts >>> (64 - offset)) != 0) {
+            dest[(cell >>> 4) + 1] |= counts >>> (64 - offset);
+        }
+    }
+
+    // out[4 * i + k] = cells 16k to 16k + 15 of the row's word i, one nibble each
+    private static void spreadRow(long[] words, int base, int wordsPerRow, long[] out) {
+        for (int i = 0; i < wordsPerRow; i++) {
+            long word = words[base + i];
+            int o = i << 2;
+            out[o] = spread((int) word);
+            out[o + 1] = spread((int) (word >>> 16));
+            out[o + 2] = spread((int) (word >>> 32));
+            out[o + 3] = spread((int) (word >>> 48));
+        }
+    }
+
+    // Vertical sums of 16 cells starting at column `shift`, one nibble each
+    private static long columnSums(long up, long mid, long down, int shift) {
+        return spread((int) (up >>> shift)) + spread((int) (mid >>> shift)) + spread((int) (down >>> shift));
+    }
+
+    // Inverse of spread: bit 4 * i moves to bit i; the other bits must be clear
+    private static long compact(long x) {
+        x = (x | x >>> 3) & 0x0303030303030303L;
+        x = (x | x >>> 6) & 0x000F000F000F000FL;
+        x = (x | x >>> 12) & 0x000000FF000000FFL;
+        return (x | x >>> 24) & 0xFFFFL;
+    }
+
+    // Moves bit i of the low 16 bits to bit 4 * i
+    private static long spread(int bits) {
+        return SPREAD[bits & 0xFF] | (long) SPREAD[(bits >>> 8) & 0xFF] << 32;
+    }
+
+    // Valid bits of a row's last word
+    private static long tailMask(int cols) {
+        int tail = cols & 63;
+        return tail == 0 ? -1L : (1L << tail) - 1;
+    }
+}
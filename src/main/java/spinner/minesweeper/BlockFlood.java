@@ -0,0 +1,94 @@
+package spinner.minesweeper;
+
+/*Word-parallel cascade inside one 64x64 block - TiledBoard's tiles and InfiniteBoard's chunks
+- A block row is one long; each step opens one ring of cells around the last ring's zeros
+- The ring's zeros on an edge mail the cells past it to the 8 blocks around, through a callback;
+  the caller decides how mail is delivered and when the neighbour floods it
+*/
+
+final class BlockFlood
+{
+    static final int SIZE = 64;
+
+    interface Block
+    {
+        // Opens the hidden, unflagged cells among bits in row r; returns the ones it opened
+        long open(int r, long bits);
+    }
+
+    interface Mail
+    {
+        // Cells bits, in every row set in rows, of the block rowStep/colStep (each -1, 0 or 1) away.
+        // Never called with rows or bits empty, nor for the block itself
+        void mail(int rowStep, int colStep, long rows, long bits);
+    }
+
+    private BlockFlood() {
+    }
+
+    // Opens the cells in frontier, then grows the cascade one ring per step until it stops or only leaves
+    // the block. zero holds the cells with no mine next to them; frontier and next are scratch afterwards
+    static void spread(Block block, long[] zero, long[] frontier, long[] next, Mail mail) {
+        int low = SIZE;
+        int high = -1;
+        for (int r = 0; r < SIZE; r++) {
+            frontier[r] = block.open(r, frontier[r]) & zero[r];
+            if (frontier[r] != 0) {
+                low = Math.min(low, r);
+                high = r;
+            }
+        }
+
+        while (high >= 0) {
+            mailEdges(frontier, low, high, mail);
+
+            int nextLow = SIZE;
+            int nextHigh = -1;
+            for (int r = Math.max(0, low - 1); r <= Math.min(SIZE - 1, high + 1); r++) {
+                long zeros = frontier[r] | (r > 0 ? frontier[r - 1] : 0) | (r < SIZE - 1 ? frontier[r + 1] : 0);
+                next[r] = block.open(r, zeros | zeros << 1 | zeros >>> 1) & zero[r];
+                if (next[r] != 0) {
+                    nextLow = Math.min(nextLow, r);
+                    nextHigh = r;
+                }
+            }
+
+            for (int r = Math.max(0, low - 1); r <= Math.min(SIZE - 1, high + 1); r++) {
+                frontier[r] = next[r];
+            }
+            low = nextLow;
+            high = nextHigh;
+        }
+    }
+
+    private static void mailEdges(long[] frontier, int low, int high, Mail mail) {
+        if (low == 0) {
+            long zeros = frontier[0];
+            send(mail, -1, 0, 1L << 63, zeros | zeros << 1 | zeros >>> 1);
+            send(mail, -1, -1, 1L << 63, (zeros & 1) << 63);
+            send(mail, -1, 1, 1L << 63, zeros >>> 63);
+        }
+        if (high == SIZE - 1) {
+            long zeros = frontier[SIZE - 1];
+            send(mail, 1, 0, 1L, zeros | zeros << 1 | zeros >>> 1);
+            send(mail, 1, -1, 1L, (zeros & 1) << 63);
+            send(mail, 1, 1, 1L, zeros >>> 63);
+        }
+
+        // Bit r set where row r has a zero in the first (last) column, then smeared to the rows beside it
+        long first = 0;
+        long last = 0;
+        for (int r = low; r <= high; r++) {
+            first |= (frontier[r] & 1) << r;
+            last |= (frontier[r] >>> 63) << r;
+        }
+        send(mail, 0, -1, first | first << 1 | first >>> 1, 1L << 63);
+        send(mail, 0, 1, last | last << 1 | last >>> 1, 1L);
+    }
+
+    private static void send(Mail mail, int rowStep, int colStep, long rows, long bits) {
+        if (rows != 0 && bits != 0) {
+            mail.mail(rowStep, colStep, rows, bits);
+        }
+    }
+}
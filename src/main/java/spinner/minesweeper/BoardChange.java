@@ -0,0 +1,116 @@
+package spinner.minesweeper;
+
+/*Everything one public move changed (see BoardListener)
+- Cells newly revealed, in the order they opened (a flood fill is one batch)
+- Cells hidden again (only undo does this) and cells whose flag was toggled
+- The game state before and after, if it changed
+- isAll() means too much changed to list - revealAllCells without a journal, or a new layout
+Cells are indices, row * cols + col
+*/
+
+public final class BoardChange
+{
+    private int[] revealed = new int[16];
+    private int revealedCount;
+    private int[] hidden = new int[4];
+    private int hiddenCount;
+    private int[] flagToggled = new int[4];
+    private int flagToggledCount;
+    private boolean all;
+    private Minesweeper.GameState oldState;
+    private Minesweeper.GameState newState;
+
+    public int getRevealedCount() {
+        return revealedCount;
+    }
+
+    public int getRevealedCell(int i) {
+        return revealed[checkIndex(i, revealedCount)];
+    }
+
+    public int getHiddenCount() {
+        return hiddenCount;
+    }
+
+    public int getHiddenCell(int i) {
+        return hidden[checkIndex(i, hiddenCount)];
+    }
+
+    public int getFlagToggledCount() {
+        return flagToggledCount;
+    }
+
+    public int getFlagToggledCell(int i) {
+        return flagToggled[checkIndex(i, flagToggledCount)];
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public boolean hasStateChange() {
+        return newState != null && newState != oldState;
+    }
+
+    // State before the move; null if the state did not change
+    public Minesweeper.GameState getOldState() {
+        return hasStateChange() ? oldState : null;
+    }
+
+    // State after the move; null if the state did not change
+    public Minesweeper.GameState getNewState() {
+        return hasStateChange() ? newState : null;
+    }
+
+    void reveal(int cell) {
+        revealed = push(revealed, revealedCount++, cell);
+    }
+
+    void hide(int cell) {
+        hidden = push(hidden, hiddenCount++, cell);
+    }
+
+    void toggleFlag(int cell) {
+        flagToggled = push(flagToggled, flagToggledCount++, cell);
+    }
+
+    void markAll() {
+        all = true;
+    }
+
+    void state(Minesweeper.GameState from, Minesweeper.GameState to) {
+        // Several transitions in one move (undo across a win) collapse to first -> last
+        if (newState == null) {
+            oldState = from;
+        }
+        newState = to;
+    }
+
+    boolean isEmpty() {
+        return revealedCount == 0 && hiddenCount == 0 && flagToggledCount == 0 && !all && !hasStateChange();
+    }
+
+    void clear() {
+        revealedCount = 0;
+        hiddenCount = 0;
+        flagToggledCount = 0;
+        all = false;
+        oldState = null;
+        newState = null;
+    }
+
+    private static int checkIndex(int i, int count) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Cell " + i + " of " + count);
+        }
+        return i;
+    }
+
+    private static int[] push(int[] list, int index, int value) {
+        if (index == list.length) {
+            list = java.util.Arrays.copyOf(list, list.length * 2);
+        }
+        list[index] = value;
+        return list;
+    }
+}
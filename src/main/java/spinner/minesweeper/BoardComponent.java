@@ -0,0 +1,495 @@
+package spinner.minesweeper;
+
+/*The board view - one component that paints every cell itself
+- Each cell look (hidden, flag, 0-8, bomb) is rendered once per zoom level into a tile image,
+  border included; painting a cell is a single drawImage
+- Zoomed far out, cells are flat colours: one pixel per cell into a scratch image, scaled up in one draw
+- Only the cells inside the clip are painted, so cost follows the visible area, not the board
+- Listens to the model and repaints the bounding box of each BoardChange - a click costs what it changed
+- Clicks are mapped to a cell by arithmetic (see cellAt)
+- Meant to sit in a JScrollPane: Ctrl + wheel zooms around the mouse, a plain wheel scrolls
+*/
+
+import javax.swing.*;
+import javax.swing.border.BevelBorder;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BoardComponent extends JComponent implements Scrollable, BoardListener
+{
+    public static final int DEFAULT_CELL_SIZE = 50;
+    public static final int MIN_CELL_SIZE = 2;
+    public static final int MAX_CELL_SIZE = 96;
+
+    // Below this, cells are flat colour - no border or glyph would be readable, and there are too many
+    // visible cells for one drawImage each
+    private static final int DETAIL_CELL_SIZE = 8;
+    private static final int CACHED_ZOOM_LEVELS = 8;
+    private static final Dimension MAX_VIEWPORT = new Dimension(1200, 800);
+
+    // Tile indices
+    private static final int HIDDEN = 0;
+    private static final int FLAGGED = 1;
+    private static final int REVEALED = 2; // + adjacent count
+    private static final int BOMB = 11;
+    private static final int BOMB_SHOWN = 12;
+    private static final int TILE_COUNT = 13;
+
+    private static final Color UNREVEALED_CELL = new Color(240, 240, 240);
+    private static final Color REVEALED_CELL = new Color(150, 150, 150);
+    private static final Color FLAG_COLOR = Color.RED;
+    private static final Color[] NUMBER_COLORS = {
+        Color.BLACK,
+        new Color(0, 0, 255),
+        new Color(0, 128, 0),
+        new Color(255, 0, 0),
+        new Color(0, 0, 128),
+        new Color(128, 0, 0),
+        new Color(0, 128, 128),
+        Color.BLACK,
+        Color.GRAY,
+    };
+    // Same colours a raised bevel takes from a button with the unrevealed background
+    private static final Border RAISED_BORDER = BorderFactory.createBevelBorder(BevelBorder.RAISED,
+            UNREVEALED_CELL.brighter().brighter(), UNREVEALED_CELL.brighter(),
+            UNREVEALED_CELL.darker().darker(), UNREVEALED_CELL.darker());
+    private static final Border REVEALED_BORDER = BorderFactory.createLineBorder(Color.GRAY, 1);
+    private static final int[] FLAT_RGB = {
+        UNREVEALED_CELL.getRGB(), FLAG_COLOR.getRGB(),
+        REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(),
+        REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(), REVEALED_CELL.getRGB(),
+        REVEALED_CELL.getRGB(), Color.BLACK.getRGB(), FLAG_COLOR.getRGB(),
+    };
+    private static final String BOMB_EMOJI = "💣";
+    private static final String FLAG_EMOJI = "🚩";
+
+    public interface CellHandler
+    {
+        void reveal(int row, int col);
+
+        void flag(int row, int col);
+    }
+
+    private int cellSize;
+    private Minesweeper model;
+    private CellHandler handler;
+    private MinimapComponent minimap;
+    // After a loss every bomb is drawn in the flag colour, flagged or not
+    private boolean showBombs;
+
+    // Tile sets by zoom level and device scale, least recently used dropped first
+    private final Map<Long, BufferedImage[]> tileCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage[]> eldest) {
+            return size() > CACHED_ZOOM_LEVELS;
+        }
+    };
+    // Bounding box of the change being applied
+    private int minCell;
+    private int maxCell;
+    private int minCol;
+    private int maxCol;
+    // One pixel per visible cell when zoomed out; grown as needed
+    private BufferedImage flatImage;
+
+    public BoardComponent() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public BoardComponent(int cellSize) {
+        this.cellSize = clampCellSize(cellSize);
+        setOpaque(true);
+        setBackground(REVEALED_CELL);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell < 0 || handler == null) {
+                    return;
+                }
+
+                int row = cell / model.getCols();
+                int col = cell % model.getCols();
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    handler.reveal(row, col);
+                } else if (SwingUtilities.isRightMouseButton(e)) {
+                    handler.flag(row, col);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown()) {
+                    // About 12% per notch either way
+                    int step = Math.max(1, cellSize / 8);
+                    zoom(e.getWheelRotation() < 0 ? cellSize + step : cellSize - step, e.getPoint());
+                } else if (getParent() != null) {
+                    // Let the scroll pane scroll as if this component did not listen to the wheel
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(BoardComponent.this, e, getParent()));
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    // Keeps minimap in step with this board's model and repaints
+    public void setMinimap(MinimapComponent minimap) {
+        this.minimap = minimap;
+        if (minimap != null) {
+            minimap.setModel(model);
+        }
+    }
+
+    public void setCellHandler(CellHandler handler) {
+        this.handler = handler;
+    }
+
+    // Shows a new game and follows its changes from now on
+    public void setModel(Minesweeper model) {
+        boolean resized = this.model == null || !this.model.getSpec().equals(model.getSpec());
+
+        if (this.model != null) {
+            this.model.removeBoardListener(this);
+        }
+        this.model = model;
+        this.showBombs = false;
+        model.addBoardListener(this);
+        if (minimap != null) {
+            minimap.setModel(model);
+        }
+
+        if (resized) {
+            revalidate();
+        }
+        repaint();
+    }
+
+    public Minesweeper getModel() {
+        return model;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public void setShowBombs(boolean showBombs) {
+        this.showBombs = showBombs;
+        repaint();
+    }
+
+    // Changes the cell size, keeping the cell under anchor (component coordinates) under it
+    public void zoom(int newCellSize, Point anchor) {
+        newCellSize = clampCellSize(newCellSize);
+        if (newCellSize == cellSize) {
+            return;
+        }
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        Point view = viewport != null ? viewport.getViewPosition() : new Point();
+        double cellX = anchor.x / (double) cellSize;
+        double cellY = anchor.y / (double) cellSize;
+
+        cellSize = newCellSize;
+        setSize(getPreferredSize());
+        revalidate();
+        repaint();
+
+        if (viewport != null) {
+            Dimension extent = viewport.getExtentSize();
+            int x = (int) Math.round(cellX * cellSize) - (anchor.x - view.x);
+            int y = (int) Math.round(cellY * cellSize) - (anchor.y - view.y);
+            viewport.setViewPosition(clampView(x, y, extent));
+        }
+        if (minimap != null) {
+            minimap.repaint();
+        }
+    }
+
+    // Scrolls the enclosing viewport so the cell is centred
+    public void scrollToCell(int row, int col) {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport == null) {
+            return;
+        }
+
+        Dimension extent = viewport.getExtentSize();
+        int x = col * cellSize + cellSize / 2 - extent.width / 2;
+        int y = row * cellSize + cellSize / 2 - extent.height / 2;
+        viewport.setViewPosition(clampView(x, y, extent));
+    }
+
+    private void include(int cell) {
+        int col = cell % model.getCols();
+        minCell = Math.min(minCell, cell);
+        maxCell = Math.max(maxCell, cell);
+        minCol = Math.min(minCol, col);
+        maxCol = Math.max(maxCol, col);
+    }
+
+    // Index (row * cols + col) of the cell under the point, or -1
+    public int cellAt(int x, int y) {
+        if (model == null || x < 0 || y < 0) {
+            return -1;
+        }
+
+        int row = y / cellSize;
+        int col = x / cellSize;
+        if (row >= model.getRows() || col >= model.getCols()) {
+            return -1;
+        }
+        return row * model.getCols() + col;
+    }
+
+    public void repaintCell(int row, int col) {
+        repaint(col * cellSize, row * cellSize, cellSize, cellSize);
+    }
+
+    // Repaints the bounding box of the cells the move changed
+    @Override
+    public void boardChanged(Minesweeper game, BoardChange change) {
+        if (game != model) {
+            return;
+        }
+
+        if (change.isAll()) {
+            repaint();
+        } else {
+            minCell = Integer.MAX_VALUE;
+            maxCell = -1;
+            minCol = Integer.MAX_VALUE;
+            maxCol = -1;
+
+            for (int i = 0; i < change.getRevealedCount(); i++) {
+                include(change.getRevealedCell(i));
+            }
+            for (int i = 0; i < change.getHiddenCount(); i++) {
+                include(change.getHiddenCell(i));
+            }
+            for (int i = 0; i < change.getFlagToggledCount(); i++) {
+                include(change.getFlagToggledCell(i));
+            }
+
+            if (maxCell >= 0) {
+                // Cells are row-major, so the smallest and largest index give the row range
+                int minRow = minCell / model.getCols();
+                int maxRow = maxCell / model.getCols();
+                repaint(minCol * cellSize, minRow * cellSize,
+                        (maxCol - minCol + 1) * cellSize, (maxRow - minRow + 1) * cellSize);
+            }
+        }
+
+        if (minimap != null) {
+            minimap.cellsChanged(change);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (model == null) {
+            return new Dimension(9 * cellSize, 9 * cellSize);
+        }
+        return new Dimension(model.getCols() * cellSize, model.getRows() * cellSize);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension size = getPreferredSize();
+        return new Dimension(Math.min(size.width, MAX_VIEWPORT.width), Math.min(size.height, MAX_VIEWPORT.height));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cellSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(cellSize, extent - cellSize);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (model == null) {
+            return;
+        }
+
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastRow = Math.min(model.getRows() - 1, (clip.y + clip.height - 1) / cellSize);
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int lastCol = Math.min(model.getCols() - 1, (clip.x + clip.width - 1) / cellSize);
+
+        if (lastRow < firstRow || lastCol < firstCol) {
+            return;
+        }
+
+        // Repaint time on the EDT is what GameMetrics reports as the board update latency
+        GameEvents.BoardRepaint event = new GameEvents.BoardRepaint();
+        event.begin();
+        long start = GameMetrics.startTimer();
+
+        if (cellSize < DETAIL_CELL_SIZE) {
+            paintFlat(g, firstRow, lastRow, firstCol, lastCol);
+        } else {
+            paintTiles(g, firstRow, lastRow, firstCol, lastCol);
+        }
+
+        GameMetrics.boardUpdateFinished(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cells = (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+            event.cellSize = cellSize;
+            event.flat = cellSize < DETAIL_CELL_SIZE;
+            event.commit();
+        }
+    }
+
+    private void paintTiles(Graphics g, int firstRow, int lastRow, int firstCol, int lastCol) {
+        double scale = ((Graphics2D) g).getTransform().getScaleX();
+        BufferedImage[] tiles = tiles(scale);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                BufferedImage tile = tiles[tileFor(row, col)];
+                if (scale == 1) {
+                    // Unscaled blit - the common case, and much cheaper than the scaling overload
+                    g.drawImage(tile, col * cellSize, row * cellSize, null);
+                } else {
+                    g.drawImage(tile, col * cellSize, row * cellSize, cellSize, cellSize, null);
+                }
+            }
+        }
+    }
+
+    private void paintFlat(Graphics g, int firstRow, int lastRow, int firstCol, int lastCol) {
+        int width = lastCol - firstCol + 1;
+        int height = lastRow - firstRow + 1;
+        if (flatImage == null || flatImage.getWidth() < width || flatImage.getHeight() < height) {
+            flatImage = new BufferedImage(Math.max(width, flatImage == null ? 0 : flatImage.getWidth()),
+                    Math.max(height, flatImage == null ? 0 : flatImage.getHeight()), BufferedImage.TYPE_INT_RGB);
+        }
+
+        int[] pixels = ((java.awt.image.DataBufferInt) flatImage.getRaster().getDataBuffer()).getData();
+        int stride = flatImage.getWidth();
+        for (int row = firstRow; row <= lastRow; row++) {
+            int base = (row - firstRow) * stride - firstCol;
+            for (int col = firstCol; col <= lastCol; col++) {
+                pixels[base + col] = FLAT_RGB[tileFor(row, col)];
+            }
+        }
+
+        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(flatImage, firstCol * cellSize, firstRow * cellSize, (lastCol + 1) * cellSize,
+                (lastRow + 1) * cellSize, 0, 0, width, height, null);
+    }
+
+    private int tileFor(int row, int col) {
+        if (showBombs && model.hasBomb(row, col)) {
+            return BOMB_SHOWN;
+        }
+        if (model.isFlagged(row, col)) {
+            return FLAGGED;
+        }
+        if (!model.isRevealed(row, col)) {
+            return HIDDEN;
+        }
+        if (model.hasBomb(row, col)) {
+            return BOMB;
+        }
+        return REVEALED + model.countAdjacentBombs(row, col);
+    }
+
+    private BufferedImage[] tiles(double scale) {
+        long key = (long) cellSize << 32 | Float.floatToIntBits((float) scale);
+        BufferedImage[] tiles = tileCache.get(key);
+        if (tiles == null) {
+            tiles = new BufferedImage[TILE_COUNT];
+            for (int tile = 0; tile < TILE_COUNT; tile++) {
+                tiles[tile] = renderTile(tile, scale);
+            }
+            tileCache.put(key, tiles);
+        }
+        return tiles;
+    }
+
+    private BufferedImage renderTile(int tile, double scale) {
+        int pixels = Math.max(1, (int) Math.ceil(cellSize * scale));
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(scale, scale);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            boolean raised = tile == HIDDEN || tile == FLAGGED;
+            g.setColor(raised ? UNREVEALED_CELL : REVEALED_CELL);
+            g.fillRect(0, 0, cellSize, cellSize);
+
+            (raised ? RAISED_BORDER : REVEALED_BORDER).paintBorder(this, g, 0, 0, cellSize, cellSize);
+
+            if (tile == FLAGGED) {
+                drawCentered(g, FLAG_EMOJI, FLAG_COLOR);
+            } else if (tile == BOMB) {
+                drawCentered(g, BOMB_EMOJI, Color.BLACK);
+            } else if (tile == BOMB_SHOWN) {
+                drawCentered(g, BOMB_EMOJI, FLAG_COLOR);
+            } else if (tile > REVEALED) {
+                int number = tile - REVEALED;
+                drawCentered(g, String.valueOf(number), NUMBER_COLORS[number]);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private Point clampView(int x, int y, Dimension extent) {
+        Dimension size = getPreferredSize();
+        x = Math.max(0, Math.min(x, size.width - extent.width));
+        y = Math.max(0, Math.min(y, size.height - extent.height));
+        return new Point(x, y);
+    }
+
+    // Also keeps the whole board under Integer.MAX_VALUE pixels on either axis
+    private int clampCellSize(int size) {
+        int limit = MAX_CELL_SIZE;
+        if (model != null) {
+            limit = Math.min(limit, (Integer.MAX_VALUE / 2) / Math.max(model.getRows(), model.getCols()));
+        }
+        return Math.max(MIN_CELL_SIZE, Math.min(size, limit));
+    }
+
+    private void drawCentered(Graphics2D g, String text, Color color) {
+        g.setFont(new Font("Arial", Font.BOLD, Math.max(6, cellSize * 2 / 5)));
+        g.setColor(color);
+
+        FontMetrics metrics = g.getFontMetrics();
+        int x = (cellSize - metrics.stringWidth(text)) / 2;
+        int y = (cellSize - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.drawString(text, x, y);
+    }
+}
@@ -0,0 +1,232 @@
+package spinner.minesweeper;
+
+/*Writes what the player can see into caller-supplied float buffers - no allocation
+- SCALAR: one value per cell - hidden 0.0, flagged 1.0, revealed n -> (n + 1) / 10
+- ONE_HOT: 11 planes (channel-major) - hidden, flagged, revealed 0..8
+- Targets: float[], FloatBuffer or ByteBuffer (e.g. direct), always at an absolute offset
+- Batch calls write N games back to back, game i at offset + i * size
+- update() patches only the cells the game reports as changed (see enableChangeTracking);
+  acknowledging them is left to the caller
+- One cell walk serves every target, through a stateless Target strategy per buffer type
+- A TiledBoard is encoded a tile per task on its own pool
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+public final class BoardEncoder
+{
+    public static final int HIDDEN_CHANNEL = 0;
+    public static final int FLAGGED_CHANNEL = 1;
+    // Revealed n is channel REVEALED_CHANNEL + n
+    public static final int REVEALED_CHANNEL = 2;
+
+    public enum Layout
+    {
+        SCALAR(1), ONE_HOT(11);
+
+        private final int channels;
+
+        Layout(int channels) {
+            this.channels = channels;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+    }
+
+    // Where the floats go: value i of this game lands at offset + i, counted in the target's units
+    private interface Target<T>
+    {
+        void put(T dest, int offset, int i, float value);
+    }
+
+    private static final Target<float[]> ARRAY = (dest, offset, i, value) -> dest[offset + i] = value;
+    private static final Target<FloatBuffer> FLOAT_BUFFER = (dest, offset, i, value) -> dest.put(offset + i, value);
+    private static final Target<ByteBuffer> BYTE_BUFFER =
+            (dest, offset, i, value) -> dest.putFloat(offset + i * Float.BYTES, value);
+
+    private final Layout layout;
+
+    public BoardEncoder(Layout layout) {
+        this.layout = layout;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    // Floats written per game
+    public int size(BoardSpec spec) {
+        return layout.getChannels() * spec.getCellCount();
+    }
+
+    public void encode(Minesweeper game, float[] dest, int offset) {
+        checkRange(offset, size(game.getSpec()), dest.length);
+        encode(game, ARRAY, dest, offset);
+    }
+
+    public void encode(Minesweeper game, FloatBuffer dest, int offset) {
+        checkRange(offset, size(game.getSpec()), dest.limit());
+        encode(game, FLOAT_BUFFER, dest, offset);
+    }
+
+    // byteOffset is in bytes; floats use the buffer's byte order
+    public void encode(Minesweeper game, ByteBuffer dest, int byteOffset) {
+        checkRange(byteOffset, (long) size(game.getSpec()) * Float.BYTES, dest.limit());
+        encode(game, BYTE_BUFFER, dest, byteOffset);
+    }
+
+    // Same values as encode(Minesweeper, ...), written a tile per task on the board's pool
+    public void encode(TiledBoard board, float[] dest, int offset) {
+        checkRange(offset, size(board.getSpec()), dest.length);
+        board.encode(layout, dest, offset);
+    }
+
+    private <T> void encode(Minesweeper game, Target<T> target, T dest, int offset) {
+        int cells = game.getSpec().getCellCount();
+        if (layout == Layout.ONE_HOT) {
+            for (int i = 0; i < size(game.getSpec()); i++) {
+                target.put(dest, offset, i, 0f);
+            }
+        }
+
+        int cols = game.getCols();
+        for (int cell = 0; cell < cells; cell++) {
+            put(target, dest, offset, cells, cell, cellCode(game, cell / cols, cell % cols));
+        }
+    }
+
+    // All games must share one board size
+    public void encodeBatch(Minesweeper[] games, int count, float[] dest, int offset) {
+        int stride = batchStride(games, count);
+        for (int i = 0; i < count; i++) {
+            encode(games[i], dest, offset + i * stride);
+        }
+    }
+
+    public void encodeBatch(Minesweeper[] games, int count, FloatBuffer dest, int offset) {
+        int stride = batchStride(games, count);
+        for (int i = 0; i < count; i++) {
+            encode(games[i], dest, offset + i * stride);
+        }
+    }
+
+    public void encodeBatch(Minesweeper[] games, int count, ByteBuffer dest, int byteOffset) {
+        int stride = batchStride(games, count) * Float.BYTES;
+        for (int i = 0; i < count; i++) {
+            encode(games[i], dest, byteOffset + i * stride);
+        }
+    }
+
+    // Brings a buffer encoded earlier up to date by rewriting only the changed cells. The changes are
+    // not acknowledged, so several buffers can follow one game; the caller acknowledges once all are done
+    public void update(Minesweeper game, float[] dest, int offset) {
+        checkRange(offset, size(game.getSpec()), dest.length);
+        update(game, ARRAY, dest, offset);
+    }
+
+    public void update(Minesweeper game, FloatBuffer dest, int offset) {
+        checkRange(offset, size(game.getSpec()), dest.limit());
+        update(game, FLOAT_BUFFER, dest, offset);
+    }
+
+    public void update(Minesweeper game, ByteBuffer dest, int byteOffset) {
+        checkRange(byteOffset, (long) size(game.getSpec()) * Float.BYTES, dest.limit());
+        update(game, BYTE_BUFFER, dest, byteOffset);
+    }
+
+    private <T> void update(Minesweeper game, Target<T> target, T dest, int offset) {
+        if (!game.isChangeTrackingEnabled() || game.hasAllChanged()) {
+            encode(game, target, dest, offset);
+            return;
+        }
+
+        int cells = game.getSpec().getCellCount();
+        for (int i = 0; i < game.getChangedCount(); i++) {
+            int cell = game.getChangedCell(i);
+            int code = cellCode(game, cell / game.getCols(), cell % game.getCols());
+
+            if (layout == Layout.ONE_HOT) {
+                for (int channel = 0; channel < layout.getChannels(); channel++) {
+                    target.put(dest, offset, channel * cells + cell, 0f);
+                }
+            }
+            put(target, dest, offset, cells, cell, code);
+        }
+    }
+
+    // The one write per cell both layouts share; ONE_HOT expects its planes cleared at this cell
+    private <T> void put(Target<T> target, T dest, int offset, int cells, int cell, int code) {
+        if (layout == Layout.SCALAR) {
+            target.put(dest, offset, cell, scalar(code));
+        } else {
+            target.put(dest, offset, code * cells + cell, 1f);
+        }
+    }
+
+    // Training label: 1.0 where the bomb really is - unlike toOutput, which echoes the flags
+    public static void encodeMines(Minesweeper game, float[] dest, int offset) {
+        int cols = game.getCols();
+        int cells = game.getSpec().getCellCount();
+        checkRange(offset, cells, dest.length);
+
+        for (int cell = 0; cell < cells; cell++) {
+            dest[offset + cell] = game.hasBomb(cell / cols, cell % cols) ? 1f : 0f;
+        }
+    }
+
+    public static void encodeMines(Minesweeper game, ByteBuffer dest, int byteOffset) {
+        int cols = game.getCols();
+        int cells = game.getSpec().getCellCount();
+        checkRange(byteOffset, (long) cells * Float.BYTES, dest.limit());
+
+        for (int cell = 0; cell < cells; cell++) {
+            dest.putFloat(byteOffset + cell * Float.BYTES, game.hasBomb(cell / cols, cell % cols) ? 1f : 0f);
+        }
+    }
+
+    // 0 hidden, 1 flagged, 2 + n revealed with n adjacent bombs - the ONE_HOT channel
+    static int cellCode(Minesweeper game, int row, int col) {
+        if (game.isFlagged(row, col)) {
+            return FLAGGED_CHANNEL;
+        }
+        if (!game.isRevealed(row, col)) {
+            return HIDDEN_CHANNEL;
+        }
+        return REVEALED_CHANNEL + game.countAdjacentBombs(row, col);
+    }
+
+    static float scalar(int code) {
+        if (code == HIDDEN_CHANNEL) {
+            return 0f;
+        }
+        if (code == FLAGGED_CHANNEL) {
+            return 1f;
+        }
+        return (code - REVEALED_CHANNEL + 1) * 0.1f;
+    }
+
+    private int batchStride(Minesweeper[] games, int count) {
+        if (count == 0) {
+            return 0;
+        }
+
+        BoardSpec first = games[0].getSpec();
+        for (int i = 1; i < count; i++) {
+            BoardSpec spec = games[i].getSpec();
+            if (spec.getRows() != first.getRows() || spec.getCols() != first.getCols()) {
+                throw new IllegalArgumentException("Batch mixes board sizes: " + first + " and " + spec);
+            }
+        }
+        return size(first);
+    }
+
+    // In long arithmetic, so a large offset or length cannot wrap around and pass
+    private static void checkRange(int offset, long length, int capacity) {
+        if (offset < 0 || offset + length > capacity) {
+            throw new IndexOutOfBoundsException("Need " + length + " slots at " + offset + ", capacity " + capacity);
+        }
+    }
+}
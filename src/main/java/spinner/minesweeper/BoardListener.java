@@ -0,0 +1,12 @@
+package spinner.minesweeper;
+
+/*Receives the changes of a Minesweeper game, one batch per public move
+- Called once the move is complete, so the model is consistent during the call
+- The BoardChange is reused by the game: read it during the call, never keep it
+- A listener may make further moves; those arrive as a separate batch
+*/
+
+public interface BoardListener
+{
+    void boardChanged(Minesweeper game, BoardChange change);
+}
@@ -0,0 +1,157 @@
+package spinner.minesweeper;
+
+/*Ready-made no-guess boards, found ahead of time by background threads
+- One bounded queue of seeds per (spec, first click); a queue starts filling the first time it is
+  asked for, or on prepare
+- take() is a queue pop while boards are ready; an empty queue falls back to a bounded search on the
+  caller's thread, which an interrupt cuts short
+- Workers are daemon threads that take turns over the queues that have room, and wait while all are full
+- Seeds, not games, are pooled: a game rebuilt from its seed is the same board, and replays and logs still work
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class BoardPool implements AutoCloseable
+{
+    // Candidates a worker tries before looking for the next queue that needs boards
+    private static final int CANDIDATES_PER_ROUND = 256;
+
+    private final int capacity;
+    private final Map<Key, BlockingQueue<Long>> queues = new ConcurrentHashMap<>();
+    // Same queues, in the order workers visit them - guarded by `this`
+    private final List<Key> keys = new ArrayList<>();
+    private int nextKey;
+    private boolean closed;
+    private final Thread[] workers;
+
+    public BoardPool(int threads, int capacity) {
+        if (threads <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Need at least one thread and one board: " + threads + ", " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.workers = new Thread[threads];
+        long seed = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(seed + i);
+            workers[i] = new Thread(() -> work(random), "board-pool-" + i);
+            workers[i].setDaemon(true);
+            workers[i].setPriority(Thread.MIN_PRIORITY);
+            workers[i].start();
+        }
+    }
+
+    // Starts filling the queue for this key without taking anything from it
+    public void prepare(BoardSpec spec, int row, int col) {
+        queue(new Key(spec, row, col));
+    }
+
+    // Seed of a no-guess board for spec, whose first click at (row, col) opens a zero. NO_SEED when none
+    // turned up within NoGuessGenerator's default budget, or the caller was interrupted while searching
+    public long take(BoardSpec spec, int row, int col) {
+        Key key = new Key(spec, row, col);
+        Long seed = queue(key).poll();
+
+        synchronized (this) {
+            notifyAll();
+        }
+        return seed != null ? seed : NoGuessGenerator.findSeed(spec, row, col, new SplittableRandom());
+    }
+
+    // Boards ready right now for this key
+    public int available(BoardSpec spec, int row, int col) {
+        BlockingQueue<Long> queue = queues.get(new Key(spec, row, col));
+        return queue == null ? 0 : queue.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private BlockingQueue<Long> queue(Key key) {
+        BlockingQueue<Long> queue = queues.get(key);
+        if (queue != null) {
+            return queue;
+        }
+
+        NoGuessGenerator.checkFirstClick(key.spec, key.row, key.col);
+        synchronized (this) {
+            queue = queues.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity));
+            if (!keys.contains(key)) {
+                keys.add(key);
+                notifyAll();
+            }
+        }
+        return queue;
+    }
+
+    private void work(SplittableRandom random) {
+        Key key;
+        while ((key = nextHungry()) != null) {
+            long seed = NoGuessGenerator.findSeed(key.spec, key.row, key.col, random, CANDIDATES_PER_ROUND);
+            if (seed != NoGuessGenerator.NO_SEED) {
+                queues.get(key).offer(seed);
+            }
+        }
+    }
+
+    // The next queue with room, round robin; waits while every queue is full. Null once closed
+    private synchronized Key nextHungry() {
+        while (!closed) {
+            for (int i = 0; i < keys.size(); i++) {
+                Key key = keys.get((nextKey + i) % keys.size());
+                if (queues.get(key).remainingCapacity() > 0) {
+                    nextKey = (nextKey + i + 1) % keys.size();
+                    return key;
+                }
+            }
+
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class Key
+    {
+        final BoardSpec spec;
+        final int row;
+        final int col;
+
+        Key(BoardSpec spec, int row, int col) {
+            this.spec = spec;
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return spec.equals(other.spec) && row == other.row && col == other.col;
+        }
+
+        @Override
+        public int hashCode() {
+            return (spec.hashCode() * 31 + row) * 31 + col;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package spinner.minesweeper;
+
+/*Board geometry for a game
+- Number of rows, columns and bombs
+- Immutable, so one spec can be shared by many games
+*/
+
+public final class BoardSpec
+{
+    public static final BoardSpec BEGINNER = new BoardSpec(9, 9, 10);
+    public static final BoardSpec INTERMEDIATE = new BoardSpec(16, 16, 40);
+    public static final BoardSpec EXPERT = new BoardSpec(16, 30, 99);
+
+    private final int rows;
+    private final int cols;
+    private final int bombs;
+
+    public BoardSpec(int rows, int cols, int bombs) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board must have at least one row and column: " + rows + "x" + cols);
+        }
+
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + cols);
+        }
+
+        // At least one safe cell, otherwise the game can never be won
+        if (bombs < 0 || bombs >= rows * cols) {
+            throw new IllegalArgumentException("Bomb count " + bombs + " does not fit a " + rows + "x" + cols
+                    + " board");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.bombs = bombs;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getBombs() {
+        return bombs;
+    }
+
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public double getDensity() {
+        return (double) bombs / getCellCount();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof BoardSpec)) {
+            return false;
+        }
+
+        BoardSpec other = (BoardSpec) o;
+        return rows == other.rows && cols == other.cols && bombs == other.bombs;
+    }
+
+    @Override
+    public int hashCode() {
+        return (rows * 31 + cols) * 31 + bombs;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + "/" + bombs;
+    }
+}
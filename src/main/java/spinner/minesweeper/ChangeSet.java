@@ -0,0 +1,56 @@
+package spinner.minesweeper;
+
+/*Cells whose visible state changed since the consumer last acknowledged
+- A bit per cell stops duplicates, a list keeps the order and makes clearing O(changes)
+- "all" covers bulk changes (revealAllCells) without listing every cell
+*/
+
+final class ChangeSet
+{
+    private final BitGrid marked;
+    private final int cols;
+    private int[] cells = new int[16];
+    private int count;
+    private boolean all;
+
+    ChangeSet(int rows, int cols) {
+        this.marked = new BitGrid(rows, cols);
+        this.cols = cols;
+    }
+
+    void mark(int row, int col) {
+        if (all || marked.get(row, col)) {
+            return;
+        }
+
+        marked.set(row, col);
+        if (count == cells.length) {
+            cells = java.util.Arrays.copyOf(cells, count * 2);
+        }
+        cells[count++] = row * cols + col;
+    }
+
+    void markAll() {
+        all = true;
+    }
+
+    boolean isAll() {
+        return all;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int get(int i) {
+        return cells[i];
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            marked.clear(cells[i] / cols, cells[i] % cols);
+        }
+        count = 0;
+        all = false;
+    }
+}
@@ -0,0 +1,130 @@
+package spinner.minesweeper;
+
+/*Binary training dataset: fixed header + fixed-size records, little endian
+Header (64 bytes):
+  0 magic "MSDS", 4 version, 8 rows, 12 cols, 16 bombs, 20 layout ordinal, 24 record size,
+  32 record count (long), rest reserved
+Record:
+  observation - BoardEncoder floats (before the move)
+  label       - one float per cell, 1.0 where the bomb is
+  action      - int cell index, byte kind (ACTION_REVEAL / ACTION_FLAG)
+  outcome     - byte, final GameState ordinal of the game the record came from
+  padding to a multiple of 8 bytes
+Record i starts at HEADER_BYTES + i * recordSize, so any record is found without parsing
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class DatasetFormat
+{
+    public static final int MAGIC = 0x5344534D; // "MSDS" read as little endian
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 64;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final byte ACTION_REVEAL = 0;
+    public static final byte ACTION_FLAG = 1;
+
+    private static final int COUNT_OFFSET = 32;
+
+    private final int rows;
+    private final int cols;
+    private final int bombs;
+    private final BoardEncoder.Layout layout;
+    private final int observationFloats;
+    private final int recordSize;
+
+    public DatasetFormat(BoardSpec spec, BoardEncoder.Layout layout) {
+        this(spec.getRows(), spec.getCols(), spec.getBombs(), layout);
+    }
+
+    private DatasetFormat(int rows, int cols, int bombs, BoardEncoder.Layout layout) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bombs = bombs;
+        this.layout = layout;
+        this.observationFloats = layout.getChannels() * rows * cols;
+
+        int raw = (observationFloats + rows * cols) * Float.BYTES + Integer.BYTES + 2;
+        this.recordSize = (raw + 7) & ~7;
+    }
+
+    static DatasetFormat readHeader(ByteBuffer header) {
+        header.order(ORDER);
+        if (header.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a dataset file (bad magic)");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported dataset version " + header.getInt(4));
+        }
+
+        DatasetFormat format = new DatasetFormat(header.getInt(8), header.getInt(12), header.getInt(16),
+                BoardEncoder.Layout.values()[header.getInt(20)]);
+        if (format.recordSize != header.getInt(24)) {
+            throw new IllegalArgumentException("Record size " + header.getInt(24) + " does not match the header");
+        }
+        return format;
+    }
+
+    void writeHeader(ByteBuffer header, long recordCount) {
+        header.order(ORDER);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, rows);
+        header.putInt(12, cols);
+        header.putInt(16, bombs);
+        header.putInt(20, layout.ordinal());
+        header.putInt(24, recordSize);
+        header.putLong(COUNT_OFFSET, recordCount);
+    }
+
+    static long readRecordCount(ByteBuffer header) {
+        return header.order(ORDER).getLong(COUNT_OFFSET);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getBombs() {
+        return bombs;
+    }
+
+    public BoardEncoder.Layout getLayout() {
+        return layout;
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    public int getObservationFloats() {
+        return observationFloats;
+    }
+
+    public int getLabelFloats() {
+        return rows * cols;
+    }
+
+    // Byte offsets inside a record
+    int labelOffset() {
+        return observationFloats * Float.BYTES;
+    }
+
+    int actionOffset() {
+        return labelOffset() + rows * cols * Float.BYTES;
+    }
+
+    int actionKindOffset() {
+        return actionOffset() + Integer.BYTES;
+    }
+
+    int outcomeOffset() {
+        return actionKindOffset() + 1;
+    }
+}
@@ -0,0 +1,121 @@
+package spinner.minesweeper;
+
+/*Random access to a DatasetFormat file
+- The file is mapped read-only in fixed windows, created on first touch and published through an
+  AtomicReferenceArray, so a reader on another thread never sees a half-built buffer
+- Record i is found by arithmetic alone, so shuffled reads of a huge file cost one page fault each
+- Safe to share between threads; reads never move a buffer position
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class DatasetReader implements AutoCloseable
+{
+    private static final long WINDOW_BYTES = 256L << 20;
+
+    private final FileChannel channel;
+    private final DatasetFormat format;
+    private final long recordCount;
+    private final int recordsPerWindow;
+    private final AtomicReferenceArray<MappedByteBuffer> windows;
+
+    public DatasetReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        ByteBuffer header = ByteBuffer.allocate(DatasetFormat.HEADER_BYTES);
+        channel.read(header, 0);
+        this.format = DatasetFormat.readHeader(header);
+
+        // A writer that died before close leaves a stale count; trust whole records on disk
+        long onDisk = (channel.size() - DatasetFormat.HEADER_BYTES) / format.getRecordSize();
+        this.recordCount = Math.min(DatasetFormat.readRecordCount(header), onDisk);
+        this.recordsPerWindow = (int) Math.max(1, WINDOW_BYTES / format.getRecordSize());
+        this.windows = new AtomicReferenceArray<>((int) ((recordCount + recordsPerWindow - 1) / recordsPerWindow));
+    }
+
+    public DatasetFormat getFormat() {
+        return format;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public void readObservation(long record, float[] dest, int offset) {
+        ByteBuffer window = window(record);
+        int base = recordOffset(record);
+        for (int i = 0; i < format.getObservationFloats(); i++) {
+            dest[offset + i] = window.getFloat(base + i * Float.BYTES);
+        }
+    }
+
+    public void readLabel(long record, float[] dest, int offset) {
+        ByteBuffer window = window(record);
+        int base = recordOffset(record) + format.labelOffset();
+        for (int i = 0; i < format.getLabelFloats(); i++) {
+            dest[offset + i] = window.getFloat(base + i * Float.BYTES);
+        }
+    }
+
+    public int getActionCell(long record) {
+        return window(record).getInt(recordOffset(record) + format.actionOffset());
+    }
+
+    public byte getActionKind(long record) {
+        return window(record).get(recordOffset(record) + format.actionKindOffset());
+    }
+
+    public Minesweeper.GameState getOutcome(long record) {
+        return Minesweeper.GameState.values()[window(record).get(recordOffset(record) + format.outcomeOffset())];
+    }
+
+    // Zero-copy view of one whole record, for feeding a direct buffer straight to a trainer
+    public ByteBuffer record(long record) {
+        return window(record).slice(recordOffset(record), format.getRecordSize()).order(DatasetFormat.ORDER);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer window(long record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + recordCount);
+        }
+
+        int w = (int) (record / recordsPerWindow);
+        MappedByteBuffer window = windows.get(w);
+        if (window == null) {
+            window = mapWindow(w);
+        }
+        return window;
+    }
+
+    private synchronized MappedByteBuffer mapWindow(int w) {
+        if (windows.get(w) == null) {
+            long first = (long) w * recordsPerWindow;
+            long count = Math.min(recordsPerWindow, recordCount - first);
+            long position = DatasetFormat.HEADER_BYTES + first * format.getRecordSize();
+            try {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        count * format.getRecordSize());
+                window.order(DatasetFormat.ORDER);
+                windows.set(w, window);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException("Could not map records from " + first, e);
+            }
+        }
+        return windows.get(w);
+    }
+
+    private int recordOffset(long record) {
+        return (int) (record % recordsPerWindow) * format.getRecordSize();
+    }
+}
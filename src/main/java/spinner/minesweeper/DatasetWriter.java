@@ -0,0 +1,198 @@
+package spinner.minesweeper;
+
+/*Streams training records into a DatasetFormat file
+- Any number of threads call append; records pass through a lock-free RecordRing
+- One writer thread drains the ring into memory-mapped windows of the file
+- close() waits for appends already in flight and for the ring to drain, then writes the final
+  record count into the header
+- If the writer thread fails, appends (including those waiting on a full ring) throw its IOException
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public final class DatasetWriter implements AutoCloseable
+{
+    private static final long WINDOW_BYTES = 64L << 20;
+    private static final int DEFAULT_RING_CAPACITY = 1024;
+
+    private final DatasetFormat format;
+    private final FileChannel channel;
+    private final RecordRing ring;
+    private final Thread drainer;
+    private final int recordsPerWindow;
+
+    private volatile boolean closing;
+    // Appends between their closing check and their publish; the drainer outlives all of them
+    private final AtomicInteger appending = new AtomicInteger();
+    private volatile IOException failure;
+    private volatile long recordCount;
+    // Owned by the drainer thread
+    private MappedByteBuffer window;
+    private int windowUsed;
+
+    public DatasetWriter(Path path, DatasetFormat format) throws IOException {
+        this(path, format, DEFAULT_RING_CAPACITY);
+    }
+
+    public DatasetWriter(Path path, DatasetFormat format, int ringCapacity) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.ring = new RecordRing(ringCapacity, format.getRecordSize());
+        this.recordsPerWindow = (int) Math.max(1, WINDOW_BYTES / format.getRecordSize());
+
+        writeHeader();
+        this.drainer = new Thread(this::drain, "dataset-writer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    public DatasetFormat getFormat() {
+        return format;
+    }
+
+    // Copies one record (format.getRecordSize() bytes at offset) into the ring; thread safe
+    public void append(ByteBuffer record, int offset) {
+        // Counted before the closing check, so close() either stops this append or waits for it
+        appending.incrementAndGet();
+        try {
+            if (closing) {
+                throw new IllegalStateException("Writer is closed");
+            }
+            checkFailure();
+            // A claimed slot must always be published, so bad arguments fail before the claim
+            java.util.Objects.checkFromIndexSize(offset, format.getRecordSize(), record.limit());
+
+            long sequence = ring.claim();
+            if (sequence < 0) {
+                checkFailure();
+                throw new IllegalStateException("Writer stopped");
+            }
+            ring.buffer().put(ring.offset(sequence), record, offset, format.getRecordSize());
+            ring.publish(sequence);
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    // Records written to the file so far
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closing) {
+            return;
+        }
+
+        closing = true;
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while draining the dataset writer", e);
+        }
+
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+
+            writeHeader();
+            channel.truncate(DatasetFormat.HEADER_BYTES + recordCount * format.getRecordSize());
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() {
+        int spins = 0;
+        try {
+            while (true) {
+                int offset = ring.peek();
+                if (offset >= 0) {
+                    writeRecord(ring.buffer(), offset);
+                    ring.advance();
+                    spins = 0;
+                } else if (closing && appending.get() == 0 && ring.isEmpty()) {
+                    return;
+                } else {
+                    RecordRing.backOff(spins++);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            ring.abandon();
+        }
+    }
+
+    private void writeRecord(ByteBuffer source, int offset) throws IOException {
+        int size = format.getRecordSize();
+        if (window == null || windowUsed == recordsPerWindow) {
+            long position = DatasetFormat.HEADER_BYTES + recordCount * size;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) recordsPerWindow * size);
+            windowUsed = 0;
+        }
+
+        window.put(windowUsed * size, source, offset, size);
+        windowUsed++;
+        recordCount = recordCount + 1;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DatasetFormat.HEADER_BYTES);
+        format.writeHeader(header, recordCount);
+        channel.write(header, 0);
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Dataset writer failed", failure);
+        }
+    }
+
+    // Usage: DatasetWriter <file> [games] [rows] [cols] [bombs] [random|rules|probability] [SCALAR|ONE_HOT] [seed]
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: DatasetWriter <file> [games] [rows] [cols] [bombs] [player] [layout] [seed]");
+            return;
+        }
+
+        Path path = Path.of(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100_000L;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : BoardSpec.BEGINNER.getRows();
+        int cols = args.length > 3 ? Integer.parseInt(args[3]) : BoardSpec.BEGINNER.getCols();
+        int bombs = args.length > 4 ? Integer.parseInt(args[4]) : BoardSpec.BEGINNER.getBombs();
+        String playerName = args.length > 5 ? args[5] : "probability";
+        BoardEncoder.Layout layout = args.length > 6
+                ? BoardEncoder.Layout.valueOf(args[6])
+                : BoardEncoder.Layout.ONE_HOT;
+        long seed = args.length > 7 ? Long.parseLong(args[7]) : System.nanoTime();
+
+        BoardSpec spec = new BoardSpec(rows, cols, bombs);
+        Supplier<? extends Player> players = Simulator.playerByName(playerName);
+
+        long start = System.nanoTime();
+        SimulationStats stats;
+        DatasetWriter writer = new DatasetWriter(path, new DatasetFormat(spec, layout));
+        try (writer) {
+            Simulator simulator = new Simulator(spec, () -> new RecordingPlayer(players.get(), writer));
+            stats = simulator.run(games, seed);
+        }
+        long records = writer.getRecordCount();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(stats);
+        System.out.printf("%d records to %s in %.3f s, %.0f records/s%n", records, path, seconds, records / seconds);
+    }
+}
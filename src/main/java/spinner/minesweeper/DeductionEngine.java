@@ -0,0 +1,350 @@
+package spinner.minesweeper;
+
+/*Rule-based solver that works incrementally on one game
+- Keeps a worklist of numbered cells whose neighbourhood changed since they were last looked at
+- Single-cell rule: remaining mines == unknown neighbours -> all mines, 0 -> all safe
+- Pairwise rule: if A's unknown cells are a subset of B's, the difference holds (rB - rA) mines
+- Runs to a fixpoint; flags count as mines, just like the old autoFlag/autoReveal did
+- The model feeds it every change (see Minesweeper.getDeductionEngine), so nothing is rescanned
+- The budgeted overloads stop after about maxChanges moves; the next call carries on from there
+*/
+
+public final class DeductionEngine
+{
+    private final Minesweeper game;
+    private final int rows;
+    private final int cols;
+
+    // Worklist of numbered cells to (re)examine - ring buffer plus a "queued" bit per cell
+    private final BitGrid queued;
+    private int[] queue = new int[64];
+    private int head;
+    private int queueSize;
+
+    // Deductions not yet acted on: mines not flagged, safe cells not revealed
+    private final BitGrid knownMines;
+    private final BitGrid knownSafe;
+    private int[] pendingMines = new int[16];
+    private int pendingMineCount;
+    private int[] pendingSafe = new int[16];
+    private int pendingSafeCount;
+
+    // Scratch for the unknown neighbours of the two cells being compared
+    private final int[] unknownA = new int[8];
+    private final int[] unknownB = new int[8];
+    private final int[] difference = new int[8];
+
+    private boolean flagMines;
+    private boolean revealSafe;
+    private int changes;
+
+    DeductionEngine(Minesweeper game) {
+        this.game = game;
+        this.rows = game.getRows();
+        this.cols = game.getCols();
+        this.queued = new BitGrid(rows, cols);
+        this.knownMines = new BitGrid(rows, cols);
+        this.knownSafe = new BitGrid(rows, cols);
+
+        // One scan when the engine is created, incremental from then on. Only revealed cells next
+        // to an unknown one can lead anywhere, and the model finds those 64 cells at a time
+        long[] border = game.borderMask();
+        int wordsPerRow = (cols + 63) >>> 6;
+        for (int w = 0; w < border.length; w++) {
+            long bits = border[w];
+            while (bits != 0) {
+                enqueue(w / wordsPerRow, ((w % wordsPerRow) << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    // Flags every cell that can be proven to be a mine; returns the number of flags placed
+    public int flagMines() {
+        return run(true, false, Integer.MAX_VALUE);
+    }
+
+    public int flagMines(int maxChanges) {
+        return run(true, false, maxChanges);
+    }
+
+    // Reveals every cell that can be proven safe; returns the number of reveal calls made
+    public int revealSafeCells() {
+        return run(false, true, Integer.MAX_VALUE);
+    }
+
+    public int revealSafeCells(int maxChanges) {
+        return run(false, true, maxChanges);
+    }
+
+    // Both at once - plays the game as far as pure deduction goes
+    public int solve() {
+        return run(true, true, Integer.MAX_VALUE);
+    }
+
+    public int solve(int maxChanges) {
+        return run(true, true, maxChanges);
+    }
+
+    public boolean hasPendingWork() {
+        return queueSize > 0 || pendingMineCount > 0 || pendingSafeCount > 0;
+    }
+
+    // A budget is checked between examined cells, so one examine can overshoot it a little
+    private int run(boolean flag, boolean reveal, int maxChanges) {
+        flagMines = flag;
+        revealSafe = reveal;
+        changes = 0;
+
+        do {
+            // Act on what earlier runs proved but were not allowed to apply
+            if (flagMines) {
+                flushMines();
+            }
+            if (revealSafe) {
+                flushSafe();
+            }
+
+            while (queueSize > 0 && changes < maxChanges && game.getGameState() == Minesweeper.GameState.PLAYING) {
+                int cell = queue[head];
+                head = (head + 1) % queue.length;
+                queueSize--;
+
+                int row = cell / cols;
+                int col = cell % cols;
+                queued.clear(row, col);
+                examine(row, col);
+            }
+        } while (game.getGameState() == Minesweeper.GameState.PLAYING && changes < maxChanges
+                && (flagMines && pendingMineCount > 0 || revealSafe && pendingSafeCount > 0));
+
+        return changes;
+    }
+
+    // Called by the model whenever a cell is revealed or flagged
+    void cellChanged(int row, int col) {
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int newRow = row + dr;
+                int newCol = col + dc;
+
+                if (isValid(newRow, newCol)) {
+                    enqueue(newRow, newCol);
+                }
+            }
+        }
+    }
+
+    private void examine(int row, int col) {
+        int unknownCount = collectUnknown(row, col, unknownA);
+        if (unknownCount == 0) {
+            return;
+        }
+
+        int remaining = remainingMines(row, col);
+
+        if (remaining == unknownCount) {
+            markAll(unknownA, unknownCount, true);
+            return;
+        }
+
+        if (remaining == 0) {
+            markAll(unknownA, unknownCount, false);
+            return;
+        }
+
+        // Pairwise rule against every numbered cell that can share an unknown neighbour
+        for (int dr = -2; dr <= 2; dr++) {
+            for (int dc = -2; dc <= 2; dc++) {
+                int otherRow = row + dr;
+                int otherCol = col + dc;
+
+                if ((dr == 0 && dc == 0) || !isValid(otherRow, otherCol) || !isNumbered(otherRow, otherCol)) {
+                    continue;
+                }
+
+                int otherCount = collectUnknown(otherRow, otherCol, unknownB);
+                if (otherCount == 0 || otherCount == unknownCount) {
+                    continue;
+                }
+
+                // Either set can be the subset; the other cell may not be on the worklist
+                int diffCount;
+                int diffMines;
+                if (otherCount > unknownCount) {
+                    diffCount = subtractIfSubset(unknownA, unknownCount, unknownB, otherCount, difference);
+                    diffMines = remainingMines(otherRow, otherCol) - remaining;
+                } else {
+                    diffCount = subtractIfSubset(unknownB, otherCount, unknownA, unknownCount, difference);
+                    diffMines = remaining - remainingMines(otherRow, otherCol);
+                }
+
+                if (diffCount <= 0) {
+                    continue;
+                }
+
+                boolean changed = false;
+                if (diffMines == diffCount) {
+                    changed = markAll(difference, diffCount, true);
+                } else if (diffMines == 0) {
+                    changed = markAll(difference, diffCount, false);
+                }
+
+                // unknownA is stale now; this cell was queued again by the change
+                if (changed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns true if the unknown sets around the marked cells changed
+    private boolean markAll(int[] cells, int count, boolean mine) {
+        boolean changed = false;
+
+        for (int i = 0; i < count; i++) {
+            int cell = cells[i];
+            int row = cell / cols;
+            int col = cell % cols;
+
+            if (mine) {
+                if (knownMines.get(row, col)) {
+                    continue;
+                }
+                knownMines.set(row, col);
+                pendingMines = push(pendingMines, pendingMineCount++, cell);
+                changed = true;
+
+                // The neighbours now see one more known mine
+                cellChanged(row, col);
+            } else {
+                if (knownSafe.get(row, col)) {
+                    continue;
+                }
+                knownSafe.set(row, col);
+                pendingSafe = push(pendingSafe, pendingSafeCount++, cell);
+            }
+        }
+
+        if (mine && flagMines) {
+            flushMines();
+        } else if (!mine && revealSafe && pendingSafeCount > 0) {
+            flushSafe();
+            changed = true;
+        }
+        return changed;
+    }
+
+    private void flushMines() {
+        while (pendingMineCount > 0) {
+            int cell = pendingMines[--pendingMineCount];
+            int row = cell / cols;
+            int col = cell % cols;
+
+            if (!game.isFlagged(row, col) && !game.isRevealed(row, col)) {
+                game.flagCell(row, col);
+                changes++;
+            }
+        }
+    }
+
+    private void flushSafe() {
+        while (pendingSafeCount > 0 && game.getGameState() == Minesweeper.GameState.PLAYING) {
+            int cell = pendingSafe[--pendingSafeCount];
+            int row = cell / cols;
+            int col = cell % cols;
+
+            if (!game.isFlagged(row, col) && !game.isRevealed(row, col)) {
+                game.revealCell(row, col);
+                changes++;
+            }
+        }
+    }
+
+    // Unknown = hidden, not flagged, not already proven to be a mine; written in ascending order
+    private int collectUnknown(int row, int col, int[] out) {
+        int count = 0;
+
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int newRow = row + dr;
+                int newCol = col + dc;
+
+                if ((dr != 0 || dc != 0) && isValid(newRow, newCol) && !game.isRevealed(newRow, newCol)
+                        && !game.isFlagged(newRow, newCol) && !knownMines.get(newRow, newCol)) {
+                    out[count++] = newRow * cols + newCol;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int remainingMines(int row, int col) {
+        int known = 0;
+
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int newRow = row + dr;
+                int newCol = col + dc;
+
+                if ((dr != 0 || dc != 0) && isValid(newRow, newCol)
+                        && (game.isFlagged(newRow, newCol) || knownMines.get(newRow, newCol))) {
+                    known++;
+                }
+            }
+        }
+        return game.countAdjacentBombs(row, col) - known;
+    }
+
+    // Writes b \ a into out if a is a subset of b (both sorted), otherwise returns -1
+    private static int subtractIfSubset(int[] a, int aCount, int[] b, int bCount, int[] out) {
+        int i = 0;
+        int count = 0;
+
+        for (int j = 0; j < bCount; j++) {
+            if (i < aCount && a[i] == b[j]) {
+                i++;
+            } else if (i < aCount && a[i] < b[j]) {
+                return -1;
+            } else {
+                out[count++] = b[j];
+            }
+        }
+        return i == aCount ? count : -1;
+    }
+
+    private void enqueue(int row, int col) {
+        if (queued.get(row, col) || !isNumbered(row, col)) {
+            return;
+        }
+
+        if (queueSize == queue.length) {
+            int[] bigger = new int[queue.length * 2];
+            for (int i = 0; i < queueSize; i++) {
+                bigger[i] = queue[(head + i) % queue.length];
+            }
+            queue = bigger;
+            head = 0;
+        }
+
+        queue[(head + queueSize) % queue.length] = row * cols + col;
+        queueSize++;
+        queued.set(row, col);
+    }
+
+    private boolean isNumbered(int row, int col) {
+        return game.isRevealed(row, col) && !game.hasBomb(row, col) && game.countAdjacentBombs(row, col) > 0;
+    }
+
+    private boolean isValid(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    private static int[] push(int[] list, int index, int value) {
+        if (index == list.length) {
+            list = java.util.Arrays.copyOf(list, list.length * 2);
+        }
+        list[index] = value;
+        return list;
+    }
+}
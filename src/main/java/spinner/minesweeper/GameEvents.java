@@ -0,0 +1,94 @@
+package spinner.minesweeper;
+
+/*Flight Recorder events for the game, all under the "Minesweeper" category
+- Use the begin / end / shouldCommit pattern: with recording off the event object is never
+  allocated after JIT escape analysis, and shouldCommit is a constant false
+- Enable with e.g. java -XX:StartFlightRecording:filename=game.jfr ...
+*/
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+final class GameEvents
+{
+    private static final String CATEGORY = "Minesweeper";
+
+    private GameEvents() {
+    }
+
+    @Name("spinner.minesweeper.Reveal")
+    @Label("Reveal Cell")
+    @Category(CATEGORY)
+    static final class Reveal extends Event
+    {
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+
+        @Label("Result")
+        String result;
+
+        @Label("Cells Opened")
+        int opened;
+    }
+
+    @Name("spinner.minesweeper.AutoMove")
+    @Label("Auto Flag / Reveal")
+    @Category(CATEGORY)
+    static final class AutoMove extends Event
+    {
+        @Label("Kind")
+        String kind;
+
+        @Label("Changes")
+        int changes;
+    }
+
+    @Name("spinner.minesweeper.PlaceBombs")
+    @Label("Place Bombs")
+    @Category(CATEGORY)
+    static final class PlaceBombs extends Event
+    {
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Bombs")
+        int bombs;
+    }
+
+    @Name("spinner.minesweeper.Fork")
+    @Label("Fork / Deep Copy")
+    @Category(CATEGORY)
+    static final class Fork extends Event
+    {
+        @Label("Cells")
+        int cells;
+
+        @Label("Shared Bytes")
+        @DataAmount
+        long sharedBytes;
+    }
+
+    @Name("spinner.minesweeper.BoardRepaint")
+    @Label("Board Repaint")
+    @Category({CATEGORY, "Swing"})
+    static final class BoardRepaint extends Event
+    {
+        @Label("Cells Painted")
+        int cells;
+
+        @Label("Cell Size")
+        int cellSize;
+
+        @Label("Flat")
+        boolean flat;
+    }
+}
@@ -0,0 +1,197 @@
+package spinner.minesweeper;
+
+/*Append-only file of GameRecords with a side index
+- Log: 8-byte header ("MSGL", version), then frames of varint length + encoded GameRecord
+- Index (<log>.idx): one 8-byte little-endian offset per game, so game i is one positional read
+- The offsets are also kept in memory; a run of games is read with a single read call
+- Opening a log whose index is behind (crash between the two writes) rescans only the tail;
+  a torn last frame is cut off
+- All methods are synchronized, so the UI and simulator threads can share one log
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class GameLog implements AutoCloseable
+{
+    private static final int MAGIC = 0x4C47534D; // "MSGL" read as little endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private final FileChannel log;
+    private final FileChannel index;
+    private long[] offsets = new long[1024];
+    private int count;
+    // End of the last complete frame
+    private long end;
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    public GameLog(Path path) throws IOException {
+        log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(path.resolveSibling(path.getFileName() + ".idx"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (log.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(log, header, 0);
+            index.truncate(0);
+        } else {
+            ByteBuffer header = readFully(log, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a game log");
+            }
+        }
+
+        loadIndex();
+        recoverTail();
+    }
+
+    // Appends one game; returns its number in the log
+    public synchronized long append(GameRecord record) throws IOException {
+        int bodySize = record.encodedSize();
+        ByteBuffer frame = buffer(GameRecord.varintSize(bodySize) + bodySize);
+        GameRecord.putVarint(frame, bodySize);
+        record.encode(frame);
+        frame.flip();
+
+        writeFully(log, frame, end);
+        addOffset(end);
+        end += frame.limit();
+
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        offset.putLong(0, offsets[count - 1]);
+        writeFully(index, offset, (long) (count - 1) * Long.BYTES);
+        return count - 1;
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    public synchronized GameRecord read(long game) throws IOException {
+        return read(game, 1)[0];
+    }
+
+    // Games from..from+count-1, fetched with one read
+    public synchronized GameRecord[] read(long from, int games) throws IOException {
+        if (from < 0 || games < 0 || from + games > count) {
+            throw new IndexOutOfBoundsException("Games " + from + ".." + (from + games) + " of " + count);
+        }
+
+        GameRecord[] records = new GameRecord[games];
+        if (games == 0) {
+            return records;
+        }
+
+        long start = offsets[(int) from];
+        long stop = from + games < count ? offsets[(int) (from + games)] : end;
+        ByteBuffer bytes = readFully(log, start, (int) (stop - start));
+        for (int i = 0; i < games; i++) {
+            GameRecord.getVarint(bytes);
+            records[i] = GameRecord.decode(bytes);
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            log.force(false);
+            index.force(false);
+        } finally {
+            log.close();
+            index.close();
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        long logSize = log.size();
+        int entries = (int) (index.size() / Long.BYTES);
+        ByteBuffer all = readFully(index, 0, entries * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        long previous = HEADER_BYTES - 1;
+        for (int i = 0; i < entries; i++) {
+            long offset = all.getLong(i * Long.BYTES);
+            // Stop at the first entry that cannot be right; the tail scan redoes the rest
+            if (offset <= previous || offset >= logSize) {
+                break;
+            }
+            addOffset(offset);
+            previous = offset;
+        }
+    }
+
+    private void recoverTail() throws IOException {
+        long logSize = log.size();
+        long position = HEADER_BYTES;
+        if (count > 0) {
+            // Re-check the last indexed frame too - it may be the torn one
+            count--;
+            position = offsets[count];
+        }
+
+        while (position < logSize) {
+            ByteBuffer head = readFully(log, position, (int) Math.min(5, logSize - position));
+            int bodySize;
+            try {
+                bodySize = GameRecord.getVarint(head);
+            } catch (RuntimeException e) {
+                break;
+            }
+
+            long next = position + head.position() + bodySize;
+            if (next > logSize) {
+                break;
+            }
+            addOffset(position);
+            position = next;
+        }
+
+        end = position;
+        log.truncate(end);
+
+        ByteBuffer rewrite = ByteBuffer.allocate(count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            rewrite.putLong(offsets[i]);
+        }
+        rewrite.flip();
+        index.truncate(0);
+        writeFully(index, rewrite, 0);
+    }
+
+    private void addOffset(long offset) {
+        if (count == offsets.length) {
+            offsets = java.util.Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[count++] = offset;
+    }
+
+    private ByteBuffer buffer(int size) {
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2));
+        }
+        scratch.clear().limit(size);
+        return scratch;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + (position + bytes.position()));
+            }
+        }
+        return bytes.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package spinner.minesweeper;
+
+/*Process-wide counters and latency histograms, readable over JMX (see GameStatistics)
+- Counters are LongAdders, cheap enough to stay on even in the simulator
+- Latency timing costs two nanoTime calls per move, so it is off unless switched on with
+  -Dspinner.minesweeper.timing=true or the TimingEnabled attribute
+- register() publishes the metrics as spinner.minesweeper:type=GameMetrics on the platform server
+*/
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+public final class GameMetrics implements GameStatistics
+{
+    public static final String OBJECT_NAME = "spinner.minesweeper:type=GameMetrics";
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private static volatile boolean timing = Boolean.getBoolean("spinner.minesweeper.timing");
+
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder gamesLost = new LongAdder();
+    private final LongAdder reveals = new LongAdder();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LatencyHistogram boardUpdates = new LatencyHistogram();
+
+    // Last sample for getRevealsPerSecond
+    private long rateNanos = System.nanoTime();
+    private long rateReveals;
+
+    private GameMetrics() {
+    }
+
+    public static GameStatistics get() {
+        return INSTANCE;
+    }
+
+    // Safe to call more than once
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(INSTANCE, GameStatistics.class), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    // Hot-path hooks, called by the model and the board view
+
+    static void gameStarted() {
+        INSTANCE.gamesStarted.increment();
+    }
+
+    static void gameEnded(Minesweeper.GameState state) {
+        if (state == Minesweeper.GameState.WON) {
+            INSTANCE.gamesWon.increment();
+        } else if (state == Minesweeper.GameState.LOST) {
+            INSTANCE.gamesLost.increment();
+        }
+    }
+
+    static void revealed() {
+        INSTANCE.reveals.increment();
+    }
+
+    // 0 when timing is off; pass the result to the matching *Finished call
+    static long startTimer() {
+        return timing ? System.nanoTime() : 0;
+    }
+
+    static void moveFinished(long start) {
+        if (start != 0) {
+            INSTANCE.moveLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    static void boardUpdateFinished(long start) {
+        if (start != 0) {
+            INSTANCE.boardUpdates.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getGamesWon() {
+        return gamesWon.sum();
+    }
+
+    @Override
+    public long getGamesLost() {
+        return gamesLost.sum();
+    }
+
+    @Override
+    public long getReveals() {
+        return reveals.sum();
+    }
+
+    @Override
+    public synchronized double getRevealsPerSecond() {
+        long now = System.nanoTime();
+        long total = reveals.sum();
+        double rate = (total - rateReveals) / Math.max(1e-9, (now - rateNanos) / 1e9);
+
+        rateNanos = now;
+        rateReveals = total;
+        return rate;
+    }
+
+    @Override
+    public long getMoveCount() {
+        return moveLatency.count();
+    }
+
+    @Override
+    public double getMoveLatencyP50Micros() {
+        return moveLatency.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getMoveLatencyP99Micros() {
+        return moveLatency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public long getBoardUpdateCount() {
+        return boardUpdates.count();
+    }
+
+    @Override
+    public double getBoardUpdateP50Micros() {
+        return boardUpdates.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getBoardUpdateP99Micros() {
+        return boardUpdates.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public boolean isTimingEnabled() {
+        return timing;
+    }
+
+    @Override
+    public void setTimingEnabled(boolean enabled) {
+        timing = enabled;
+    }
+
+    @Override
+    public synchronized void reset() {
+        gamesStarted.reset();
+        gamesWon.reset();
+        gamesLost.reset();
+        reveals.reset();
+        moveLatency.reset();
+        boardUpdates.reset();
+        rateNanos = System.nanoTime();
+        rateReveals = 0;
+    }
+}
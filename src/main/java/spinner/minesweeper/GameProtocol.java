@@ -0,0 +1,375 @@
+package spinner.minesweeper;
+
+/*Line protocol spoken by GameServer - one ASCII command per line, exactly one reply line each
+- NEW rows cols bombs [seed]   -> OK id
+- REVEAL id row col            -> OK result opened state
+- FLAG id row col              -> OK flags state
+- AUTOFLAG id / AUTOREVEAL id  -> OK changes state
+- STATE id                     -> OK state revealedSafe flags
+- BOARD id                     -> OK rows cols state cells ('#' hidden, 'F' flag, '*' bomb, '0'-'8')
+- CLOSE id                     -> OK
+- PING                         -> OK
+- Anything wrong               -> ERR message; the whole line is parsed before anything runs, so a
+                                  malformed command never changes a game
+- Replies come back in request order, so a client can pipeline as many commands as it likes
+- Sessions are shared by every connection; each one is serialised by locking its game, never globally
+- Games live in a SessionStore, so idle sessions are parked off the heap
+*/
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class GameProtocol
+{
+    // Keeps a single BOARD reply, and a single client, from eating the server's memory
+    static final int MAX_CELLS = 1 << 22;
+
+    // Indices into COMMANDS; the ones from REVEAL on act on an existing session
+    private static final int NEW = 0;
+    private static final int CLOSE = 1;
+    private static final int PING = 2;
+    private static final int REVEAL = 3;
+    private static final int FLAG = 4;
+    private static final int AUTOFLAG = 5;
+    private static final int AUTOREVEAL = 6;
+    private static final int STATE = 7;
+    private static final int BOARD = 8;
+    private static final byte[][] COMMANDS = {
+        ascii("NEW"), ascii("CLOSE"), ascii("PING"), ascii("REVEAL"), ascii("FLAG"),
+        ascii("AUTOFLAG"), ascii("AUTOREVEAL"), ascii("STATE"), ascii("BOARD")
+    };
+
+    private static final byte[] OK = ascii("OK");
+    private static final byte[] ERR = ascii("ERR ");
+    private static final byte[][] STATE_NAMES = names(Minesweeper.GameState.values());
+    private static final byte[][] RESULT_NAMES = names(Minesweeper.CellResult.values());
+
+    private final SessionStore sessions;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    GameProtocol(SessionStore sessions) {
+        this.sessions = sessions;
+    }
+
+    int getSessionCount() {
+        return sessions.size();
+    }
+
+    Handler newHandler() {
+        return new Handler();
+    }
+
+    // Per-connection parser and reply buffer - used by one thread at a time
+    final class Handler
+    {
+        // Sessions this connection created; dropped when it goes away
+        private final Set<Long> owned = new HashSet<>();
+
+        private byte[] line;
+        private int pos;
+        private int end;
+
+        private byte[] reply = new byte[4096];
+        private int replyLength;
+
+        // Runs the command in line[start, end) and appends its reply
+        void handle(byte[] bytes, int start, int stop) {
+            line = bytes;
+            pos = start;
+            end = stop;
+
+            int mark = replyLength;
+            try {
+                run();
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                replyLength = mark;
+                put(ERR);
+                put(ascii(String.valueOf(e.getMessage())));
+            }
+            putByte('\n');
+        }
+
+        byte[] replyBytes() {
+            return reply;
+        }
+
+        int replyLength() {
+            return replyLength;
+        }
+
+        void clearReply() {
+            replyLength = 0;
+        }
+
+        void close() {
+            for (Long id : owned) {
+                sessions.remove(id);
+            }
+            owned.clear();
+        }
+
+        private void run() {
+            int wordStart = skipSpaces();
+            while (pos < end && line[pos] != ' ') {
+                pos++;
+            }
+            int command = command(wordStart, pos);
+
+            if (command == NEW) {
+                newGame();
+                return;
+            }
+            if (command == PING) {
+                expectEnd();
+                put(OK);
+                return;
+            }
+
+            long id = nextLong();
+            int row = 0;
+            int col = 0;
+            if (command == REVEAL || command == FLAG) {
+                row = nextInt();
+                col = nextInt();
+            }
+            expectEnd();
+
+            if (command == CLOSE) {
+                if (!sessions.remove(id)) {
+                    throw new IllegalArgumentException("No session " + id);
+                }
+                owned.remove(id);
+                put(OK);
+                return;
+            }
+
+            Minesweeper game = sessions.acquire(id);
+            if (game == null) {
+                throw new IllegalArgumentException("No session " + id);
+            }
+            try {
+                synchronized (game) {
+                    move(command, game, row, col);
+                }
+            } finally {
+                sessions.release(id);
+            }
+        }
+
+        // Caller holds the game's lock; row and col are only read by REVEAL and FLAG
+        private void move(int command, Minesweeper game, int row, int col) {
+            switch (command) {
+                case REVEAL: {
+                    checkCell(game, row, col);
+                    RevealResult result = game.revealCell(row, col);
+                    put(OK);
+                    putWord(RESULT_NAMES[result.getResult().ordinal()]);
+                    putNumber(result.getOpenedCount());
+                    putWord(STATE_NAMES[game.getGameState().ordinal()]);
+                    break;
+                }
+                case FLAG: {
+                    checkCell(game, row, col);
+                    game.flagCell(row, col);
+                    put(OK);
+                    putNumber(game.getFlagCount());
+                    putWord(STATE_NAMES[game.getGameState().ordinal()]);
+                    break;
+                }
+                case AUTOFLAG:
+                case AUTOREVEAL: {
+                    int changes = command == AUTOFLAG ? game.autoFlag() : game.autoReveal();
+                    put(OK);
+                    putNumber(changes);
+                    putWord(STATE_NAMES[game.getGameState().ordinal()]);
+                    break;
+                }
+                case STATE:
+                    put(OK);
+                    putWord(STATE_NAMES[game.getGameState().ordinal()]);
+                    putNumber(game.getRevealedSafeCount());
+                    putNumber(game.getFlagCount());
+                    break;
+                case BOARD:
+                    board(game);
+                    break;
+                default:
+                    throw new IllegalStateException("Not a session command: " + command);
+            }
+        }
+
+        private void newGame() {
+            int rows = nextInt();
+            int cols = nextInt();
+            int bombs = nextInt();
+            long seed = hasMore() ? nextLong() : ThreadLocalRandom.current().nextLong();
+            expectEnd();
+
+            if ((long) rows * cols > MAX_CELLS) {
+                throw new IllegalArgumentException("Board larger than " + MAX_CELLS + " cells");
+            }
+            Minesweeper game = new Minesweeper(new BoardSpec(rows, cols, bombs), seed);
+
+            long id = nextId.getAndIncrement();
+            sessions.put(id, game);
+            owned.add(id);
+            put(OK);
+            putNumber(id);
+        }
+
+        private void board(Minesweeper game) {
+            int rows = game.getRows();
+            int cols = game.getCols();
+            put(OK);
+            putNumber(rows);
+            putNumber(cols);
+            putWord(STATE_NAMES[game.getGameState().ordinal()]);
+            putByte(' ');
+
+            ensure(rows * cols);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    reply[replyLength++] = cellChar(game, row, col);
+                }
+            }
+        }
+
+        private int command(int start, int stop) {
+            for (int i = 0; i < COMMANDS.length; i++) {
+                if (is(COMMANDS[i], start, stop)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unknown command");
+        }
+
+        private boolean hasMore() {
+            return skipSpaces() < end;
+        }
+
+        private void expectEnd() {
+            if (hasMore()) {
+                throw new IllegalArgumentException("Unexpected trailing input");
+            }
+        }
+
+        private int nextInt() {
+            long value = nextLong();
+            if (value != (int) value) {
+                throw new IllegalArgumentException("Number out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        // Non-negative decimal, parsed in place without building a String
+        private long nextLong() {
+            int start = skipSpaces();
+            long value = 0;
+
+            while (pos < end && line[pos] >= '0' && line[pos] <= '9') {
+                if (value > (Long.MAX_VALUE - 9) / 10) {
+                    throw new IllegalArgumentException("Number too large");
+                }
+                value = value * 10 + (line[pos++] - '0');
+            }
+
+            if (pos == start || (pos < end && line[pos] != ' ')) {
+                throw new IllegalArgumentException("Expected a number at column " + start);
+            }
+            return value;
+        }
+
+        private int skipSpaces() {
+            while (pos < end && line[pos] == ' ') {
+                pos++;
+            }
+            return pos;
+        }
+
+        private boolean is(byte[] word, int start, int stop) {
+            if (stop - start != word.length) {
+                return false;
+            }
+            for (int i = 0; i < word.length; i++) {
+                if ((line[start + i] & 0xDF) != word[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, reply, replyLength, bytes.length);
+            replyLength += bytes.length;
+        }
+
+        private void putWord(byte[] bytes) {
+            putByte(' ');
+            put(bytes);
+        }
+
+        private void putNumber(long value) {
+            putByte(' ');
+            ensure(20);
+
+            // Digits are written backwards, then flipped in place
+            int start = replyLength;
+            do {
+                reply[replyLength++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+
+            for (int i = start, j = replyLength - 1; i < j; i++, j--) {
+                byte swap = reply[i];
+                reply[i] = reply[j];
+                reply[j] = swap;
+            }
+        }
+
+        private void putByte(char c) {
+            ensure(1);
+            reply[replyLength++] = (byte) c;
+        }
+
+        private void ensure(int extra) {
+            if (replyLength + extra > reply.length) {
+                reply = java.util.Arrays.copyOf(reply, Math.max(reply.length * 2, replyLength + extra));
+            }
+        }
+    }
+
+    private static void checkCell(Minesweeper game, int row, int col) {
+        if (row >= game.getRows() || col >= game.getCols()) {
+            throw new IllegalArgumentException("Cell " + row + "," + col + " is off the board");
+        }
+    }
+
+    private static byte cellChar(Minesweeper game, int row, int col) {
+        if (game.isFlagged(row, col)) {
+            return 'F';
+        }
+        if (!game.isRevealed(row, col)) {
+            return '#';
+        }
+        if (game.hasBomb(row, col)) {
+            return '*';
+        }
+        return (byte) ('0' + game.countAdjacentBombs(row, col));
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = ascii(values[i].name());
+        }
+        return names;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,167 @@
+package spinner.minesweeper;
+
+/*One recorded game: everything needed to play it again, and how it ended
+- The bomb layout is a pure function of (spec, seed), so the seed stands in for the layout
+- Moves are the public calls made on the model, one unsigned varint each: cell << 3 | kind, held in a
+  long so every cell of a board up to Integer.MAX_VALUE cells fits
+- A beginner game is typically a few dozen bytes
+Encoded form (varints unless noted):
+  rows, cols, bombs, seed (8 bytes LE), final state (byte), revealed safe cells, flags,
+  move count, move bytes
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class GameRecord
+{
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    public static final int AUTO_FLAG = 2;
+    public static final int AUTO_REVEAL = 3;
+    public static final int UNDO = 4;
+    public static final int REDO = 5;
+    public static final int REVEAL_ALL = 6;
+    // Cell field is 1 for enableJournal, 0 for disableJournal
+    public static final int JOURNAL = 7;
+
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private final BoardSpec spec;
+    private final long seed;
+    private final Minesweeper.GameState finalState;
+    private final int revealedSafeCount;
+    private final int flagCount;
+    private final int moveCount;
+    private final byte[] moves;
+
+    GameRecord(BoardSpec spec, long seed, Minesweeper.GameState finalState, int revealedSafeCount,
+            int flagCount, int moveCount, byte[] moves) {
+        this.spec = spec;
+        this.seed = seed;
+        this.finalState = finalState;
+        this.revealedSafeCount = revealedSafeCount;
+        this.flagCount = flagCount;
+        this.moveCount = moveCount;
+        this.moves = moves;
+    }
+
+    public static long move(int kind, int cell) {
+        return (long) cell << KIND_BITS | kind;
+    }
+
+    public static int kind(long move) {
+        return (int) (move & KIND_MASK);
+    }
+
+    public static int cell(long move) {
+        return (int) (move >>> KIND_BITS);
+    }
+
+    public BoardSpec getSpec() {
+        return spec;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Minesweeper.GameState getFinalState() {
+        return finalState;
+    }
+
+    public int getRevealedSafeCount() {
+        return revealedSafeCount;
+    }
+
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    // Varint move list, read with readVarint; shared, not copied
+    byte[] moveBytes() {
+        return moves;
+    }
+
+    public int encodedSize() {
+        return varintSize(spec.getRows()) + varintSize(spec.getCols()) + varintSize(spec.getBombs())
+                + Long.BYTES + 1 + varintSize(revealedSafeCount) + varintSize(flagCount)
+                + varintSize(moveCount) + varintSize(moves.length) + moves.length;
+    }
+
+    // Writes at the buffer's position and advances it
+    public void encode(ByteBuffer dest) {
+        putVarint(dest, spec.getRows());
+        putVarint(dest, spec.getCols());
+        putVarint(dest, spec.getBombs());
+        dest.order(ByteOrder.LITTLE_ENDIAN).putLong(seed);
+        dest.put((byte) finalState.ordinal());
+        putVarint(dest, revealedSafeCount);
+        putVarint(dest, flagCount);
+        putVarint(dest, moveCount);
+        putVarint(dest, moves.length);
+        dest.put(moves);
+    }
+
+    // Reads from the buffer's position and advances it
+    public static GameRecord decode(ByteBuffer src) {
+        BoardSpec spec = new BoardSpec(getVarint(src), getVarint(src), getVarint(src));
+        long seed = src.order(ByteOrder.LITTLE_ENDIAN).getLong();
+        Minesweeper.GameState state = Minesweeper.GameState.values()[src.get()];
+        int revealedSafe = getVarint(src);
+        int flags = getVarint(src);
+        int moveCount = getVarint(src);
+        byte[] moves = new byte[getVarint(src)];
+        src.get(moves);
+        return new GameRecord(spec, seed, state, revealedSafe, flags, moveCount, moves);
+    }
+
+    @Override
+    public String toString() {
+        return spec + " seed=" + seed + " " + finalState + " moves=" + moveCount + " (" + moves.length + " bytes)";
+    }
+
+    static int varintSize(int value) {
+        // 7 payload bits per byte
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    static void putVarint(ByteBuffer dest, int value) {
+        while ((value & ~0x7F) != 0) {
+            dest.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        dest.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer src) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = src.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    // Decodes the move varint at bytes[position]; returns the move, the next position goes in next[0]
+    static long readMove(byte[] bytes, int position, int[] next) {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                next[0] = position;
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,35 @@
+package spinner.minesweeper;
+
+/*Growable varint move list behind Minesweeper.enableRecording
+- One or two bytes per move on beginner to expert boards, no objects per move
+*/
+
+final class GameRecorder
+{
+    private byte[] bytes = new byte[32];
+    private int size;
+    private int moveCount;
+
+    void record(int kind, int cell) {
+        long value = GameRecord.move(kind, cell);
+        if (size + 5 > bytes.length) {
+            bytes = java.util.Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        moveCount++;
+    }
+
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    GameRecord toRecord(Minesweeper game) {
+        return new GameRecord(game.getSpec(), game.getSeed(), game.getGameState(), game.getRevealedSafeCount(),
+                game.getFlagCount(), moveCount, java.util.Arrays.copyOf(bytes, size));
+    }
+}
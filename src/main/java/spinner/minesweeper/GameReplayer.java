@@ -0,0 +1,135 @@
+package spinner.minesweeper;
+
+/*Plays GameRecords back against the engine
+- replay() rebuilds the board from (spec, seed) and re-applies the moves in order, as an uncounted game:
+  the recorded game was counted in GameMetrics when it was played
+- A MoveListener sees the game before every move, e.g. to re-encode a dataset with a new layout
+- verify() checks the replay ends exactly where the recording did - a determinism check
+- main() replays a whole GameLog in parallel, one batch read per task
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+public final class GameReplayer
+{
+    private static final int BATCH_GAMES = 4096;
+
+    public interface MoveListener
+    {
+        // move is a GameRecord move - see GameRecord.kind and GameRecord.cell
+        void beforeMove(Minesweeper game, long move);
+    }
+
+    private GameReplayer() {
+    }
+
+    public static Minesweeper replay(GameRecord record) {
+        return replay(record, null);
+    }
+
+    public static Minesweeper replay(GameRecord record, MoveListener listener) {
+        Minesweeper game = new Minesweeper(record.getSpec(), record.getSeed(), false);
+        int cols = record.getSpec().getCols();
+
+        byte[] moves = record.moveBytes();
+        int[] next = new int[1];
+        int position = 0;
+        for (int i = 0; i < record.getMoveCount(); i++) {
+            long move = GameRecord.readMove(moves, position, next);
+            position = next[0];
+
+            if (listener != null) {
+                listener.beforeMove(game, move);
+            }
+            apply(game, move, cols);
+        }
+        return game;
+    }
+
+    // True if replaying the record reproduces its final state, revealed count and flag count
+    public static boolean verify(GameRecord record) {
+        Minesweeper game = replay(record);
+        return game.getGameState() == record.getFinalState()
+                && game.getRevealedSafeCount() == record.getRevealedSafeCount()
+                && game.getFlagCount() == record.getFlagCount();
+    }
+
+    private static void apply(Minesweeper game, long move, int cols) {
+        int cell = GameRecord.cell(move);
+
+        switch (GameRecord.kind(move)) {
+            case GameRecord.REVEAL:
+                game.revealCell(cell / cols, cell % cols);
+                break;
+            case GameRecord.FLAG:
+                game.flagCell(cell / cols, cell % cols);
+                break;
+            case GameRecord.AUTO_FLAG:
+                game.autoFlag();
+                break;
+            case GameRecord.AUTO_REVEAL:
+                game.autoReveal();
+                break;
+            case GameRecord.UNDO:
+                game.undo();
+                break;
+            case GameRecord.REDO:
+                game.redo();
+                break;
+            case GameRecord.REVEAL_ALL:
+                game.revealAllCells();
+                break;
+            case GameRecord.JOURNAL:
+                if (cell != 0) {
+                    game.enableJournal();
+                } else {
+                    game.disableJournal();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown move kind " + GameRecord.kind(move));
+        }
+    }
+
+    // Usage: GameReplayer <log>
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: GameReplayer <log>");
+            return;
+        }
+
+        try (GameLog log = new GameLog(Path.of(args[0]))) {
+            long games = log.size();
+            AtomicLong mismatches = new AtomicLong();
+            AtomicLong moves = new AtomicLong();
+
+            long start = System.nanoTime();
+            LongStream.range(0, (games + BATCH_GAMES - 1) / BATCH_GAMES).parallel().forEach(batch -> {
+                long from = batch * BATCH_GAMES;
+                GameRecord[] records;
+                try {
+                    records = log.read(from, (int) Math.min(BATCH_GAMES, games - from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                long batchMoves = 0;
+                for (GameRecord record : records) {
+                    batchMoves += record.getMoveCount();
+                    if (!verify(record)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                moves.addAndGet(batchMoves);
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d games, %d moves, %d mismatches in %.3f s, %.0f games/s%n",
+                    games, moves.get(), mismatches.get(), seconds, games / seconds);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package spinner.minesweeper;
+
+/*TCP game server - hosts many Minesweeper sessions for bots running in other processes
+- Speaks the line protocol in GameProtocol; every session can be used from any connection
+- An acceptor thread hands connections round-robin to a few NIO selector loops (one per core by default)
+- Each loop reads everything a client has pipelined, runs it, and answers with a single write
+- A client that stops reading has its input left unread once its replies pass WRITE_HIGH_WATER
+- Sessions are kept in a SessionStore; idle ones are parked in a spill file
+- main() serves on localhost; see LoadGenerator for a matching client
+*/
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public final class GameServer implements AutoCloseable
+{
+    public static final int DEFAULT_PORT = 7878;
+    public static final int DEFAULT_HOT_SESSIONS = 10_000;
+
+    // Longest accepted command line, and the per-connection read buffer
+    private static final int LINE_LIMIT = 1024;
+    private static final int READ_BUFFER = 16 * 1024;
+    private static final int WRITE_HIGH_WATER = 64 * 1024;
+
+    private final SessionStore sessions;
+    private final boolean ownsSessions;
+    private final GameProtocol protocol;
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    // Parks sessions in a temporary spill file that is deleted on close
+    public GameServer(InetSocketAddress address) throws IOException {
+        this(address, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameServer(InetSocketAddress address, int loopCount) throws IOException {
+        this(address, loopCount,
+                new SessionStore(Files.createTempFile("minesweeper-sessions", ".spill"), DEFAULT_HOT_SESSIONS), true);
+    }
+
+    // The caller keeps ownership of sessions and closes it after the server
+    public GameServer(InetSocketAddress address, int loopCount, SessionStore sessions) throws IOException {
+        this(address, loopCount, sessions, false);
+    }
+
+    private GameServer(InetSocketAddress address, int loopCount, SessionStore sessions, boolean ownsSessions)
+            throws IOException {
+        if (loopCount <= 0) {
+            throw new IllegalArgumentException("Need at least one event loop: " + loopCount);
+        }
+
+        this.sessions = sessions;
+        this.ownsSessions = ownsSessions;
+        this.protocol = new GameProtocol(sessions);
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+
+        loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(Selector.open());
+            loops[i].thread = new Thread(loops[i], "game-server-loop-" + i);
+            loops[i].thread.start();
+        }
+
+        acceptor = new Thread(this::accept, "game-server-accept");
+        acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    public int getSessionCount() {
+        return protocol.getSessionCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+
+        try {
+            acceptor.join();
+            for (EventLoop loop : loops) {
+                loop.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (ownsSessions) {
+            sessions.close();
+        }
+    }
+
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Accept failed: " + e);
+                }
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable
+    {
+        private final Selector selector;
+        private final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+        private Thread thread;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void add(SocketChannel channel) {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select(this::ready);
+
+                    SocketChannel channel;
+                    while ((channel = added.poll()) != null) {
+                        register(channel);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println(thread.getName() + " stopped: " + e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // Shutting down anyway
+                }
+            }
+        }
+
+        private void register(SocketChannel channel) {
+            try {
+                channel.configureBlocking(false);
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Never got going
+                }
+            }
+        }
+
+        private void ready(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.read();
+                } else if (key.isWritable()) {
+                    connection.pump();
+                }
+            } catch (IOException | java.nio.channels.CancelledKeyException e) {
+                connection.close();
+            } catch (RuntimeException | Error e) {
+                // A bug or a store failure while serving one client costs that client, not the loop
+                System.err.println(thread.getName() + " dropped a connection: " + e);
+                connection.close();
+            }
+        }
+    }
+
+    private final class Connection
+    {
+        private final SocketChannel channel;
+        private final GameProtocol.Handler handler = protocol.newHandler();
+        private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        private SelectionKey key;
+        private int written;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            pump();
+        }
+
+        // Runs buffered commands and writes replies until it runs out of one or the other
+        void pump() throws IOException {
+            while (true) {
+                boolean backlog = runCommands();
+                if (!flush()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (!backlog) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
+        }
+
+        // Returns true if complete lines are left over because the replies backed up
+        private boolean runCommands() throws IOException {
+            byte[] bytes = in.array();
+            int pos = 0;
+            int limit = in.position();
+
+            while (pos < limit) {
+                if (handler.replyLength() >= WRITE_HIGH_WATER) {
+                    break;
+                }
+
+                int newline = pos;
+                while (newline < limit && bytes[newline] != '\n') {
+                    newline++;
+                }
+                if (newline == limit) {
+                    break;
+                }
+
+                int end = newline > pos && bytes[newline - 1] == '\r' ? newline - 1 : newline;
+                handler.handle(bytes, pos, end);
+                pos = newline + 1;
+            }
+
+            boolean backlog = pos < limit && handler.replyLength() >= WRITE_HIGH_WATER;
+            if (!backlog && limit - pos >= LINE_LIMIT) {
+                throw new IOException("Line longer than " + LINE_LIMIT + " bytes");
+            }
+
+            // Keep the unread tail at the front of the buffer
+            in.limit(limit).position(pos);
+            in.compact();
+            return backlog;
+        }
+
+        // Returns true once every reply has been written
+        private boolean flush() throws IOException {
+            int length = handler.replyLength();
+            if (written < length) {
+                written += channel.write(ByteBuffer.wrap(handler.replyBytes(), written, length - written));
+            }
+            if (written < length) {
+                return false;
+            }
+            handler.clearReply();
+            written = 0;
+            return true;
+        }
+
+        void close() {
+            try {
+                handler.close();
+            } catch (RuntimeException e) {
+                // The channel still has to go, whatever the store did
+                System.err.println("Could not drop a closed connection's sessions: " + e);
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already gone
+            }
+        }
+    }
+
+    // Usage: GameServer [port] [loops] [hot sessions] [spill file]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int loopCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hot = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_HOT_SESSIONS;
+        Path spill = args.length > 3 ? Path.of(args[3]) : Files.createTempFile("minesweeper-sessions", ".spill");
+        GameMetrics.register();
+
+        SessionStore sessions = new SessionStore(spill, hot);
+        GameServer gameServer = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                loopCount, sessions, true);
+        System.out.println("Serving on " + gameServer.getAddress() + " with " + loopCount + " loops, "
+                + hot + " hot sessions, spilling to " + spill);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                gameServer.close();
+            } catch (IOException ignored) {
+                // Exiting
+            }
+        }));
+        gameServer.acceptor.join();
+    }
+}
@@ -0,0 +1,37 @@
+package spinner.minesweeper;
+
+/*Management interface of GameMetrics, published over JMX by GameMetrics.register()
+Latencies are in microseconds
+*/
+
+public interface GameStatistics
+{
+    long getGamesStarted();
+
+    long getGamesWon();
+
+    long getGamesLost();
+
+    long getReveals();
+
+    // Average since the previous read of this attribute (or since start)
+    double getRevealsPerSecond();
+
+    long getMoveCount();
+
+    double getMoveLatencyP50Micros();
+
+    double getMoveLatencyP99Micros();
+
+    long getBoardUpdateCount();
+
+    double getBoardUpdateP50Micros();
+
+    double getBoardUpdateP99Micros();
+
+    boolean isTimingEnabled();
+
+    void setTimingEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,483 @@
+package spinner.minesweeper;
+
+/*Endless mode - a board with no edges, generated 64x64 chunk by chunk as play reaches it
+- Mines are a pure function of (seed, chunk, row): a stateless hash, so any chunk can be rebuilt at any time
+- The 3x3 block around (0, 0) never holds a mine, so a game can always open there
+- Chunks live in a bounded LRU cache; one pushed out without player state is simply dropped,
+  one the player has touched keeps only its revealed/flagged layers, compressed word by word
+- Memory is the cache plus the compressed explored area, however far the player wanders
+- Cascades cross chunk edges like TiledBoard's (BlockFlood): a ring of cells per step within a chunk,
+  and cells mailed to the next chunk's inbox. Below MIN_DENSITY the zero cells would form an endless region
+- Rows and columns are longs; the world ends 2^37 cells out in each direction
+- The cache is trimmed between moves, never during one, so a move never loses its own changes
+*/
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class InfiniteBoard
+{
+    public static final double DEFAULT_DENSITY = 0.2;
+    // Zero cells (no mine in their 3x3 block) percolate below about 0.095; this keeps cascades finite
+    public static final double MIN_DENSITY = 0.125;
+    public static final int DEFAULT_CACHED_CHUNKS = 1024;
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // Mine words are built from this many random words - the density's resolution is 1/256
+    private static final int DENSITY_BITS = 8;
+
+    private final long seed;
+    private final int densityLevel;
+    private final int maxCachedChunks;
+
+    // Access order, so the first entry is the least recently used
+    private final LinkedHashMap<Long, Chunk> cache = new LinkedHashMap<>(64, 0.75f, true);
+    // Player state of the touched chunks that are not in the cache
+    private final Map<Long, byte[]> parked = new HashMap<>();
+    private long parkedBytes;
+
+    private Minesweeper.GameState gameState = Minesweeper.GameState.PLAYING;
+    private long revealedSafeCount;
+    private long flagCount;
+    private long openedCount;
+
+    // Flood scratch, reused by every reveal
+    private final ArrayDeque<Chunk> work = new ArrayDeque<>();
+    private final long[] frontier = new long[CHUNK_SIZE];
+    private final long[] next = new long[CHUNK_SIZE];
+
+    public InfiniteBoard(long seed) {
+        this(seed, DEFAULT_DENSITY, DEFAULT_CACHED_CHUNKS);
+    }
+
+    public InfiniteBoard(long seed, double density, int maxCachedChunks) {
+        // Densities within 1/512 of 1 round to level 256, which mineWord cannot build: it would place no mines
+        int densityLevel = (int) Math.round(density * (1 << DENSITY_BITS));
+        if (!(density >= MIN_DENSITY) || densityLevel >= 1 << DENSITY_BITS) {
+            throw new IllegalArgumentException("Density must be in [" + MIN_DENSITY + ", 1) at 1/"
+                    + (1 << DENSITY_BITS) + " resolution: " + density);
+        }
+        // A cascade step reaches the 8 chunks around the one it is in
+        if (maxCachedChunks < 9) {
+            throw new IllegalArgumentException("Cache needs room for at least 9 chunks: " + maxCachedChunks);
+        }
+
+        this.seed = seed;
+        this.densityLevel = densityLevel;
+        this.maxCachedChunks = maxCachedChunks;
+    }
+
+    public Minesweeper.CellResult revealCell(long row, long col) {
+        try {
+            return reveal(row, col);
+        } finally {
+            evictOverflow();
+        }
+    }
+
+    public void flagCell(long row, long col) {
+        try {
+            Chunk chunk = chunkAt(row, col);
+            int r = (int) (row & (CHUNK_SIZE - 1));
+            long bit = 1L << col;
+            if (gameState != Minesweeper.GameState.PLAYING || (chunk.revealed[r] & bit) != 0) {
+                return;
+            }
+
+            chunk.flagged[r] ^= bit;
+            flagCount += (chunk.flagged[r] & bit) != 0 ? 1 : -1;
+        } finally {
+            evictOverflow();
+        }
+    }
+
+    public boolean isRevealed(long row, long col) {
+        return bit(cell(row, col).revealed, row, col);
+    }
+
+    public boolean isFlagged(long row, long col) {
+        return bit(cell(row, col).flagged, row, col);
+    }
+
+    public boolean hasBomb(long row, long col) {
+        return bit(cell(row, col).bombs, row, col);
+    }
+
+    public int countAdjacentBombs(long row, long col) {
+        int cell = (int) (row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT | (int) (col & (CHUNK_SIZE - 1));
+        return BitKernels.count(cell(row, col).counts, cell);
+    }
+
+    // Like Minesweeper.getVisibleBoard, for the window whose top left cell is (top, left):
+    // -1 flagged, -2 hidden, otherwise the adjacent bomb count
+    public int[][] getVisibleWindow(long top, long left, int rows, int cols) {
+        int[][] visible = new int[rows][cols];
+        try {
+            for (int i = 0; i < rows; i++) {
+                long row = top + i;
+                int r = (int) (row & (CHUNK_SIZE - 1));
+                for (int j = 0; j < cols; j++) {
+                    long col = left + j;
+                    Chunk chunk = chunkAt(row, col);
+                    int c = (int) (col & (CHUNK_SIZE - 1));
+
+                    if ((chunk.flagged[r] >>> c & 1) != 0) {
+                        visible[i][j] = -1;
+                    } else if ((chunk.revealed[r] >>> c & 1) == 0) {
+                        visible[i][j] = -2;
+                    } else {
+                        visible[i][j] = BitKernels.count(chunk.counts, r << CHUNK_SHIFT | c);
+                    }
+                }
+            }
+        } finally {
+            evictOverflow();
+        }
+        return visible;
+    }
+
+    // PLAYING until a bomb is revealed - there is no winning an endless board
+    public Minesweeper.GameState getGameState() {
+        return gameState;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // The density actually used, rounded to 1/256
+    public double getDensity() {
+        return densityLevel / (double) (1 << DENSITY_BITS);
+    }
+
+    public long getRevealedSafeCount() {
+        return revealedSafeCount;
+    }
+
+    public long getFlagCount() {
+        return flagCount;
+    }
+
+    // Cells opened by the last revealCell, cascade included
+    public long getOpenedCount() {
+        return openedCount;
+    }
+
+    public int getCachedChunkCount() {
+        return cache.size();
+    }
+
+    public int getParkedChunkCount() {
+        return parked.size();
+    }
+
+    // Compressed size of the parked chunks' player state
+    public long getParkedBytes() {
+        return parkedBytes;
+    }
+
+    // Usage: InfiniteBoard [columns] [density] [cachedChunks] [seed] - opens the origin, then walks east along
+    // row 0 revealing every safe cell (peeking at the mines), and reports what the explored strip costs
+    public static void main(String[] args) {
+        long columns = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_DENSITY;
+        int cachedChunks = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CACHED_CHUNKS;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        InfiniteBoard board = new InfiniteBoard(seed, density, cachedChunks);
+        long start = System.nanoTime();
+        long reveals = 0;
+        for (long col = 0; col < columns; col++) {
+            if (!board.hasBomb(0, col) && !board.isRevealed(0, col)) {
+                board.revealCell(0, col);
+                reveals++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("density=" + board.getDensity() + " cache=" + cachedChunks + " seed=" + seed);
+        System.out.printf("%d reveals opened %d cells in %.3f s; %d chunks cached, %d parked in %d bytes%n",
+                reveals, board.getRevealedSafeCount(), seconds, board.getCachedChunkCount(),
+                board.getParkedChunkCount(), board.getParkedBytes());
+    }
+
+    private Minesweeper.CellResult reveal(long row, long col) {
+        openedCount = 0;
+        Chunk chunk = chunkAt(row, col);
+        int r = (int) (row & (CHUNK_SIZE - 1));
+        long bit = 1L << col;
+
+        if (gameState != Minesweeper.GameState.PLAYING || (chunk.revealed[r] & bit) != 0) {
+            return Minesweeper.CellResult.ALREADY_REVEALED;
+        }
+        if ((chunk.flagged[r] & bit) != 0) {
+            return Minesweeper.CellResult.FLAGGED;
+        }
+
+        if ((chunk.bombs[r] & bit) != 0) {
+            chunk.open(r, bit);
+            gameState = Minesweeper.GameState.LOST;
+            return Minesweeper.CellResult.BOMB;
+        }
+        if ((chunk.zero[r] & bit) == 0) {
+            chunk.open(r, bit);
+            return Minesweeper.CellResult.NUMBER;
+        }
+
+        mail(chunk, r, bit);
+        Chunk next;
+        while ((next = work.poll()) != null) {
+            next.queued = false;
+            flood(next);
+        }
+        return Minesweeper.CellResult.EMPTY;
+    }
+
+    // Opens the chunk's mail and spreads the cascade from there; cells it reaches past an edge are mailed on
+    private void flood(Chunk chunk) {
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            frontier[r] = chunk.inbox[r];
+            chunk.inbox[r] = 0;
+        }
+        BlockFlood.spread(chunk, chunk.zero, frontier, next,
+                (rowStep, colStep, rows, bits) -> mail(chunk.chunkRow + rowStep, chunk.chunkCol + colStep, rows, bits));
+    }
+
+    private void mail(int chunkRow, int chunkCol, long rows, long bits) {
+        Chunk chunk = chunk(chunkRow, chunkCol);
+        while (rows != 0) {
+            mail(chunk, Long.numberOfTrailingZeros(rows), bits);
+            rows &= rows - 1;
+        }
+    }
+
+    private void mail(Chunk chunk, int r, long bits) {
+        chunk.inbox[r] |= bits;
+        if (!chunk.queued) {
+            chunk.queued = true;
+            work.add(chunk);
+        }
+    }
+
+    // Chunk holding the cell, with the cache trimmed afterwards - for the single-cell queries
+    private Chunk cell(long row, long col) {
+        try {
+            return chunkAt(row, col);
+        } finally {
+            evictOverflow();
+        }
+    }
+
+    private Chunk chunkAt(long row, long col) {
+        long chunkRow = row >> CHUNK_SHIFT;
+        long chunkCol = col >> CHUNK_SHIFT;
+        if (chunkRow != (int) chunkRow || chunkCol != (int) chunkCol) {
+            throw new IndexOutOfBoundsException("Cell " + row + "," + col + " is past the edge of the world");
+        }
+        return chunk((int) chunkRow, (int) chunkCol);
+    }
+
+    // From the cache, or rebuilt from the seed plus any parked player state
+    private Chunk chunk(int chunkRow, int chunkCol) {
+        long key = (long) chunkRow << 32 | (chunkCol & 0xFFFFFFFFL);
+        Chunk chunk = cache.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        chunk = new Chunk(chunkRow, chunkCol);
+        byte[] state = parked.remove(key);
+        if (state != null) {
+            parkedBytes -= state.length;
+            chunk.unpack(state);
+        }
+        cache.put(key, chunk);
+        return chunk;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, Chunk>> it = cache.entrySet().iterator();
+        while (cache.size() > maxCachedChunks && it.hasNext()) {
+            Map.Entry<Long, Chunk> eldest = it.next();
+            Chunk chunk = eldest.getValue();
+            if (chunk.isTouched()) {
+                byte[] state = chunk.pack();
+                parked.put(eldest.getKey(), state);
+                parkedBytes += state.length;
+            }
+            it.remove();
+        }
+    }
+
+    // Row r of chunk (chunkRow, chunkCol)'s mine layer - the same for a given seed every time
+    private long mineWord(int chunkRow, int chunkCol, int r) {
+        long base = mix(seed ^ mix((long) chunkRow << 32 | (chunkCol & 0xFFFFFFFFL)));
+
+        // Each step ORs (bit set) or ANDs (bit clear) in a fresh random word, lowest bit of the level
+        // first, so a cell ends up a mine with probability level / 256
+        long word = 0;
+        for (int i = Integer.numberOfTrailingZeros(densityLevel); i < DENSITY_BITS; i++) {
+            long random = mix(base + (r * DENSITY_BITS + i + 1) * 0x9E3779B97F4A7C15L);
+            word = (densityLevel >>> i & 1) != 0 ? word | random : word & random;
+        }
+
+        // The opening: rows -1 to 1 and columns -1 to 1 stay clear
+        long row = ((long) chunkRow << CHUNK_SHIFT) + r;
+        if (row >= -1 && row <= 1) {
+            if (chunkCol == 0) {
+                word &= ~3L;
+            } else if (chunkCol == -1) {
+                word &= ~(1L << 63);
+            }
+        }
+        return word;
+    }
+
+    // Bit 63 (right) or bit 0 (left) of rows -1 to CHUNK_SIZE of a chunk's mine layer, as a 0/1 per row
+    private int[] mineColumn(int chunkRow, int chunkCol, boolean lastColumn) {
+        int[] column = new int[CHUNK_SIZE + 2];
+        column[0] = columnBit(mineWord(chunkRow - 1, chunkCol, CHUNK_SIZE - 1), lastColumn);
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            column[r + 1] = columnBit(mineWord(chunkRow, chunkCol, r), lastColumn);
+        }
+        column[CHUNK_SIZE + 1] = columnBit(mineWord(chunkRow + 1, chunkCol, 0), lastColumn);
+        return column;
+    }
+
+    private static int columnBit(long word, boolean lastColumn) {
+        return (int) (lastColumn ? word >>> 63 : word & 1);
+    }
+
+    // SplitMix64's finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean bit(long[] layer, long row, long col) {
+        return (layer[(int) (row & (CHUNK_SIZE - 1))] >>> col & 1) != 0;
+    }
+
+    private final class Chunk implements BlockFlood.Block
+    {
+        final int chunkRow;
+        final int chunkCol;
+
+        // Rebuilt from the seed whenever the chunk is loaded
+        final long[] bombs = new long[CHUNK_SIZE];
+        // 4 bits per cell, 16 cells per long, indexed by r * CHUNK_SIZE + c
+        final long[] counts = new long[CHUNK_SIZE * 4];
+        // Safe cells with no bomb around them - the ones a cascade goes through
+        final long[] zero = new long[CHUNK_SIZE];
+
+        // Player state - the only part that survives eviction
+        final long[] revealed = new long[CHUNK_SIZE];
+        final long[] flagged = new long[CHUNK_SIZE];
+
+        // Cells a cascade has yet to open here
+        final long[] inbox = new long[CHUNK_SIZE];
+        boolean queued;
+
+        Chunk(int chunkRow, int chunkCol) {
+            this.chunkRow = chunkRow;
+            this.chunkCol = chunkCol;
+
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                bombs[r] = mineWord(chunkRow, chunkCol, r);
+            }
+            long above = mineWord(chunkRow - 1, chunkCol, CHUNK_SIZE - 1);
+            long below = mineWord(chunkRow + 1, chunkCol, 0);
+            int[] left = mineColumn(chunkRow, chunkCol - 1, true);
+            int[] right = mineColumn(chunkRow, chunkCol + 1, false);
+
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                BitKernels.rowCounts(r > 0 ? bombs[r - 1] : above, bombs[r], r < CHUNK_SIZE - 1 ? bombs[r + 1] : below,
+                        left[r] + left[r + 1] + left[r + 2], right[r] + right[r + 1] + right[r + 2], counts, r << 2);
+
+                long none = 0;
+                for (int j = 0; j < 4; j++) {
+                    none |= BitKernels.equalNibbles(counts[(r << 2) + j], 0) << (j << 4);
+                }
+                zero[r] = none & ~bombs[r];
+            }
+        }
+
+        @Override
+        public long open(int r, long bits) {
+            long opened = bits & ~(revealed[r] | flagged[r]);
+            revealed[r] |= opened;
+            revealedSafeCount += Long.bitCount(opened & ~bombs[r]);
+            openedCount += Long.bitCount(opened);
+            return opened;
+        }
+
+        boolean isTouched() {
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                if ((revealed[r] | flagged[r]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Per layer: a bit per row for all-clear words, a bit per row for all-set words, then the other words.
+        // Explored chunks are mostly fully open and unflagged, which packs to 32 bytes instead of 1 KB
+        byte[] pack() {
+            int mixed = 0;
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                mixed += (isUniform(revealed[r]) ? 0 : 1) + (isUniform(flagged[r]) ? 0 : 1);
+            }
+
+            ByteBuffer out = ByteBuffer.allocate((4 + mixed) * Long.BYTES);
+            packLayer(revealed, out);
+            packLayer(flagged, out);
+            return out.array();
+        }
+
+        void unpack(byte[] state) {
+            ByteBuffer in = ByteBuffer.wrap(state);
+            unpackLayer(revealed, in);
+            unpackLayer(flagged, in);
+        }
+
+        private void packLayer(long[] layer, ByteBuffer out) {
+            long clear = 0;
+            long set = 0;
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                clear |= (layer[r] == 0 ? 1L : 0) << r;
+                set |= (layer[r] == -1 ? 1L : 0) << r;
+            }
+
+            out.putLong(clear).putLong(set);
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                if (!isUniform(layer[r])) {
+                    out.putLong(layer[r]);
+                }
+            }
+        }
+
+        private boolean isUniform(long word) {
+            return word == 0 || word == -1;
+        }
+
+        private void unpackLayer(long[] layer, ByteBuffer in) {
+            long clear = in.getLong();
+            long set = in.getLong();
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                if ((clear >>> r & 1) != 0) {
+                    layer[r] = 0;
+                } else if ((set >>> r & 1) != 0) {
+                    layer[r] = -1;
+                } else {
+                    layer[r] = in.getLong();
+                }
+            }
+        }
+    }
+}
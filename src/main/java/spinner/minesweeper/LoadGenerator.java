@@ -0,0 +1,248 @@
+package spinner.minesweeper;
+
+/*Load generator for GameServer - many clients, each keeping a window of games in flight
+- Every client owns `pipeline` sessions and sends one REVEAL to each before reading any reply
+- A finished game is closed and replaced by a NEW one, so sessions keep turning over
+- Reports sessions started and moves answered per second
+- With "embedded" as the address it starts its own server on a free loopback port
+*/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LoadGenerator
+{
+    private final InetSocketAddress address;
+    private final BoardSpec spec;
+    private final int pipeline;
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private volatile boolean running = true;
+
+    public LoadGenerator(InetSocketAddress address, BoardSpec spec, int pipeline) {
+        this.address = address;
+        this.spec = spec;
+        this.pipeline = pipeline;
+    }
+
+    public long getSessions() {
+        return sessions.sum();
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    // Runs `clients` connections for the given time, then returns
+    public void run(int clients, long millis) throws InterruptedException {
+        Thread[] threads = new Thread[clients];
+        Throwable[] failures = new Throwable[clients];
+
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    client(client);
+                } catch (IOException | RuntimeException e) {
+                    failures[client] = e;
+                }
+            }, "load-client-" + i);
+            threads[i].start();
+        }
+
+        Thread.sleep(millis);
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new IllegalStateException("Client failed", failure);
+            }
+        }
+    }
+
+    private void client(int client) throws IOException {
+        SplittableRandom random = new SplittableRandom(client);
+        long[] ids = new long[pipeline];
+        boolean[] finished = new boolean[pipeline];
+        java.util.Arrays.fill(finished, true);
+        byte[] newCommand = ("NEW " + spec.getRows() + " " + spec.getCols() + " " + spec.getBombs() + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            LineReader in = new LineReader(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+
+            while (running) {
+                // Replace finished games - CLOSE and NEW for every slot, then one read pass
+                int replaced = 0;
+                for (int slot = 0; slot < pipeline; slot++) {
+                    if (finished[slot]) {
+                        if (ids[slot] != 0) {
+                            writeCommand(out, "CLOSE", ids[slot], -1, -1);
+                        }
+                        out.write(newCommand);
+                        replaced++;
+                    }
+                }
+                out.flush();
+                for (int slot = 0; slot < pipeline; slot++) {
+                    if (finished[slot]) {
+                        if (ids[slot] != 0) {
+                            in.expectOk();
+                            in.endLine();
+                        }
+                        in.expectOk();
+                        ids[slot] = in.nextNumber();
+                        in.endLine();
+                        finished[slot] = false;
+                    }
+                }
+                sessions.add(replaced);
+
+                // One pipelined reveal per game
+                for (int slot = 0; slot < pipeline; slot++) {
+                    writeCommand(out, "REVEAL", ids[slot], random.nextInt(spec.getRows()),
+                            random.nextInt(spec.getCols()));
+                }
+                out.flush();
+                for (int slot = 0; slot < pipeline; slot++) {
+                    in.expectOk();
+                    in.nextWord();
+                    in.nextNumber();
+                    finished[slot] = in.nextWord() != 'P';
+                    in.endLine();
+                }
+                moves.add(pipeline);
+            }
+        }
+    }
+
+    private static void writeCommand(OutputStream out, String command, long id, int row, int col) throws IOException {
+        StringBuilder line = new StringBuilder(32).append(command).append(' ').append(id);
+        if (row >= 0) {
+            line.append(' ').append(row).append(' ').append(col);
+        }
+        line.append('\n');
+        for (int i = 0; i < line.length(); i++) {
+            out.write(line.charAt(i));
+        }
+    }
+
+    // Just enough of a reply parser to walk "OK ..." lines without building Strings
+    private static final class LineReader
+    {
+        private final InputStream in;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        void expectOk() throws IOException {
+            int c = read();
+            if (c != 'O' || read() != 'K') {
+                StringBuilder rest = new StringBuilder().append((char) c);
+                while ((c = read()) != '\n') {
+                    rest.append((char) c);
+                }
+                throw new IOException("Server replied: " + rest);
+            }
+        }
+
+        // Skips a space-separated word and returns its first character
+        int nextWord() throws IOException {
+            expect(' ');
+            int first = read();
+            int c = first;
+            while (c != ' ' && c != '\n') {
+                in.mark(1);
+                c = read();
+            }
+            in.reset();
+            return first;
+        }
+
+        long nextNumber() throws IOException {
+            expect(' ');
+            long value = 0;
+            while (true) {
+                in.mark(1);
+                int c = read();
+                if (c < '0' || c > '9') {
+                    in.reset();
+                    return value;
+                }
+                value = value * 10 + c - '0';
+            }
+        }
+
+        void endLine() throws IOException {
+            expect('\n');
+        }
+
+        private void expect(char expected) throws IOException {
+            int c = read();
+            if (c != expected) {
+                throw new IOException("Expected '" + expected + "' but got " + c);
+            }
+        }
+
+        private int read() throws IOException {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            return c;
+        }
+    }
+
+    // Usage: LoadGenerator [host:port|embedded] [clients] [pipeline] [seconds] [rows] [cols] [bombs]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String target = args.length > 0 ? args[0] : "embedded";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int pipeline = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int rows = args.length > 4 ? Integer.parseInt(args[4]) : BoardSpec.EXPERT.getRows();
+        int cols = args.length > 5 ? Integer.parseInt(args[5]) : BoardSpec.EXPERT.getCols();
+        int bombs = args.length > 6 ? Integer.parseInt(args[6]) : BoardSpec.EXPERT.getBombs();
+
+        GameServer server = null;
+        InetSocketAddress address;
+        if ("embedded".equals(target)) {
+            server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            address = server.getAddress();
+        } else {
+            int colon = target.lastIndexOf(':');
+            address = new InetSocketAddress(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(address, new BoardSpec(rows, cols, bombs), pipeline);
+            long start = System.nanoTime();
+            generator.run(clients, seconds * 1000L);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("server=" + address + " clients=" + clients + " pipeline=" + pipeline
+                    + " live sessions=" + clients * pipeline + " board=" + rows + "x" + cols + "/" + bombs);
+            System.out.printf("%.3f s, %.0f sessions/s, %.0f moves/s%n",
+                    elapsed, generator.getSessions() / elapsed, generator.getMoves() / elapsed);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
@@ -3,19 +3,67 @@ package spinner.minesweeper;
 /*This is the model (game logic)
 - Handles bomb placement, cell revealing, win/lose detection
 - No UI code - AI will be using this code
+- Board size comes from a BoardSpec; cell layers are packed bitsets (see BitGrid)
+- Adjacent bomb counts are computed once per layout, win tracking is incremental
+- Empty-cell cascades use an iterative flood fill, no recursion
+- Bomb layout is a pure function of (spec, seed), so any game can be replayed
+- fork() shares the bomb layout and copies the reveal/flag layers copy-on-write
+- Optional move journal (enableJournal) gives undo/redo without copying the game
+- autoFlag/autoReveal run the incremental DeductionEngine to a fixpoint
+- Optional change tracking lists the cells that changed since the last acknowledgeChanges
+- Optional recording (enableRecording) keeps the public moves as a compact GameRecord
+- BoardListeners get one BoardChange per public move listing exactly what changed
+- Whole-board work (adjacent counts, neighbour counts, the frontier) runs 64 cells at a time (see BitKernels)
+- pack/unpack give a bit-packed snapshot of the board for parking games off the heap (see SessionStore)
 */
 
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Minesweeper
 {
-    private static final int BOARD_SIZE = 9;
-    private static final int NUM_BOMBS = 10;
-    private boolean[][] bombs;
-    private boolean[][] revealed;
-    private boolean[][] flagged;
+    // seed, rows, cols, bombs, state - the counters are recounted from the layers on unpack
+    private static final int PACKED_HEADER = 24;
+    // Set in the packed state word once the game's end has been counted
+    private static final int PACKED_END_REPORTED = 1 << 8;
+    // Set in the packed state word for a game that shows up in GameMetrics
+    private static final int PACKED_COUNTED = 1 << 9;
+
+    private final BoardSpec spec;
+    private final int rows;
+    private final int cols;
+    private final long seed;
+    // Bomb layout and counts are never written after placeBombs, so forks share them
+    private BitGrid bombs;
+    private BitGrid revealed;
+    private BitGrid flagged;
+    // 4 bits per cell, 16 cells per long - indexed by row * cols + col
+    private long[] adjacentCounts;
     private int flagCount;
+    private int revealedSafeCount;
+    private int correctFlagCount;
     private GameState gameState;
+    // Whether this game shows up in GameMetrics at all - not for forks, replays or throwaway games
+    private final boolean counted;
+    // GameMetrics has seen this game end; an undo back to PLAYING and a second ending count nothing
+    private boolean endReported;
+    // Reused by every reveal; also serves as the flood fill queue
+    private RevealResult lastReveal;
+    // Null unless enableJournal was called
+    private MoveJournal journal;
+    // Null until first used, and dropped whenever a change could invalidate its deductions
+    private DeductionEngine deductions;
+    // Null unless enableChangeTracking was called
+    private ChangeSet changes;
+    // Null unless enableRecording was called
+    private GameRecorder recorder;
+    // Nesting of public moves, so only the outermost call is recorded
+    private int moveDepth;
+    private BoardListener[] listeners = new BoardListener[0];
+    // Collects the current move's changes; null while nobody listens
+    private BoardChange pendingChange;
+    private BoardChange spareChange;
 
     public enum GameState
     {
@@ -27,108 +75,286 @@ public class Minesweeper
     }
 
     public Minesweeper() {
-        bombs = new boolean[BOARD_SIZE][BOARD_SIZE];
-        revealed = new boolean[BOARD_SIZE][BOARD_SIZE];
-        flagged = new boolean[BOARD_SIZE][BOARD_SIZE];
+        this(BoardSpec.BEGINNER);
+    }
+
+    public Minesweeper(int rows, int cols, int numBombs) {
+        this(new BoardSpec(rows, cols, numBombs));
+    }
+
+    public Minesweeper(BoardSpec spec) {
+        this(spec, ThreadLocalRandom.current().nextLong());
+    }
+
+    public Minesweeper(BoardSpec spec, long seed) {
+        this(spec, seed, true);
+    }
+
+    Minesweeper(BoardSpec spec, long seed, boolean counted) {
+        this.spec = spec;
+        this.seed = seed;
+        this.counted = counted;
+        this.rows = spec.getRows();
+        this.cols = spec.getCols();
+
+        revealed = new BitGrid(rows, cols);
+        flagged = new BitGrid(rows, cols);
 
         gameState = GameState.PLAYING;
         flagCount = 0;
 
         placeBombs();
+        if (counted) {
+            GameMetrics.gameStarted();
+        }
+    }
+
+    // Fork constructor - skips bomb placement and shares the layout
+    private Minesweeper(Minesweeper other) {
+        this.spec = other.spec;
+        this.seed = other.seed;
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.counted = false;
+
+        bombs = other.bombs;
+        adjacentCounts = other.adjacentCounts;
+        revealed = other.revealed.fork();
+        flagged = other.flagged.fork();
+
+        flagCount = other.flagCount;
+        revealedSafeCount = other.revealedSafeCount;
+        correctFlagCount = other.correctFlagCount;
+        gameState = other.gameState;
+    }
+
+    // Unpack constructor - the layers come from a snapshot written by pack
+    private Minesweeper(ByteBuffer src, int offset) {
+        this.seed = src.getLong(offset);
+        this.rows = src.getInt(offset + 8);
+        this.cols = src.getInt(offset + 12);
+        this.spec = new BoardSpec(rows, cols, src.getInt(offset + 16));
+
+        int state = src.getInt(offset + 20);
+        this.counted = (state & PACKED_COUNTED) != 0;
+        gameState = GameState.values()[state & 0xFF];
+        endReported = (state & PACKED_END_REPORTED) != 0;
+
+        bombs = new BitGrid(rows, cols);
+        revealed = new BitGrid(rows, cols);
+        flagged = new BitGrid(rows, cols);
+        int words = bombs.getWordCount();
+        int pos = offset + PACKED_HEADER;
+        for (BitGrid layer : new BitGrid[] {bombs, revealed, flagged}) {
+            for (int w = 0; w < words; w++, pos += Long.BYTES) {
+                layer.setWord(w, src.getLong(pos));
+            }
+        }
+
+        flagCount = flagged.cardinality();
+        revealedSafeCount = BitKernels.countAndNot(revealed, bombs);
+        correctFlagCount = BitKernels.countAnd(flagged, bombs);
+
+        adjacentCounts = new long[(spec.getCellCount() + 15) >>> 4];
+        computeAdjacentCounts();
     }
 
+    // Lays out the bombs for this game's seed - the same seed always gives the same board
     public void placeBombs() {
-        Random random = new Random();
-        int bombsPlaced = 0;
+        GameEvents.PlaceBombs event = new GameEvents.PlaceBombs();
+        event.begin();
 
-        while (bombsPlaced < NUM_BOMBS) {
-            int row = random.nextInt(BOARD_SIZE);
-            int col = random.nextInt(BOARD_SIZE);
+        // Old moves and deductions refer to the old layout
+        if (journal != null) {
+            journal.clear();
+        }
+        deductions = null;
+
+        // Always a fresh layout, never an in-place edit - forks may still share the old one
+        bombs = layOutBombs(spec, seed);
+        adjacentCounts = new long[(spec.getCellCount() + 15) >>> 4];
+        computeAdjacentCounts();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.bombs = spec.getBombs();
+            event.commit();
+        }
+
+        if (pendingChange != null) {
+            pendingChange.markAll();
+            publishChanges();
+        }
+    }
+
+    // The bomb layer for (spec, seed) - shared with TiledBoard, so both engines deal the same boards
+    static BitGrid layOutBombs(BoardSpec spec, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int cols = spec.getCols();
+        int cells = spec.getCellCount();
+        int numBombs = spec.getBombs();
+
+        // Dense boards pick the safe cells instead and flip, so the work is min(bombs, safe cells)
+        boolean invert = numBombs > cells / 2;
+        int picks = invert ? cells - numBombs : numBombs;
+        BitGrid layout = new BitGrid(spec.getRows(), cols);
+
+        // Floyd's sampling: exactly one draw per pick, no retries whatever the density
+        for (int j = cells - picks; j < cells; j++) {
+            int cell = random.nextInt(j + 1);
+            if (layout.get(cell / cols, cell % cols)) {
+                cell = j;
+            }
+            layout.set(cell / cols, cell % cols);
+        }
+
+        if (invert) {
+            layout.invert();
+        }
+        return layout;
+    }
+
+    // Neighbour counts of the bomb layer, 64 cells per step
+    private void computeAdjacentCounts() {
+        long[] words = BitKernels.load(bombs, new long[bombs.getWordCount()]);
+        BitKernels.neighbourCounts(words, rows, cols, adjacentCounts);
+    }
+
+    public RevealResult revealCell(int row, int col) {
+        GameEvents.Reveal event = new GameEvents.Reveal();
+        event.begin();
+        long start = GameMetrics.startTimer();
+
+        record(GameRecord.REVEAL, row * cols + col);
+        beginMove();
+        RevealResult result = null;
+        try {
+            result = reveal(row, col);
+            return result;
+        } finally {
+            endMove();
+            if (counted) {
+                GameMetrics.moveFinished(start);
+                if (result != null && result.openedAny()) {
+                    GameMetrics.revealed();
+                }
+            }
 
-            if (!bombs[row][col]) {
-                bombs[row][col] = true;
-                bombsPlaced++;
+            event.end();
+            if (event.shouldCommit() && result != null) {
+                event.row = row;
+                event.col = col;
+                event.result = result.getResult().name();
+                event.opened = result.getOpenedCount();
+                event.commit();
             }
         }
     }
 
-    public CellResult revealCell(int row, int col) {
+    private RevealResult reveal(int row, int col) {
+        if (lastReveal == null) {
+            lastReveal = new RevealResult();
+        }
+        RevealResult result = lastReveal;
+
         if (gameState != GameState.PLAYING) {
-            return CellResult.ALREADY_REVEALED;
+            result.reset(CellResult.ALREADY_REVEALED);
+            return result;
         }
 
-        if (revealed[row][col]) {
-            return CellResult.ALREADY_REVEALED;
+        if (revealed.get(row, col)) {
+            result.reset(CellResult.ALREADY_REVEALED);
+            return result;
         }
 
-        if (flagged[row][col]) {
-            return CellResult.FLAGGED;
+        if (flagged.get(row, col)) {
+            result.reset(CellResult.FLAGGED);
+            return result;
         }
 
-        revealed[row][col] = true;
+        setRevealed(row, col);
+        result.reset(CellResult.NUMBER);
+        result.add(row * cols + col);
 
-        if (bombs[row][col]) {
-            gameState = GameState.LOST;
-            return CellResult.BOMB;
+        if (bombs.get(row, col)) {
+            setGameState(GameState.LOST);
+            result.setResult(CellResult.BOMB);
+            return result;
         }
 
         int adjacentBombs = countAdjacentBombs(row, col);
         if (adjacentBombs == 0) {
-            revealNeighbors(row, col);
-            checkWinCondition(); //did win?
-            return CellResult.EMPTY;
+            revealNeighbors(result);
+            result.setResult(CellResult.EMPTY);
         }
 
-        checkWinCondition();
-        return CellResult.NUMBER;
+        checkWinCondition(); //did win?
+        return result;
     }
 
     public void revealAllCells() {
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                revealed[row][col] = true;
+        record(GameRecord.REVEAL_ALL, 0);
+        deductions = null;
+
+        if (journal == null) {
+            revealed.setAll();
+            revealedSafeCount = spec.getCellCount() - spec.getBombs();
+            if (changes != null) {
+                changes.markAll();
+            }
+            if (pendingChange != null) {
+                pendingChange.markAll();
+                publishChanges();
             }
+            return;
         }
-    }
 
-    public int countAdjacentBombs(int row, int col) {
-        int count = 0;
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
-
-                // Calculate the neighbor's position
-                int newRow = row + dr;
-                int newCol = col + dc;
-
-                // Check if neighbor is within bounds and has a bomb
-                if (isValid(newRow, newCol) && bombs[newRow][newCol]) {
-                    count++;
+        // Journaled games log each newly opened cell so the move can be undone
+        beginMove();
+        try {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (!revealed.get(row, col)) {
+                        setRevealed(row, col);
+                    }
                 }
             }
+        } finally {
+            endMove();
         }
+    }
 
-        return count;
+    public int countAdjacentBombs(int row, int col) {
+        int index = row * cols + col;
+        return (int) (adjacentCounts[index >>> 4] >>> ((index & 15) << 2)) & 0xF;
     }
 
-    private void revealNeighbors(int row, int col) {
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
+    // Breadth-first over the opened list: every cell opened so far is queued,
+    // and the zero cells among them open their hidden neighbours in turn
+    private void revealNeighbors(RevealResult opened) {
+        for (int head = 0; head < opened.getOpenedCount(); head++) {
+            int cell = opened.get(head);
+            int row = cell / cols;
+            int col = cell - row * cols;
 
-                int newRow = row + dr;
-                int newCol = col + dc;
+            if (countAdjacentBombs(row, col) != 0) {
+                continue;
+            }
 
-                if (isValid(newRow, newCol) && !revealed[newRow][newCol] && !flagged[newRow][newCol]) {
-                    revealed[newRow][newCol] = true;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) {
+                        continue;
+                    }
+
+                    int newRow = row + dr;
+                    int newCol = col + dc;
 
-                    if (countAdjacentBombs(newRow, newCol) == 0) {
-                        revealNeighbors(newRow, newCol);
+                    if (isValid(newRow, newCol) && !revealed.get(newRow, newCol) && !flagged.get(newRow, newCol)) {
+                        setRevealed(newRow, newCol);
+                        opened.add(newRow * cols + newCol);
                     }
                 }
             }
@@ -136,59 +362,144 @@ public class Minesweeper
     }
 
     public void flagCell(int row, int col) {
-        if (gameState != GameState.PLAYING || revealed[row][col]) {
+        if (gameState != GameState.PLAYING || revealed.get(row, col)) {
             return;
         }
 
-        if (flagged[row][col]) {
-            flagged[row][col] = false;
-            flagCount--;
+        long start = GameMetrics.startTimer();
+        record(GameRecord.FLAG, row * cols + col);
+        beginMove();
+        try {
+            toggleFlag(row, col);
+        } finally {
+            endMove();
+            if (counted) {
+                GameMetrics.moveFinished(start);
+            }
+        }
+    }
+
+    // Every write to the revealed/flagged layers and the state goes through these three
+    private void setRevealed(int row, int col) {
+        revealed.set(row, col);
+        if (!bombs.get(row, col)) {
+            revealedSafeCount++;
+        }
+
+        if (journal != null) {
+            journal.record(MoveJournal.REVEAL, row * cols + col);
+        }
+
+        if (deductions != null) {
+            deductions.cellChanged(row, col);
+        }
+
+        if (changes != null) {
+            changes.mark(row, col);
+        }
+
+        if (pendingChange != null) {
+            pendingChange.reveal(row * cols + col);
+        }
+    }
+
+    private void toggleFlag(int row, int col) {
+        int delta;
+        if (flagged.get(row, col)) {
+            flagged.clear(row, col);
+            delta = -1;
         } else {
-            flagged[row][col] = true;
-            flagCount++;
+            flagged.set(row, col);
+            delta = 1;
+        }
+
+        flagCount += delta;
+        if (bombs.get(row, col)) {
+            correctFlagCount += delta;
+        }
+
+        if (journal != null) {
+            journal.record(MoveJournal.FLAG, row * cols + col);
+        }
+
+        if (changes != null) {
+            changes.mark(row, col);
+        }
+
+        if (pendingChange != null) {
+            pendingChange.toggleFlag(row * cols + col);
+        }
+
+        // Removing a flag can take back a mine the engine built on
+        if (deductions != null && delta < 0) {
+            deductions = null;
+        } else if (deductions != null) {
+            deductions.cellChanged(row, col);
         }
     }
 
-    private void checkWinCondition() {
-        // Count how many non-bomb cells are revealed
-        int revealedCount = 0;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (revealed[row][col] && !bombs[row][col]) {
-                    revealedCount++;
-                }
-            }
+    private void setGameState(GameState newState) {
+        if (journal != null) {
+            journal.record(MoveJournal.STATE, gameState.ordinal() << 8 | newState.ordinal());
+        }
+        if (pendingChange != null) {
+            pendingChange.state(gameState, newState);
         }
+        if (counted && !endReported && gameState == GameState.PLAYING) {
+            endReported = true;
+            GameMetrics.gameEnded(newState);
+        }
+        gameState = newState;
+    }
 
-        int totalNonBombs = BOARD_SIZE * BOARD_SIZE - NUM_BOMBS;
+    private void checkWinCondition() {
+        // Counters are kept up to date by every reveal, so this is O(1)
+        int totalNonBombs = spec.getCellCount() - spec.getBombs();
 
-        if (revealedCount == totalNonBombs) {
-            gameState = GameState.WON;
+        if (revealedSafeCount == totalNonBombs) {
+            setGameState(GameState.WON);
         }
     }
 
     private boolean isValid(int row, int col) {
-        return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
+        return row >= 0 && row < rows && col >= 0 && col < cols;
     }
 
     public GameState getGameState() {
         return gameState;
     }
 
+    // Row count; only the whole size on square boards - prefer getRows/getCols
     public int getBoardSize() {
-        return BOARD_SIZE;
+        return rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public BoardSpec getSpec() {
+        return spec;
+    }
+
+    public long getSeed() {
+        return seed;
     }
 
     public boolean isRevealed(int row, int col) {
-        return revealed[row][col];
+        return revealed.get(row, col);
     }
 
     public boolean isFlagged(int row, int col) {
-        return flagged[row][col];
+        return flagged.get(row, col);
     }
 
     public boolean hasBomb(int row, int col) {
-        return bombs[row][col];
+        return bombs.get(row, col);
     }
 
     public int getFlagCount() {
@@ -196,178 +507,188 @@ public class Minesweeper
     }
 
     public int getTotalBombs() {
-        return NUM_BOMBS;
+        return spec.getBombs();
     }
 
-    public int[][] getVisibleBoard() {
-        int[][] visible = new int[BOARD_SIZE][BOARD_SIZE];
-
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (flagged[row][col]) {
-                    visible[row][col] = -1;
-                } else if (!revealed[row][col]) {
-                    visible[row][col] = -2;
-                } else {
-                    visible[row][col] = countAdjacentBombs(row, col);
-                }
-            }
-        }
-
-        return visible;
+    public int getRevealedSafeCount() {
+        return revealedSafeCount;
     }
 
-    public void autoFlag() {
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                // Skip unrevealed, flagged, or bomb cells
-                if (!revealed[row][col] || flagged[row][col] || bombs[row][col]) {
-                    continue;
-                }
+    // Flags that sit on an actual bomb
+    public int getCorrectFlagCount() {
+        return correctFlagCount;
+    }
 
-                // For numbered cells
-                int adjacentBombs = countAdjacentBombs(row, col);
+    // -1 flagged, -2 hidden, otherwise the adjacent bomb count; reads the layers a word at a time
+    public int[][] getVisibleBoard() {
+        int[][] visible = new int[rows][cols];
+        int wordsPerRow = revealed.getWordsPerRow();
 
-                // Skip empty cells
-                if (adjacentBombs == 0) {
-                    continue;
-                }
+        for (int row = 0; row < rows; row++) {
+            int[] line = visible[row];
+            java.util.Arrays.fill(line, -2);
 
-                // Count hidden and flagged neighbors
-                int hiddenCount = countHiddenNeighbors(row, col);
-                int flaggedCount = countFlaggedNeighbors(row, col);
+            for (int i = 0; i < wordsPerRow; i++) {
+                int w = row * wordsPerRow + i;
+                long shown = revealed.word(w) & ~flagged.word(w);
+                long flags = flagged.word(w);
 
-                // Cell is "satisfied" if hidden + flagged == number of mines
-                if (hiddenCount + flaggedCount == adjacentBombs) {
-                    // All hidden neighbors must be bombs - flag them
-                    flagHiddenNeighbors(row, col);
+                while (flags != 0) {
+                    line[(i << 6) + Long.numberOfTrailingZeros(flags)] = -1;
+                    flags &= flags - 1;
+                }
+                while (shown != 0) {
+                    int col = (i << 6) + Long.numberOfTrailingZeros(shown);
+                    line[col] = countAdjacentBombs(row, col);
+                    shown &= shown - 1;
                 }
             }
         }
-    }
 
-    public void autoReveal() {
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                // Skip unrevealed, flagged, or bomb cells
-                if (!revealed[row][col] || flagged[row][col] || bombs[row][col]) {
-                    continue;
-                }
-
-                int adjacentBombs = countAdjacentBombs(row, col);
+        return visible;
+    }
 
-                if (adjacentBombs == 0) {
-                    continue;
-                }
+    // Hidden (not revealed, flagged or not) neighbour counts for the whole board in one word-parallel pass:
+    // 4 bits per cell, 16 cells per long, by cell index row * cols + col (read one back with neighbourCount).
+    // dest needs (cells + 15) / 16 longs; getFlaggedNeighbourCounts uses the same layout
+    public void getHiddenNeighbourCounts(long[] dest) {
+        long[] words = BitKernels.not(revealed, new long[revealed.getWordCount()]);
+        BitKernels.neighbourCounts(words, rows, cols, dest);
+    }
 
-                int flaggedCount = countFlaggedNeighbors(row, col);
+    public void getFlaggedNeighbourCounts(long[] dest) {
+        long[] words = BitKernels.load(flagged, new long[flagged.getWordCount()]);
+        BitKernels.neighbourCounts(words, rows, cols, dest);
+    }
 
-                if (flaggedCount == adjacentBombs) {
-                    revealHiddenNeighbors(row, col);
-                }
-            }
-        }
+    public static int neighbourCount(long[] counts, int cell) {
+        return BitKernels.count(counts, cell);
     }
 
-    private int countHiddenNeighbors(int row, int col) {
+    // Hidden, unflagged cells next to a revealed one - where the next deduction or guess happens.
+    // Writes up to dest.length cell indices in row-major order and returns how many there are in all
+    public int getFrontierCells(int[] dest) {
+        long[] frontier = frontierMask();
+        int wordsPerRow = revealed.getWordsPerRow();
         int count = 0;
 
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue; // Skip self
-                }
-
-                int newRow = row + dr;
-                int newCol = col + dc;
+        for (int w = 0; w < frontier.length; w++) {
+            long bits = frontier[w];
+            int base = (w / wordsPerRow) * cols + ((w % wordsPerRow) << 6);
 
-                if (isValid(newRow, newCol)) {
-                    // Hidden = not revealed AND not flagged
-                    if (!revealed[newRow][newCol] && !flagged[newRow][newCol]) {
-                        count++;
-                    }
+            while (bits != 0) {
+                if (count < dest.length) {
+                    dest[count] = base + Long.numberOfTrailingZeros(bits);
                 }
+                count++;
+                bits &= bits - 1;
             }
         }
-
         return count;
     }
 
-    private int countFlaggedNeighbors(int row, int col) {
-        int count = 0;
+    // Revealed, unflagged cells in rows [rowStart, rowEnd) x columns [colStart, colEnd), a word at a time
+    int countRevealedUnflagged(int rowStart, int rowEnd, int colStart, int colEnd) {
+        return BitKernels.countAndNot(revealed, flagged, rowStart, rowEnd, colStart, colEnd);
+    }
 
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
+    // Flagged cells in the same kind of rectangle
+    int countFlagged(int rowStart, int rowEnd, int colStart, int colEnd) {
+        return BitKernels.countAndNot(flagged, null, rowStart, rowEnd, colStart, colEnd);
+    }
 
-                int newRow = row + dr;
-                int newCol = col + dc;
+    // Both counts for every square block of blockSize cells at once (see BitKernels.blockCounts)
+    void countBlocks(int blockSize, int[] revealedUnflagged, int[] flags) {
+        BitKernels.blockCounts(revealed, flagged, blockSize, revealedUnflagged);
+        BitKernels.blockCounts(flagged, null, blockSize, flags);
+    }
 
-                if (isValid(newRow, newCol) && flagged[newRow][newCol]) {
-                    count++;
-                }
-            }
-        }
+    // Row-padded words (like BitGrid): safe revealed cells with a hidden, unflagged neighbour
+    long[] borderMask() {
+        long[] border = new long[revealed.getWordCount()];
+        BitKernels.dilate(BitKernels.neither(revealed, flagged, new long[border.length]), rows, cols, border);
 
-        return count;
+        for (int w = 0; w < border.length; w++) {
+            border[w] &= revealed.word(w) & ~bombs.word(w);
+        }
+        return border;
     }
 
-    private void flagHiddenNeighbors(int row, int col)
-    {
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
+    // Row-padded words (like BitGrid): hidden, unflagged and next to a revealed cell
+    long[] frontierMask() {
+        long[] near = new long[revealed.getWordCount()];
+        BitKernels.dilate(BitKernels.load(revealed, new long[near.length]), rows, cols, near);
 
-                int newRow = row + dr;
-                int newCol = col + dc;
+        long[] unknown = BitKernels.neither(revealed, flagged, new long[near.length]);
+        for (int w = 0; w < near.length; w++) {
+            near[w] &= unknown[w];
+        }
+        return near;
+    }
 
-                if (isValid(newRow, newCol)) {
-                    // Flag if hidden (not revealed and not already flagged)
-                    if (!revealed[newRow][newCol] && !flagged[newRow][newCol]) {
-                        flagged[newRow][newCol] = true;
-                        flagCount++;
-                    }
-                }
-            }
+    // Flags every provable mine, to a fixpoint; returns the number of flags placed
+    public int autoFlag() {
+        GameEvents.AutoMove event = new GameEvents.AutoMove();
+        event.begin();
+        record(GameRecord.AUTO_FLAG, 0);
+        beginMove();
+        int changes = 0;
+        try {
+            changes = getDeductionEngine().flagMines();
+            return changes;
+        } finally {
+            endMove();
+            commitAutoMove(event, "flag", changes);
         }
     }
 
-    private void revealHiddenNeighbors(int row, int col) {
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
+    // Reveals every provably safe cell, to a fixpoint; returns the number of reveals
+    public int autoReveal() {
+        GameEvents.AutoMove event = new GameEvents.AutoMove();
+        event.begin();
+        record(GameRecord.AUTO_REVEAL, 0);
+        beginMove();
+        int changes = 0;
+        try {
+            changes = getDeductionEngine().revealSafeCells();
+            return changes;
+        } finally {
+            endMove();
+            commitAutoMove(event, "reveal", changes);
+        }
+    }
 
-                int newRow = row + dr;
-                int newCol = col + dc;
+    private static void commitAutoMove(GameEvents.AutoMove event, String kind, int changes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.changes = changes;
+            event.commit();
+        }
+    }
 
-                if (isValid(newRow, newCol)) {
-                    // Reveal if hidden (not revealed and not flagged)
-                    if (!revealed[newRow][newCol] && !flagged[newRow][newCol]) {
-                        revealCell(newRow, newCol);
-                    }
-                }
-            }
+    // Created on first use, then kept current by every reveal and flag
+    public DeductionEngine getDeductionEngine() {
+        if (deductions == null) {
+            deductions = new DeductionEngine(this);
         }
+        return deductions;
     }
 
+    // Same values as BoardEncoder's SCALAR layout; use that to encode without allocating
     public double[] toInput() {
-        int size = BOARD_SIZE * BOARD_SIZE;
+        int size = spec.getCellCount();
         double[] input = new double[size];
 
         int index = 0;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (flagged[row][col]) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (flagged.get(row, col)) {
                     input[index] = 1.0;
-                } else if (revealed[row][col]) {
+                } else if (revealed.get(row, col)) {
+                    // Revealed n -> (n + 1) / 10, so a revealed 0 no longer looks like a 1
                     int num = countAdjacentBombs(row, col);
-                    input[index] = (num == 0) ? 0.1 : num * 0.1;
+                    input[index] = (num + 1) * 0.1;
                 } else {
                     // Hidden cell
                     input[index] = 0.0;
@@ -380,13 +701,13 @@ public class Minesweeper
     }
 
     public double[] toOutput() {
-        int size = BOARD_SIZE * BOARD_SIZE; // 81
+        int size = spec.getCellCount();
         double[] output = new double[size];
 
         int index = 0;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                output[index] = flagged[row][col] ? 1.0 : 0.0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                output[index] = flagged.get(row, col) ? 1.0 : 0.0;
                 index++;
             }
         }
@@ -394,26 +715,343 @@ public class Minesweeper
         return output;
     }
 
-    public Minesweeper deepCopy() {
-        Minesweeper copy = new Minesweeper();
+    // Starts recording moves from now on; earlier moves cannot be undone
+    public void enableJournal() {
+        if (journal == null) {
+            journal = new MoveJournal();
+            record(GameRecord.JOURNAL, 1);
+        }
+    }
+
+    public void disableJournal() {
+        if (journal != null) {
+            journal = null;
+            record(GameRecord.JOURNAL, 0);
+        }
+    }
 
-        // Copy arrays using streams
-        copy.bombs = java.util.Arrays.stream(this.bombs)
-                .map(boolean[]::clone)
-                .toArray(boolean[][]::new);
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
 
-        copy.revealed = java.util.Arrays.stream(this.revealed)
-                .map(boolean[]::clone)
-                .toArray(boolean[][]::new);
+    // Number of moves currently applied - pass it to rollbackTo to come back here
+    public int checkpoint() {
+        requireJournal();
+        return journal.getMoveCount();
+    }
 
-        copy.flagged = java.util.Arrays.stream(this.flagged)
-                .map(boolean[]::clone)
-                .toArray(boolean[][]::new);
+    public boolean canUndo() {
+        return journal != null && journal.getMoveCount() > 0;
+    }
+
+    public boolean canRedo() {
+        return journal != null && journal.getMoveCount() < journal.getMoveTotal();
+    }
+
+    public boolean undo() {
+        requireJournal();
+        if (!canUndo()) {
+            return false;
+        }
+
+        undoMove();
+        publishChanges();
+        return true;
+    }
 
-        // Copy simple fields
-        copy.flagCount = this.flagCount;
-        copy.gameState = this.gameState;
+    public boolean redo() {
+        requireJournal();
+        if (!canRedo()) {
+            return false;
+        }
+
+        redoMove();
+        publishChanges();
+        return true;
+    }
+
+    // Undoes or redoes moves until exactly checkpoint moves are applied; listeners get one
+    // BoardChange for the whole rollback, the recording one undo/redo per step
+    public void rollbackTo(int checkpoint) {
+        requireJournal();
+        if (checkpoint < 0 || checkpoint > journal.getMoveTotal()) {
+            throw new IllegalArgumentException("No checkpoint " + checkpoint + " in this journal");
+        }
+
+        while (journal.getMoveCount() > checkpoint) {
+            undoMove();
+        }
+        while (journal.getMoveCount() < checkpoint) {
+            redoMove();
+        }
+        publishChanges();
+    }
+
+    private void undoMove() {
+        int move = journal.getMoveCount() - 1;
+        for (int i = journal.moveEnd(move) - 1; i >= journal.moveStart(move); i--) {
+            replay(journal.entry(i), false);
+        }
+
+        journal.stepBack();
+        record(GameRecord.UNDO, 0);
+    }
+
+    private void redoMove() {
+        int move = journal.getMoveCount();
+        for (int i = journal.moveStart(move); i < journal.moveEnd(move); i++) {
+            replay(journal.entry(i), true);
+        }
+
+        journal.stepForward();
+        record(GameRecord.REDO, 0);
+    }
+
+    // Applies one journal entry forwards (redo) or backwards (undo) without journaling it again
+    private void replay(long entry, boolean forward) {
+        deductions = null;
+
+        int value = MoveJournal.value(entry);
+        int row = value / cols;
+        int col = value % cols;
+
+        if (changes != null && MoveJournal.op(entry) != MoveJournal.STATE) {
+            changes.mark(row, col);
+        }
+
+        switch (MoveJournal.op(entry)) {
+            case MoveJournal.REVEAL:
+                int delta = forward ? 1 : -1;
+                if (forward) {
+                    revealed.set(row, col);
+                } else {
+                    revealed.clear(row, col);
+                }
+
+                if (pendingChange != null) {
+                    if (forward) {
+                        pendingChange.reveal(value);
+                    } else {
+                        pendingChange.hide(value);
+                    }
+                }
+
+                if (!bombs.get(row, col)) {
+                    revealedSafeCount += delta;
+                }
+                break;
+            case MoveJournal.FLAG:
+                // A flag toggle is its own inverse
+                int flagDelta = flagged.get(row, col) ? -1 : 1;
+                if (flagDelta < 0) {
+                    flagged.clear(row, col);
+                } else {
+                    flagged.set(row, col);
+                }
+
+                flagCount += flagDelta;
+                if (bombs.get(row, col)) {
+                    correctFlagCount += flagDelta;
+                }
+
+                if (pendingChange != null) {
+                    pendingChange.toggleFlag(value);
+                }
+                break;
+            case MoveJournal.STATE:
+                GameState restored = GameState.values()[forward ? value & 0xFF : value >>> 8];
+                if (pendingChange != null) {
+                    pendingChange.state(gameState, restored);
+                }
+                gameState = restored;
+                break;
+            default:
+                throw new IllegalStateException("Corrupt journal entry " + entry);
+        }
+    }
+
+    private void beginMove() {
+        moveDepth++;
+        if (journal != null) {
+            journal.beginMove();
+        }
+    }
 
+    private void endMove() {
+        moveDepth--;
+        if (journal != null) {
+            journal.endMove();
+        }
+        publishChanges();
+    }
+
+    public void addBoardListener(BoardListener listener) {
+        BoardListener[] more = java.util.Arrays.copyOf(listeners, listeners.length + 1);
+        more[listeners.length] = listener;
+        listeners = more;
+
+        if (pendingChange == null) {
+            pendingChange = new BoardChange();
+        }
+    }
+
+    public void removeBoardListener(BoardListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                BoardListener[] fewer = new BoardListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, fewer, 0, i);
+                System.arraycopy(listeners, i + 1, fewer, i, fewer.length - i);
+                listeners = fewer;
+                break;
+            }
+        }
+
+        if (listeners.length == 0) {
+            pendingChange = null;
+            spareChange = null;
+        }
+    }
+
+    // Hands the finished batch to the listeners once the outermost move is done;
+    // moves they make collect into a fresh batch
+    private void publishChanges() {
+        BoardChange batch = pendingChange;
+        if (batch == null || batch.isEmpty() || moveDepth > 0) {
+            return;
+        }
+
+        pendingChange = spareChange != null ? spareChange : new BoardChange();
+        spareChange = null;
+        try {
+            for (BoardListener listener : listeners) {
+                listener.boardChanged(this, batch);
+            }
+        } finally {
+            batch.clear();
+            if (pendingChange != null) {
+                spareChange = batch;
+            }
+        }
+    }
+
+    private void record(int kind, int cell) {
+        if (recorder != null && moveDepth == 0) {
+            recorder.record(kind, cell);
+        }
+    }
+
+    private void requireJournal() {
+        if (journal == null) {
+            throw new IllegalStateException("Journal not enabled - call enableJournal first");
+        }
+    }
+
+    // From now on, remembers which cells changed how they look (revealed or flag toggled)
+    public void enableChangeTracking() {
+        if (changes == null) {
+            changes = new ChangeSet(rows, cols);
+        }
+    }
+
+    public boolean isChangeTrackingEnabled() {
+        return changes != null;
+    }
+
+    // True after a bulk change - treat every cell as changed
+    public boolean hasAllChanged() {
+        return changes != null && changes.isAll();
+    }
+
+    public int getChangedCount() {
+        return changes == null ? 0 : changes.size();
+    }
+
+    // Index (row * cols + col) of the i-th changed cell, in the order they changed
+    public int getChangedCell(int i) {
+        if (changes == null || i < 0 || i >= changes.size()) {
+            throw new IndexOutOfBoundsException("Changed cell " + i + " of " + getChangedCount());
+        }
+        return changes.get(i);
+    }
+
+    // The consumer has caught up; costs the number of changes, not the board size
+    public void acknowledgeChanges() {
+        if (changes != null) {
+            changes.clear();
+        }
+    }
+
+    // Records every public move from now on; only a game nobody has touched yet can be replayed
+    public void enableRecording() {
+        if (recorder != null) {
+            return;
+        }
+        if (revealed.cardinality() > 0 || flagCount > 0) {
+            throw new IllegalStateException("Recording must start before the first move");
+        }
+
+        recorder = new GameRecorder();
+        if (journal != null) {
+            recorder.record(GameRecord.JOURNAL, 1);
+        }
+    }
+
+    public boolean isRecordingEnabled() {
+        return recorder != null;
+    }
+
+    // Snapshot of the moves so far and the current outcome
+    public GameRecord getRecording() {
+        if (recorder == null) {
+            throw new IllegalStateException("Recording not enabled - call enableRecording first");
+        }
+        return recorder.toRecord(this);
+    }
+
+    // Independent copy - moves on either game never show up in the other
+    public Minesweeper fork() {
+        GameEvents.Fork event = new GameEvents.Fork();
+        event.begin();
+        Minesweeper copy = new Minesweeper(this);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.cells = spec.getCellCount();
+            event.sharedBytes = adjacentCounts.length * (long) Long.BYTES + (spec.getCellCount() + 7) / 8;
+            event.commit();
+        }
         return copy;
     }
-}
\ No newline at end of file
+
+    public Minesweeper deepCopy() {
+        return fork();
+    }
+
+    // Bytes written by pack: a 24-byte header plus one bit per cell for each of the bomb,
+    // revealed and flagged layers (so 2 bits of visible state and 1 of layout)
+    int packedSize() {
+        return PACKED_HEADER + 3 * bombs.getWordCount() * Long.BYTES;
+    }
+
+    // Journal, recording, change tracking and listeners are not part of the snapshot
+    void pack(ByteBuffer dest, int offset) {
+        dest.putLong(offset, seed);
+        dest.putInt(offset + 8, rows);
+        dest.putInt(offset + 12, cols);
+        dest.putInt(offset + 16, spec.getBombs());
+        dest.putInt(offset + 20,
+                gameState.ordinal() | (endReported ? PACKED_END_REPORTED : 0) | (counted ? PACKED_COUNTED : 0));
+
+        int words = bombs.getWordCount();
+        int pos = offset + PACKED_HEADER;
+        for (BitGrid layer : new BitGrid[] {bombs, revealed, flagged}) {
+            for (int w = 0; w < words; w++, pos += Long.BYTES) {
+                dest.putLong(pos, layer.word(w));
+            }
+        }
+    }
+
+    static Minesweeper unpack(ByteBuffer src, int offset) {
+        return new Minesweeper(src, offset);
+    }
+}
@@ -1,37 +1,101 @@
 package spinner.minesweeper;
 
+/*Turns view events into model calls
+- The model belongs to the EDT. Slow work (new boards, auto flag/reveal) runs as a job on one
+  worker thread: the solver works on a fork, and its moves are replayed onto the real game on the EDT
+  in coalesced batches, so the board fills in while the job runs
+- One job at a time; while it runs, clicks and other moves are refused (with a beep), never queued
+- Cancelling keeps the moves already applied - each is a legal move on its own - and drops the rest
+- No-guess games come from a BoardPool and start with the centre cell already opened; if the pool's
+  search comes back empty, the player is told and gets an ordinary game instead
+*/
+
+import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MinesweeperController
 {
+    // Solver moves per step of an auto job - the granularity of progress and cancellation
+    private static final int STEP_CHANGES = 256;
+
     private Minesweeper model;
     private MinesweeperFrame view;
+    private final BoardSpec spec;
+    // Null unless setGameLog was called
+    private GameLog gameLog;
+    private boolean noGuess;
+    // Created the first time no-guess games are switched on
+    private BoardPool boardPool;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "minesweeper-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // The running (or just finished) job, null when idle
+    private SwingWorker<?, ?> job;
 
     public MinesweeperController(MinesweeperFrame view) {
+        this(view, BoardSpec.BEGINNER);
+    }
+
+    public MinesweeperController(MinesweeperFrame view, BoardSpec spec) {
         this.view = view;
-        this.model = new Minesweeper();
+        this.spec = spec;
+        this.model = newModel();
+    }
+
+    // Every game played from now on is recorded into log when it ends or is abandoned
+    public void setGameLog(GameLog log) {
+        this.gameLog = log;
+    }
+
+    // Applies from the next new game on; the pool starts searching for boards right away
+    public void setNoGuess(boolean enabled) {
+        noGuess = enabled;
+        if (enabled && boardPool == null) {
+            boardPool = new BoardPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 4);
+            boardPool.prepare(spec, spec.getRows() / 2, spec.getCols() / 2);
+        }
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
     }
 
     public void handleCellReveal(int row, int col) {
-        Minesweeper.CellResult result = model.revealCell(row, col);
+        if (rejectWhileBusy()) {
+            return;
+        }
+
+        Minesweeper.CellResult result = model.revealCell(row, col).getResult();
 
         if (result == Minesweeper.CellResult.BOMB) {
             view.stopTimer();
             model.revealAllCells();
-            view.updateBoard();
             view.revealAllBombs();
+            saveRecording();
             view.showGameOver();
-        } else if (result == Minesweeper.CellResult.EMPTY || result == Minesweeper.CellResult.NUMBER) {
-            view.updateBoard();
-
-            if (model.getGameState() == Minesweeper.GameState.WON) {
-                view.stopTimer();
-                view.showWin();
-            }
+        } else if ((result == Minesweeper.CellResult.EMPTY || result == Minesweeper.CellResult.NUMBER)
+                && model.getGameState() == Minesweeper.GameState.WON) {
+            view.stopTimer();
+            saveRecording();
+            view.showWin();
         }
     }
 
     public void handleCellFlag(int row, int col) {
+        if (rejectWhileBusy()) {
+            return;
+        }
+
         if (model.getGameState() != Minesweeper.GameState.PLAYING) {
             return;
         }
@@ -41,21 +105,20 @@ public class MinesweeperController
         }
 
         model.flagCell(row, col);
-
-        view.updateCell(row, col);
-        view.updateFlagsLabel();
     }
 
+    // Builds the next board on the worker; the old one stays on screen (and locked) until it is ready
     public void handleNewGame() {
         view.stopTimer();
 
-        model = new Minesweeper();
+        // Finished games were saved when they ended
+        if (model.getGameState() == Minesweeper.GameState.PLAYING) {
+            saveRecording();
+        }
 
-        // Resetting view
-        view.resetBoard();
-        view.updateFlagsLabel();
-        view.resetTimer();
-        view.startTimer();
+        // A new game supersedes whatever was running
+        handleCancel();
+        start(new NewGameJob(noGuess), "New game");
     }
 
     public Minesweeper getModel() {
@@ -63,32 +126,265 @@ public class MinesweeperController
     }
 
     public void handleAutoFlag() {
-        if (model.getGameState() != Minesweeper.GameState.PLAYING) {
+        if (rejectWhileBusy() || model.getGameState() != Minesweeper.GameState.PLAYING) {
             return;
         }
 
-        model.autoFlag();
-        view.updateBoard();
-        view.updateFlagsLabel();
+        start(new AutoJob(true), "Auto flag");
     }
 
     public void handleAutoReveal() {
-        if (model.getGameState() != Minesweeper.GameState.PLAYING) {
+        if (rejectWhileBusy() || model.getGameState() != Minesweeper.GameState.PLAYING) {
             return;
         }
 
-        model.autoReveal();
-        view.updateBoard();
+        start(new AutoJob(false), "Auto reveal");
+    }
+
+    // Stops the running job; moves it already handed to the board stay, later ones are dropped
+    public void handleCancel() {
+        if (job != null) {
+            job.cancel(true);
+            job = null;
+            view.showJobFinished();
+        }
+    }
+
+    // Until done() has run on the EDT, not merely until the worker returns - the last moves
+    // may still be on their way to the board
+    public boolean isBusy() {
+        return job != null;
+    }
+
+    private void start(SwingWorker<?, ?> newJob, String name) {
+        job = newJob;
+        newJob.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                view.showJobProgress((Integer) e.getNewValue());
+            }
+        });
+        view.showJobStarted(name);
+        worker.execute(newJob);
+    }
+
+    // While a job owns the game, every other move is refused the same way
+    private boolean rejectWhileBusy() {
+        if (isBusy()) {
+            view.showBusy();
+            return true;
+        }
+        return false;
+    }
 
+    private void checkGameOver() {
         if (model.getGameState() == Minesweeper.GameState.WON) {
             view.stopTimer();
+            saveRecording();
             view.showWin();
         } else if (model.getGameState() == Minesweeper.GameState.LOST) {
             view.stopTimer();
             model.revealAllCells();
-            view.updateBoard();
             view.revealAllBombs();
+            saveRecording();
             view.showGameOver();
         }
     }
+
+    private Minesweeper newModel() {
+        return newModel(new Minesweeper(spec));
+    }
+
+    // The board repaints itself from the model's changes; only the flag counter is ours to update
+    private Minesweeper newModel(Minesweeper game) {
+        game.enableRecording();
+        game.addBoardListener((changed, change) -> {
+            if (change.getFlagToggledCount() > 0) {
+                view.updateFlagsLabel();
+            }
+        });
+        return game;
+    }
+
+    // A failed write is reported and otherwise ignored, so the end-of-game dialogs still show
+    private void saveRecording() {
+        GameRecord record = model.getRecording();
+        if (gameLog == null || record.getMoveCount() == 0) {
+            return;
+        }
+
+        try {
+            gameLog.append(record);
+        } catch (IOException e) {
+            view.showSaveFailed(e);
+        }
+    }
+
+    private class NewGameJob extends SwingWorker<Minesweeper, Void>
+    {
+        private final boolean noGuess;
+        // Set on the worker when the pool found no board; get() publishes it to done()
+        private boolean noGuessFailed;
+
+        NewGameJob(boolean noGuess) {
+            this.noGuess = noGuess;
+        }
+
+        @Override
+        protected Minesweeper doInBackground() {
+            if (!noGuess) {
+                return newModel();
+            }
+
+            long seed = boardPool.take(spec, spec.getRows() / 2, spec.getCols() / 2);
+            if (seed != NoGuessGenerator.NO_SEED) {
+                return newModel(new Minesweeper(spec, seed));
+            }
+            if (isCancelled()) {
+                return null;
+            }
+            noGuessFailed = true;
+            return newModel();
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+
+            job = null;
+            view.showJobFinished();
+            try {
+                model = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not create the game", e.getCause());
+            }
+
+            view.resetBoard();
+            view.updateFlagsLabel();
+            view.resetTimer();
+            view.startTimer();
+
+            // The board was chosen for this first click, so make it for the player
+            if (noGuessFailed) {
+                view.showNoGuessBoardNotFound();
+            } else if (noGuess) {
+                // On a small or sparse board this cascade alone can win
+                model.revealCell(spec.getRows() / 2, spec.getCols() / 2);
+                checkGameOver();
+            }
+        }
+    }
+
+    // Runs the deduction engine on a fork and streams its moves back to the real game
+    private class AutoJob extends SwingWorker<Void, Void>
+    {
+        private final boolean flag;
+        private final Minesweeper work;
+        private final Minesweeper target;
+
+        // Filled on the worker by the fork's listener
+        private long[] moves = new long[64];
+        private int moveCount;
+        // Handed to the EDT; drained by one invokeLater at a time
+        private final ConcurrentLinkedQueue<long[]> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+        AutoJob(boolean flag) {
+            this.flag = flag;
+            this.target = model;
+            // Forked on the EDT, so the worker never touches the real game
+            this.work = model.fork();
+        }
+
+        @Override
+        protected Void doInBackground() {
+            work.addBoardListener((game, change) -> {
+                // The first cell of a reveal is the one revealed; the rest is its flood fill
+                if (change.getRevealedCount() > 0) {
+                    addMove(GameRecord.move(GameRecord.REVEAL, change.getRevealedCell(0)));
+                }
+                for (int i = 0; i < change.getFlagToggledCount(); i++) {
+                    addMove(GameRecord.move(GameRecord.FLAG, change.getFlagToggledCell(i)));
+                }
+            });
+
+            DeductionEngine engine = work.getDeductionEngine();
+            int total = flag ? work.getTotalBombs() : work.getSpec().getCellCount() - work.getTotalBombs();
+            while (!isCancelled() && work.getGameState() == Minesweeper.GameState.PLAYING) {
+                int changed = flag ? engine.flagMines(STEP_CHANGES) : engine.revealSafeCells(STEP_CHANGES);
+                handOver();
+
+                int done = flag ? work.getFlagCount() : work.getRevealedSafeCount();
+                setProgress((int) Math.min(100, 100L * done / Math.max(1, total)));
+                if (changed == 0) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            drain();
+            if (isCancelled()) {
+                return;
+            }
+
+            job = null;
+            view.showJobFinished();
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Solver failed", e.getCause());
+            }
+            checkGameOver();
+        }
+
+        private void addMove(long move) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moves.length * 2);
+            }
+            moves[moveCount++] = move;
+        }
+
+        private void handOver() {
+            if (moveCount == 0) {
+                return;
+            }
+
+            ready.add(Arrays.copyOf(moves, moveCount));
+            moveCount = 0;
+            if (drainScheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::drain);
+            }
+        }
+
+        // EDT: applies everything handed over so far; after a cancel, drops it instead
+        private void drain() {
+            drainScheduled.set(false);
+
+            long[] batch;
+            while ((batch = ready.poll()) != null) {
+                if (isCancelled() || target != model) {
+                    continue;
+                }
+
+                int cols = target.getCols();
+                for (long move : batch) {
+                    int cell = GameRecord.cell(move);
+                    if (GameRecord.kind(move) == GameRecord.REVEAL) {
+                        target.revealCell(cell / cols, cell % cols);
+                    } else {
+                        target.flagCell(cell / cols, cell % cols);
+                    }
+                }
+            }
+        }
+    }
 }
@@ -2,35 +2,22 @@ package spinner.minesweeper;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 
 public class MinesweeperFrame extends JFrame {
     private MinesweeperController controller;
 
-    private JButton[][] cellButtons;
+    private BoardComponent board;
+    private JScrollPane boardScrollPane;
+    private MinimapComponent minimap;
     private JLabel flagsLabel;
     private JButton newGameButton;
     private JLabel timerLabel;
+    private JProgressBar jobProgress;
+    private JButton cancelButton;
 
     private Timer timer;
     private int elapsedSeconds;
 
-    private static final Color BLUE_1 = new Color(0, 0, 255);        //"1"
-    private static final Color GREEN_2 = new Color(0, 128, 0);       // "2"
-    private static final Color RED_3 = new Color(255, 0, 0);         //"3"
-    private static final Color DARK_BLUE_4 = new Color(0, 0, 128);   //"4"
-    private static final Color MAROON_5 = new Color(128, 0, 0);      //"5"
-    private static final Color CYAN_6 = new Color(0, 128, 128);      //"6"
-    private static final Color BLACK_7 = Color.BLACK;                 //"7"
-    private static final Color GRAY_8 = Color.GRAY;                   //"8"
-
-    private static final Color UNREVEALED_CELL = new Color(240, 240, 240);  //unrevealed cell
-    private static final Color REVEALED_CELL = new Color(150, 150, 150);     //revealed cell
-    private static final Color FLAG_COLOR = Color.RED;
-    private static final String BOMB_EMOJI = "💣";
-    private static final String FLAG_EMOJI = "🚩";
-
     public MinesweeperFrame() {
         super("Minesweeper");
 
@@ -39,6 +26,7 @@ public class MinesweeperFrame extends JFrame {
 
         add(createTopPanel(), BorderLayout.NORTH);
         add(createBoardPanel(), BorderLayout.CENTER);
+        add(createMinimapPanel(), BorderLayout.EAST);
         pack();
 
         setLocationRelativeTo(null);
@@ -47,6 +35,23 @@ public class MinesweeperFrame extends JFrame {
 
     public void setController(MinesweeperController controller) {
         this.controller = controller;
+
+        board.setCellHandler(new BoardComponent.CellHandler() {
+            @Override
+            public void reveal(int row, int col) {
+                controller.handleCellReveal(row, col);
+            }
+
+            @Override
+            public void flag(int row, int col) {
+                controller.handleCellFlag(row, col);
+            }
+        });
+        board.setModel(controller.getModel());
+
+        // The window was laid out before there was a board to size it from
+        pack();
+        setLocationRelativeTo(null);
     }
 
     private JPanel createTopPanel() {
@@ -66,206 +71,107 @@ public class MinesweeperFrame extends JFrame {
         autoRevealButton.setFont(new Font("Arial", Font.PLAIN, 14));
         autoRevealButton.addActionListener(e -> controller.handleAutoReveal());
 
+        JCheckBox noGuessBox = new JCheckBox("No Guessing");
+        noGuessBox.setFont(new Font("Arial", Font.PLAIN, 14));
+        noGuessBox.setToolTipText("From the next new game on: boards that can be solved by logic alone");
+        noGuessBox.addActionListener(e -> controller.setNoGuess(noGuessBox.isSelected()));
+
+        JButton zoomOutButton = new JButton("-");
+        zoomOutButton.setFont(new Font("Arial", Font.PLAIN, 14));
+        zoomOutButton.addActionListener(e -> zoomBy(-1));
+
+        JButton zoomInButton = new JButton("+");
+        zoomInButton.setFont(new Font("Arial", Font.PLAIN, 14));
+        zoomInButton.addActionListener(e -> zoomBy(1));
+
         timerLabel = new JLabel("Time: 000");
         timerLabel.setFont(new Font("Arial", Font.BOLD, 16));
 
+        jobProgress = new JProgressBar(0, 100);
+        jobProgress.setStringPainted(true);
+        jobProgress.setVisible(false);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setFont(new Font("Arial", Font.PLAIN, 14));
+        cancelButton.addActionListener(e -> controller.handleCancel());
+        cancelButton.setVisible(false);
+
         topPanel.add(flagsLabel);
         topPanel.add(newGameButton);
         topPanel.add(autoFlagButton);
         topPanel.add(autoRevealButton);
+        topPanel.add(noGuessBox);
+        topPanel.add(zoomOutButton);
+        topPanel.add(zoomInButton);
         topPanel.add(timerLabel);
+        topPanel.add(jobProgress);
+        topPanel.add(cancelButton);
 
         return topPanel;
     }
 
-    private JPanel createBoardPanel() {
-        JPanel boardPanel = new JPanel(new GridLayout(9, 9, 0, 0));
-
-        cellButtons = new JButton[9][9];
-
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                JButton cellButton = new JButton();
-
-                cellButton.setPreferredSize(new Dimension(50, 50));
-                cellButton.setBackground(UNREVEALED_CELL);
-                cellButton.setFont(new Font("Arial", Font.BOLD, 20));
-                cellButton.setBorder(BorderFactory.createRaisedBevelBorder());
-                cellButton.setFocusPainted(false);
-                cellButton.setOpaque(true);
-                cellButton.setContentAreaFilled(false);
-                cellButton.setBorderPainted(true);
-
-                final int currentRow = row;
-                final int currentCol = col;
-
-                cellButton.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mousePressed(MouseEvent e) {
-                        if (SwingUtilities.isLeftMouseButton(e)) {
-                            controller.handleCellReveal(currentRow, currentCol);
-                        } else if (SwingUtilities.isRightMouseButton(e)) {
-                            controller.handleCellFlag(currentRow, currentCol);
-                        }
-                    }
-                });
-
-                cellButtons[row][col] = cellButton;
-                boardPanel.add(cellButton);
-            }
-        }
-        return boardPanel;
-    }
+    private JScrollPane createBoardPanel() {
+        board = new BoardComponent();
 
-    public void updateBoard() {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                updateCell(row, col);
-            }
-        }
+        // Scroll steps come from the board (Scrollable), so they follow the zoom
+        boardScrollPane = new JScrollPane(board);
+        boardScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        return boardScrollPane;
     }
 
-    public void updateCell(int row, int col) {
-        JButton button = cellButtons[row][col];
-        Minesweeper model = controller.getModel();
+    private JPanel createMinimapPanel() {
+        minimap = new MinimapComponent(board);
+        board.setMinimap(minimap);
+        boardScrollPane.getViewport().addChangeListener(e -> minimap.repaint());
 
-        if (model.isFlagged(row, col)) {
-            displayFlaggedCell(button);
-        } else if (model.isRevealed(row, col)) {
-            displayRevealedCell(button, row, col);  // Pass row and col
-        } else {
-            displayUnrevealedCell(button);
-        }
-    }
-
-    private void displayFlaggedCell(JButton button) {
-        button.setText("🚩");
-        button.setForeground(FLAG_COLOR);
-        button.setBackground(UNREVEALED_CELL);
-        button.setBorder(BorderFactory.createRaisedBevelBorder());
-        button.setEnabled(true);
-    }
-
-    private void displayRevealedCell(JButton button, int row, int col) {
-        final Minesweeper model = controller.getModel();
-
-        button.setOpaque(true);
-        button.setContentAreaFilled(false);
-        button.setBackground(REVEALED_CELL);
-        button.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
-        button.setEnabled(false);
-
-        if (model.hasBomb(row, col)) {
-            displayBombCell(button);
-        } else {
-            int adjacentBombs = model.countAdjacentBombs(row, col);
-            if (adjacentBombs == 0) {
-                displayEmptyRevealedCell(button);
-            } else {
-                displayNumberedCell(button, adjacentBombs);
-            }
-        }
+        JPanel minimapPanel = new JPanel(new BorderLayout());
+        minimapPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        minimapPanel.add(minimap, BorderLayout.NORTH);
+        return minimapPanel;
     }
 
-    private void displayBombCell(JButton button) {
-        button.removeAll();
-        button.setText("💣");
-        button.setForeground(Color.BLACK);
-        button.revalidate();
-        button.repaint();
+    // Zooms around the centre of what is currently visible
+    private void zoomBy(int direction) {
+        Rectangle visible = board.getVisibleRect();
+        Point centre = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+        int step = Math.max(1, board.getCellSize() / 4);
+        board.zoom(board.getCellSize() + direction * step, centre);
     }
 
-    private void displayEmptyRevealedCell(JButton button) {
-        button.removeAll();
-        button.setText("");
-        button.revalidate();
-        button.repaint();
+    public void revealAllBombs() {
+        board.setShowBombs(true);
     }
 
-    private void displayNumberedCell(JButton button, int adjacentBombs) {
-        button.setText("");
-        button.removeAll();
-        button.setLayout(new BorderLayout());
-
-        JLabel label = new JLabel(String.valueOf(adjacentBombs), SwingConstants.CENTER);
-        label.setFont(button.getFont());
-        label.setForeground(getColorForNumber(adjacentBombs));
+    public void updateFlagsLabel() {
+        Minesweeper model = controller.getModel();
 
-        button.add(label, BorderLayout.CENTER);
-        button.revalidate();
-        button.repaint();
+        int remainingFlags = model.getTotalBombs() - model.getFlagCount();
+        flagsLabel.setText("Flags: " + remainingFlags);
     }
 
-    private Color getColorForNumber(int number) {
-        switch (number) {
-            case 1:
-                return BLUE_1;
-            case 2:
-                return GREEN_2;
-            case 3:
-                return RED_3;
-            case 4:
-                return DARK_BLUE_4;
-            case 5:
-                return MAROON_5;
-            case 6:
-                return CYAN_6;
-            case 7:
-                return BLACK_7;
-            case 8:
-                return GRAY_8;
-            default:
-                return Color.BLACK;
-        }
+    public void showJobStarted(String name) {
+        jobProgress.setValue(0);
+        jobProgress.setString(name);
+        jobProgress.setVisible(true);
+        cancelButton.setVisible(true);
     }
 
-    private void displayUnrevealedCell(JButton button) {
-        button.setText("");
-        button.setBackground(UNREVEALED_CELL);
-        button.setBorder(BorderFactory.createRaisedBevelBorder());
-        button.setEnabled(true);
+    public void showJobProgress(int percent) {
+        jobProgress.setValue(percent);
     }
 
-
-    public void revealAllBombs() {
-        Minesweeper model = controller.getModel();
-
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (model.hasBomb(row, col)) {
-                    cellButtons[row][col].setText("💣");
-                    cellButtons[row][col].setForeground(FLAG_COLOR);
-                    cellButtons[row][col].setBackground(REVEALED_CELL);
-                    cellButtons[row][col].setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
-                    cellButtons[row][col].setEnabled(false);
-                } else {
-                    updateCell(row, col);
-                }
-            }
-        }
+    public void showJobFinished() {
+        jobProgress.setVisible(false);
+        cancelButton.setVisible(false);
     }
 
-    public void updateFlagsLabel() {
-        Minesweeper model = controller.getModel();
-
-        int remainingFlags = model.getTotalBombs() - model.getFlagCount();
-        flagsLabel.setText("Flags: " + remainingFlags);
+    // A move was refused because a job is running
+    public void showBusy() {
+        Toolkit.getDefaultToolkit().beep();
     }
 
     public void resetBoard() {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                JButton button = cellButtons[row][col];
-                button.removeAll();
-                button.setText("");
-                button.setLayout(new BorderLayout());
-                button.setBackground(UNREVEALED_CELL);
-                button.setBorder(BorderFactory.createRaisedBevelBorder());
-                button.setEnabled(true);
-                button.revalidate();
-                button.repaint();
-            }
-        }
+        board.setModel(controller.getModel());
     }
 
     public void startTimer() {
@@ -299,10 +205,30 @@ public class MinesweeperFrame extends JFrame {
         JOptionPane.showMessageDialog(this, "You Won!");
     }
 
-    public static void main(String[] args) {
+    public void showSaveFailed(java.io.IOException e) {
+        JOptionPane.showMessageDialog(this, "Could not save the game: " + e.getMessage(), "Game log",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
+    public void showNoGuessBoardNotFound() {
+        JOptionPane.showMessageDialog(this, "No no-guess board found for this size - this is an ordinary game.");
+    }
+
+    // Usage: MinesweeperFrame [log file, or - for none] [rows cols bombs]
+    public static void main(String[] args) throws java.io.IOException {
+        GameLog log = args.length > 0 && !"-".equals(args[0]) ? new GameLog(java.nio.file.Path.of(args[0])) : null;
+        BoardSpec spec = args.length > 3
+                ? new BoardSpec(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]))
+                : BoardSpec.BEGINNER;
+
+        // One move at a time in the UI, so the latency timing costs nothing noticeable
+        GameMetrics.register();
+        GameMetrics.get().setTimingEnabled(true);
+
         SwingUtilities.invokeLater(() -> {
             MinesweeperFrame view = new MinesweeperFrame();
-            MinesweeperController controller = new MinesweeperController(view);
+            MinesweeperController controller = new MinesweeperController(view, spec);
+            controller.setGameLog(log);
             view.setController(controller);
             view.updateFlagsLabel();
             view.startTimer();
@@ -0,0 +1,193 @@
+package spinner.minesweeper;
+
+/*Overview of the whole board next to the scrolled BoardComponent
+- One image pixel stands for a square block of cells, so the image never exceeds MAP_SIZE squared
+- Only blocks holding changed cells are recomputed (BoardComponent passes on each BoardChange)
+- Blocks are counted from the model's packed layers a word at a time: a full redraw is one pass over
+  the words (cells / 64 of them), a changed block reads only its own rows
+- Draws the board's visible rectangle on top; clicking or dragging scrolls the board there
+*/
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+public class MinimapComponent extends JComponent
+{
+    private static final int MAP_SIZE = 160;
+
+    private static final int HIDDEN_RGB = 0xF0F0F0;
+    private static final int REVEALED_RGB = 0x969696;
+    private static final int FLAG_RGB = 0xFF0000;
+    private static final Color VIEW_COLOR = new Color(0, 0, 255, 160);
+
+    private final BoardComponent board;
+    private Minesweeper model;
+    // Cells per image pixel along each axis
+    private int blockSize;
+    private BufferedImage image;
+    // Blocks already recomputed during the current cellsChanged call
+    private int[] stamps;
+    private int stamp;
+    // Per-block counts for redrawAll, sized with the image
+    private int[] revealedCounts;
+    private int[] flagCounts;
+
+    public MinimapComponent(BoardComponent board) {
+        this.board = board;
+        setPreferredSize(new Dimension(MAP_SIZE, MAP_SIZE));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                scrollBoardTo(e.getPoint());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                scrollBoardTo(e.getPoint());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    // Rebuilds the image for a new game
+    void setModel(Minesweeper model) {
+        this.model = model;
+        if (model == null) {
+            image = null;
+            repaint();
+            return;
+        }
+
+        blockSize = Math.max(1, (Math.max(model.getRows(), model.getCols()) + MAP_SIZE - 1) / MAP_SIZE);
+        int width = (model.getCols() + blockSize - 1) / blockSize;
+        int height = (model.getRows() + blockSize - 1) / blockSize;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        stamps = new int[width * height];
+        revealedCounts = new int[width * height];
+        flagCounts = new int[width * height];
+
+        redrawAll();
+    }
+
+    // Recomputes the blocks holding the cells a move changed
+    void cellsChanged(BoardChange change) {
+        if (model == null) {
+            return;
+        }
+        if (change.isAll()) {
+            redrawAll();
+            return;
+        }
+
+        stamp++;
+        for (int i = 0; i < change.getRevealedCount(); i++) {
+            cellChanged(change.getRevealedCell(i));
+        }
+        for (int i = 0; i < change.getHiddenCount(); i++) {
+            cellChanged(change.getHiddenCell(i));
+        }
+        for (int i = 0; i < change.getFlagToggledCount(); i++) {
+            cellChanged(change.getFlagToggledCell(i));
+        }
+        repaint();
+    }
+
+    private void cellChanged(int cell) {
+        int blockRow = cell / model.getCols() / blockSize;
+        int blockCol = cell % model.getCols() / blockSize;
+
+        int block = blockRow * image.getWidth() + blockCol;
+        if (stamps[block] != stamp) {
+            stamps[block] = stamp;
+            redrawBlock(blockRow, blockCol);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getParent() != null ? getParent().getBackground() : Color.LIGHT_GRAY);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (image == null) {
+            return;
+        }
+
+        Rectangle map = mapBounds();
+        g.drawImage(image, map.x, map.y, map.width, map.height, null);
+
+        // The part of the board the scroll pane shows, in map coordinates
+        Rectangle visible = board.getVisibleRect();
+        double scale = map.width / (double) (model.getCols() * board.getCellSize());
+        g.setColor(VIEW_COLOR);
+        g.drawRect(map.x + (int) (visible.x * scale), map.y + (int) (visible.y * scale),
+                Math.max(1, (int) (visible.width * scale) - 1), Math.max(1, (int) (visible.height * scale) - 1));
+    }
+
+    private void redrawAll() {
+        model.countBlocks(blockSize, revealedCounts, flagCounts);
+        for (int blockRow = 0; blockRow < image.getHeight(); blockRow++) {
+            for (int blockCol = 0; blockCol < image.getWidth(); blockCol++) {
+                int block = blockRow * image.getWidth() + blockCol;
+                int rgb = blockRgb(blockRow, blockCol, revealedCounts[block], flagCounts[block]);
+                image.setRGB(blockCol, blockRow, rgb);
+            }
+        }
+        repaint();
+    }
+
+    // Colour by share of revealed cells, red if any flag is in the block
+    private void redrawBlock(int blockRow, int blockCol) {
+        int rowStart = blockRow * blockSize;
+        int colStart = blockCol * blockSize;
+        int rowEnd = Math.min(model.getRows(), rowStart + blockSize);
+        int colEnd = Math.min(model.getCols(), colStart + blockSize);
+
+        int flags = model.countFlagged(rowStart, rowEnd, colStart, colEnd);
+        int revealed = flags > 0 ? 0 : model.countRevealedUnflagged(rowStart, rowEnd, colStart, colEnd);
+        image.setRGB(blockCol, blockRow, blockRgb(blockRow, blockCol, revealed, flags));
+    }
+
+    private int blockRgb(int blockRow, int blockCol, int revealed, int flags) {
+        if (flags > 0) {
+            return FLAG_RGB;
+        }
+
+        int rows = Math.min(model.getRows(), (blockRow + 1) * blockSize) - blockRow * blockSize;
+        int cols = Math.min(model.getCols(), (blockCol + 1) * blockSize) - blockCol * blockSize;
+        return blend(HIDDEN_RGB, REVEALED_RGB, revealed / (double) (rows * cols));
+    }
+
+    // Largest rectangle with the board's aspect ratio that fits the component, centred
+    private Rectangle mapBounds() {
+        double scale = Math.min(getWidth() / (double) model.getCols(), getHeight() / (double) model.getRows());
+        int width = Math.max(1, (int) (model.getCols() * scale));
+        int height = Math.max(1, (int) (model.getRows() * scale));
+        return new Rectangle((getWidth() - width) / 2, (getHeight() - height) / 2, width, height);
+    }
+
+    private void scrollBoardTo(Point point) {
+        if (model == null) {
+            return;
+        }
+
+        Rectangle map = mapBounds();
+        int col = (int) ((point.x - map.x) / (double) map.width * model.getCols());
+        int row = (int) ((point.y - map.y) / (double) map.height * model.getRows());
+        board.scrollToCell(Math.max(0, Math.min(row, model.getRows() - 1)),
+                Math.max(0, Math.min(col, model.getCols() - 1)));
+    }
+
+    private static int blend(int from, int to, double t) {
+        int rgb = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int a = from >>> shift & 0xFF;
+            int b = to >>> shift & 0xFF;
+            rgb |= (int) Math.round(a + (b - a) * t) << shift;
+        }
+        return rgb;
+    }
+}
@@ -0,0 +1,100 @@
+package spinner.minesweeper;
+
+/*Undo/redo log for one game
+- Every change to the revealed/flagged layers and the game state is one long entry
+- Entries are grouped into moves (one public call on the model, nested calls included)
+- Undoing or redoing a move costs the number of entries in it, not the board size
+*/
+
+final class MoveJournal
+{
+    static final int REVEAL = 1;
+    static final int FLAG = 2;
+    static final int STATE = 3;
+
+    private long[] entries = new long[64];
+    private int size;
+    // moveEnds[i] is the entry index just past move i
+    private int[] moveEnds = new int[16];
+    // Moves currently applied; moves up to moveTotal can be redone
+    private int moveCount;
+    private int moveTotal;
+    private int depth;
+    private int openStart;
+
+    static int op(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int value(long entry) {
+        return (int) entry;
+    }
+
+    void beginMove() {
+        if (depth++ > 0) {
+            return;
+        }
+
+        // The open move writes over the redo tail, but the tail is only forgotten in endMove,
+        // once the move has recorded something - a no-op move leaves redo intact
+        size = moveStart(moveCount);
+        openStart = size;
+    }
+
+    void endMove() {
+        if (--depth > 0 || size == openStart) {
+            return;
+        }
+
+        if (moveCount == moveEnds.length) {
+            moveEnds = java.util.Arrays.copyOf(moveEnds, moveEnds.length * 2);
+        }
+        moveEnds[moveCount++] = size;
+        moveTotal = moveCount;
+    }
+
+    void record(int op, int value) {
+        if (depth == 0) {
+            return;
+        }
+
+        if (size == entries.length) {
+            entries = java.util.Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[size++] = ((long) op << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    void clear() {
+        size = 0;
+        moveCount = 0;
+        moveTotal = 0;
+    }
+
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    int getMoveTotal() {
+        return moveTotal;
+    }
+
+    int moveStart(int move) {
+        return move == 0 ? 0 : moveEnds[move - 1];
+    }
+
+    int moveEnd(int move) {
+        return moveEnds[move];
+    }
+
+    long entry(int i) {
+        return entries[i];
+    }
+
+    void stepBack() {
+        moveCount--;
+    }
+
+    void stepForward() {
+        moveCount++;
+    }
+}
@@ -0,0 +1,93 @@
+package spinner.minesweeper;
+
+/*Picks boards that can be cleared without guessing, starting from a known first click
+- A board is still just a seed (see Minesweeper.placeBombs); this only decides which seeds qualify
+- A seed qualifies if the first click opens a zero and DeductionEngine.solve from there wins
+- The solver only uses local rules, so some boards a human could finish are turned down - never the reverse
+- Plain rejection sampling: dense boards need many candidates per hit, so keep it off the EDT (see BoardPool)
+- Every search has a candidate budget and stops early when its thread is interrupted, so a spec with
+  (almost) no no-guess boards ends in NO_SEED instead of a thread that never comes back
+*/
+
+import java.util.SplittableRandom;
+
+public final class NoGuessGenerator
+{
+    // Returned by findSeed when the candidate budget ran out or the thread was interrupted
+    public static final long NO_SEED = Long.MIN_VALUE;
+    // About 400 hits on expert, several seconds of work; a spec that needs more is not worth searching
+    public static final int DEFAULT_MAX_CANDIDATES = 1 << 16;
+
+    private NoGuessGenerator() {
+    }
+
+    public static boolean isNoGuess(BoardSpec spec, long seed, int row, int col) {
+        // Candidates are throwaway games, so they stay out of GameMetrics' game counts
+        Minesweeper game = new Minesweeper(spec, seed, false);
+        if (game.hasBomb(row, col) || game.countAdjacentBombs(row, col) != 0) {
+            return false;
+        }
+
+        game.revealCell(row, col);
+        game.getDeductionEngine().solve();
+        return game.getGameState() == Minesweeper.GameState.WON;
+    }
+
+    // Tries up to maxCandidates random seeds; NO_SEED if none of them qualified or the thread was interrupted.
+    // The interrupt stays set for the caller to see
+    public static long findSeed(BoardSpec spec, int row, int col, SplittableRandom random, int maxCandidates) {
+        checkFirstClick(spec, row, col);
+
+        for (int i = 0; i < maxCandidates && !Thread.currentThread().isInterrupted(); i++) {
+            long seed = random.nextLong();
+            if (seed != NO_SEED && isNoGuess(spec, seed, row, col)) {
+                return seed;
+            }
+        }
+        return NO_SEED;
+    }
+
+    // Search with the default budget. NO_SEED straight away if the first click's 3x3 block leaves no room
+    // for every bomb - no such board exists
+    public static long findSeed(BoardSpec spec, int row, int col, SplittableRandom random) {
+        checkFirstClick(spec, row, col);
+        if (spec.getBombs() > spec.getCellCount() - 9) {
+            return NO_SEED;
+        }
+        return findSeed(spec, row, col, random, DEFAULT_MAX_CANDIDATES);
+    }
+
+    static void checkFirstClick(BoardSpec spec, int row, int col) {
+        if (row < 0 || row >= spec.getRows() || col < 0 || col >= spec.getCols()) {
+            throw new IllegalArgumentException("First click " + row + "," + col + " is off the " + spec + " board");
+        }
+    }
+
+    // Usage: NoGuessGenerator [boards] [rows] [cols] [bombs] [seed] - reports how many candidates a board takes
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : BoardSpec.EXPERT.getRows();
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : BoardSpec.EXPERT.getCols();
+        int bombs = args.length > 3 ? Integer.parseInt(args[3]) : BoardSpec.EXPERT.getBombs();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        BoardSpec spec = new BoardSpec(rows, cols, bombs);
+        SplittableRandom random = new SplittableRandom(seed);
+        long candidates = 0;
+        int found = 0;
+
+        long start = System.nanoTime();
+        while (found < boards) {
+            long result = findSeed(spec, rows / 2, cols / 2, random, 1);
+            candidates++;
+            if (result != NO_SEED) {
+                found++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("board=" + spec + " first click=" + rows / 2 + "," + cols / 2 + " seed=" + seed);
+        System.out.printf("%d boards from %d candidates (%.1f%%), %.3f s, %.1f boards/s%n",
+                boards, candidates, 100.0 * boards / candidates, seconds, boards / seconds);
+    }
+}
@@ -0,0 +1,14 @@
+package spinner.minesweeper;
+
+/*A policy that plays games without a UI
+- Plays one turn per call: a single reveal or flag, or a deduction pass that may make many moves,
+  possibly followed by a guess. Simulator's move limit and RecordingPlayer's records count turns
+- The simulator creates one player per worker, so players need not be thread safe
+*/
+
+import java.util.SplittableRandom;
+
+public interface Player
+{
+    void move(Minesweeper game, SplittableRandom random);
+}
@@ -0,0 +1,55 @@
+package spinner.minesweeper;
+
+/*Player that guesses as well as the visible information allows
+- Deduces with the game's DeductionEngine first
+- When stuck, reveals the hidden cell with the lowest exact mine probability
+*/
+
+import java.util.SplittableRandom;
+
+public class ProbabilityPlayer implements Player
+{
+    // Sequential: the simulator already keeps every core busy with whole games
+    private final ProbabilitySolver solver = new ProbabilitySolver(null, ProbabilitySolver.DEFAULT_MAX_COMPONENT_CELLS);
+
+    @Override
+    public void move(Minesweeper game, SplittableRandom random) {
+        if (game.getDeductionEngine().solve() > 0) {
+            return;
+        }
+
+        int cell = safestCell(game, random);
+        if (cell >= 0) {
+            game.revealCell(cell / game.getCols(), cell % game.getCols());
+        }
+    }
+
+    private int safestCell(Minesweeper game, SplittableRandom random) {
+        double[] probabilities;
+        try {
+            probabilities = solver.solve(game);
+        } catch (ProbabilitySolver.FrontierTooLargeException e) {
+            return RandomPlayer.pickHiddenCell(game, random);
+        }
+
+        int cols = game.getCols();
+        int best = -1;
+        int ties = 0;
+        for (int cell = 0; cell < probabilities.length; cell++) {
+            int row = cell / cols;
+            int col = cell % cols;
+            if (game.isRevealed(row, col) || game.isFlagged(row, col)) {
+                continue;
+            }
+
+            // Ties are broken uniformly at random (reservoir style)
+            if (best < 0 || probabilities[cell] < probabilities[best]) {
+                best = cell;
+                ties = 1;
+            } else if (probabilities[cell] == probabilities[best] && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,461 @@
+package spinner.minesweeper;
+
+/*Exact mine probability for every cell, from what the player can see
+- Frontier = hidden, unflagged cells next to a revealed number; each number is one constraint
+- Frontier cells are split into independent components, each enumerated by backtracking
+- Components are combined by convolution, weighted by C(interior cells, mines left for them)
+- Flags count as mines, like everywhere else in the model
+- Enumeration is exponential in component size, so components above a cell limit, or whose
+  search visits more than a node budget, are rejected with FrontierTooLargeException
+- A position no mine layout can explain (e.g. a wrong flag) is an IllegalStateException
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public final class ProbabilitySolver
+{
+    public static final int DEFAULT_MAX_COMPONENT_CELLS = 40;
+    public static final long DEFAULT_MAX_SEARCH_NODES = 1L << 22;
+
+    private final ForkJoinPool pool;
+    private final int maxComponentCells;
+    private final long maxSearchNodes;
+
+    // The frontier cannot be enumerated within the limits; the caller needs another way to guess
+    public static final class FrontierTooLargeException extends RuntimeException
+    {
+        public FrontierTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    public ProbabilitySolver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_COMPONENT_CELLS);
+    }
+
+    // A null pool solves the components one after another on the calling thread
+    public ProbabilitySolver(ForkJoinPool pool, int maxComponentCells) {
+        this(pool, maxComponentCells, DEFAULT_MAX_SEARCH_NODES);
+    }
+
+    // maxSearchNodes bounds the backtracking of each component
+    public ProbabilitySolver(ForkJoinPool pool, int maxComponentCells, long maxSearchNodes) {
+        this.pool = pool;
+        this.maxComponentCells = maxComponentCells;
+        this.maxSearchNodes = maxSearchNodes;
+    }
+
+    // Probability of a mine per cell (index row * cols + col): revealed cells 0, flagged cells 1
+    public double[] solve(Minesweeper game) {
+        int rows = game.getRows();
+        int cols = game.getCols();
+        double[] probabilities = new double[rows * cols];
+
+        // Frontier variables and the constraints on them
+        int[] cellToVar = new int[rows * cols];
+        java.util.Arrays.fill(cellToVar, -1);
+        IntList varCells = new IntList();
+        List<int[]> constraintVars = new ArrayList<>();
+        IntList constraintTargets = new IntList();
+        int hiddenCells = 0;
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (game.isFlagged(row, col)) {
+                    probabilities[row * cols + col] = 1.0;
+                } else if (!game.isRevealed(row, col)) {
+                    // Placeholder until the cell turns out to be frontier or interior
+                    probabilities[row * cols + col] = -1;
+                    hiddenCells++;
+                } else if (!game.hasBomb(row, col) && game.countAdjacentBombs(row, col) > 0) {
+                    addConstraint(game, row, col, cellToVar, varCells, constraintVars, constraintTargets);
+                }
+            }
+        }
+
+        List<Component> components = split(varCells.size(), constraintVars, constraintTargets);
+        for (Component component : components) {
+            if (component.vars.length > maxComponentCells) {
+                throw new FrontierTooLargeException("Frontier component of " + component.vars.length
+                        + " cells is above the limit of " + maxComponentCells);
+            }
+        }
+        enumerateAll(components);
+
+        int interiorCells = hiddenCells - varCells.size();
+        int minesLeft = game.getTotalBombs() - game.getFlagCount();
+        combine(components, interiorCells, minesLeft, varCells, probabilities);
+        return probabilities;
+    }
+
+    private static void addConstraint(Minesweeper game, int row, int col, int[] cellToVar, IntList varCells,
+                                      List<int[]> constraintVars, IntList constraintTargets) {
+        int cols = game.getCols();
+        int[] vars = new int[8];
+        int count = 0;
+        int target = game.countAdjacentBombs(row, col);
+
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int newRow = row + dr;
+                int newCol = col + dc;
+
+                if ((dr == 0 && dc == 0) || newRow < 0 || newRow >= game.getRows() || newCol < 0
+                        || newCol >= cols || game.isRevealed(newRow, newCol)) {
+                    continue;
+                }
+
+                if (game.isFlagged(newRow, newCol)) {
+                    target--;
+                    continue;
+                }
+
+                int cell = newRow * cols + newCol;
+                if (cellToVar[cell] < 0) {
+                    cellToVar[cell] = varCells.size();
+                    varCells.add(cell);
+                }
+                vars[count++] = cellToVar[cell];
+            }
+        }
+
+        if (count > 0) {
+            constraintVars.add(java.util.Arrays.copyOf(vars, count));
+            constraintTargets.add(target);
+        } else if (target != 0) {
+            throw new IllegalStateException("Flags around (" + row + ", " + col + ") contradict its number");
+        }
+    }
+
+    // Union-find over variables that share a constraint
+    private static List<Component> split(int varCount, List<int[]> constraintVars, IntList targets) {
+        int[] parent = new int[varCount];
+        for (int i = 0; i < varCount; i++) {
+            parent[i] = i;
+        }
+
+        for (int[] vars : constraintVars) {
+            for (int i = 1; i < vars.length; i++) {
+                int a = find(parent, vars[0]);
+                int b = find(parent, vars[i]);
+                parent[a] = b;
+            }
+        }
+
+        // Group variables and constraints by root
+        int[] rootToComponent = new int[varCount];
+        java.util.Arrays.fill(rootToComponent, -1);
+        List<IntList> componentVars = new ArrayList<>();
+        for (int v = 0; v < varCount; v++) {
+            int root = find(parent, v);
+            if (rootToComponent[root] < 0) {
+                rootToComponent[root] = componentVars.size();
+                componentVars.add(new IntList());
+            }
+            componentVars.get(rootToComponent[root]).add(v);
+        }
+
+        List<List<int[]>> componentConstraints = new ArrayList<>();
+        List<IntList> componentTargets = new ArrayList<>();
+        for (int i = 0; i < componentVars.size(); i++) {
+            componentConstraints.add(new ArrayList<>());
+            componentTargets.add(new IntList());
+        }
+        for (int c = 0; c < constraintVars.size(); c++) {
+            int[] vars = constraintVars.get(c);
+            int component = rootToComponent[find(parent, vars[0])];
+            componentConstraints.get(component).add(vars);
+            componentTargets.get(component).add(targets.get(c));
+        }
+
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < componentVars.size(); i++) {
+            components.add(new Component(componentVars.get(i).toArray(), componentConstraints.get(i),
+                    componentTargets.get(i)));
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void enumerateAll(List<Component> components) {
+        if (pool == null || components.size() < 2) {
+            for (Component component : components) {
+                component.enumerate(maxSearchNodes);
+            }
+            return;
+        }
+
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (Component component : components) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    component.enumerate(maxSearchNodes);
+                }
+            });
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+    }
+
+    private static void combine(List<Component> components, int interiorCells, int minesLeft, IntList varCells,
+                                double[] probabilities) {
+        int frontierMax = 0;
+        for (Component component : components) {
+            frontierMax += component.vars.length;
+        }
+
+        // Relative weight of "f mines on the frontier": C(interior, minesLeft - f), kept in log space
+        double[] weights = interiorWeights(interiorCells, minesLeft, frontierMax);
+
+        // Prefix/suffix convolutions give "every component but this one" in linear passes
+        int n = components.size();
+        double[][] prefix = new double[n + 1][];
+        double[][] suffix = new double[n + 1][];
+        prefix[0] = new double[] {1.0};
+        suffix[n] = new double[] {1.0};
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = convolve(prefix[i], components.get(i).solutions);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            suffix[i] = convolve(components.get(i).solutions, suffix[i + 1]);
+        }
+
+        double[] all = prefix[n];
+        double total = 0;
+        double interiorMines = 0;
+        for (int f = 0; f < all.length; f++) {
+            total += all[f] * weights[f];
+            interiorMines += all[f] * weights[f] * (minesLeft - f);
+        }
+
+        if (total == 0) {
+            throw new IllegalStateException("No mine layout matches the revealed numbers and flags");
+        }
+
+        for (int i = 0; i < n; i++) {
+            Component component = components.get(i);
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+
+            // g[k] = weight of every completion when this component holds k mines
+            double[] g = new double[component.solutions.length];
+            for (int k = 0; k < g.length; k++) {
+                for (int j = 0; j < others.length && j + k < weights.length; j++) {
+                    g[k] += others[j] * weights[j + k];
+                }
+            }
+
+            for (int v = 0; v < component.vars.length; v++) {
+                double p = 0;
+                for (int k = 0; k < g.length; k++) {
+                    p += component.mineCounts[v][k] * g[k];
+                }
+                probabilities[varCells.get(component.vars[v])] = p / total;
+            }
+        }
+
+        // Hidden cells that are not on the frontier still hold the placeholder
+        double interiorProbability = interiorCells > 0 ? interiorMines / total / interiorCells : 0;
+        for (int cell = 0; cell < probabilities.length; cell++) {
+            if (probabilities[cell] < 0) {
+                probabilities[cell] = interiorProbability;
+            }
+        }
+    }
+
+    private static double[] interiorWeights(int interiorCells, int minesLeft, int frontierMax) {
+        double[] weights = new double[frontierMax + 1];
+
+        // Valid f: the interior must take the remaining minesLeft - f mines
+        int first = Math.max(0, minesLeft - interiorCells);
+        int last = Math.min(frontierMax, minesLeft);
+        if (first > last) {
+            return weights;
+        }
+
+        // log C(I, m-f) relative to f = first, stepping with C(I, k-1) / C(I, k) = k / (I - k + 1)
+        double[] logWeights = new double[last - first + 1];
+        double max = 0;
+        for (int f = first + 1; f <= last; f++) {
+            int k = minesLeft - f + 1;
+            logWeights[f - first] = logWeights[f - first - 1] + Math.log((double) k / (interiorCells - k + 1));
+            max = Math.max(max, logWeights[f - first]);
+        }
+
+        for (int f = first; f <= last; f++) {
+            weights[f] = Math.exp(logWeights[f - first] - max);
+        }
+        return weights;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                out[i + j] += a[i] * b[j];
+            }
+        }
+        return out;
+    }
+
+    // One independent group of frontier cells and the constraints that tie them together
+    private static final class Component
+    {
+        private final int[] vars;
+        private final int[][] constraints;
+        private final int[] targets;
+        private final int[][] varConstraints;
+
+        // solutions[k]: layouts with k mines; mineCounts[v][k]: those layouts with a mine on v
+        private double[] solutions;
+        private double[][] mineCounts;
+
+        private final boolean[] assigned;
+        private final int[] remainingMines;
+        private final int[] remainingCells;
+        private long nodesLeft;
+
+        Component(int[] globalVars, List<int[]> globalConstraints, IntList targetList) {
+            // Local numbering; variables were created in scan order, so neighbours stay close
+            int maxVar = 0;
+            for (int v : globalVars) {
+                maxVar = Math.max(maxVar, v);
+            }
+            int[] globalToLocal = new int[maxVar + 1];
+            for (int i = 0; i < globalVars.length; i++) {
+                globalToLocal[globalVars[i]] = i;
+            }
+
+            this.vars = globalVars;
+            this.constraints = new int[globalConstraints.size()][];
+            this.targets = targetList.toArray();
+
+            int[] degree = new int[vars.length];
+            for (int c = 0; c < constraints.length; c++) {
+                int[] global = globalConstraints.get(c);
+                constraints[c] = new int[global.length];
+                for (int i = 0; i < global.length; i++) {
+                    constraints[c][i] = globalToLocal[global[i]];
+                    degree[constraints[c][i]]++;
+                }
+            }
+
+            this.varConstraints = new int[vars.length][];
+            for (int v = 0; v < vars.length; v++) {
+                varConstraints[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+            for (int c = 0; c < constraints.length; c++) {
+                for (int v : constraints[c]) {
+                    varConstraints[v][degree[v]++] = c;
+                }
+            }
+
+            this.assigned = new boolean[vars.length];
+            this.remainingMines = targets.clone();
+            this.remainingCells = new int[constraints.length];
+            for (int c = 0; c < constraints.length; c++) {
+                remainingCells[c] = constraints[c].length;
+            }
+        }
+
+        void enumerate(long maxNodes) {
+            solutions = new double[vars.length + 1];
+            mineCounts = new double[vars.length][vars.length + 1];
+            nodesLeft = maxNodes;
+            search(0, 0);
+        }
+
+        private void search(int v, int mines) {
+            if (--nodesLeft < 0) {
+                throw new FrontierTooLargeException("Frontier component of " + vars.length
+                        + " cells needs more than the search budget");
+            }
+
+            if (v == vars.length) {
+                solutions[mines]++;
+                for (int i = 0; i < vars.length; i++) {
+                    if (assigned[i]) {
+                        mineCounts[i][mines]++;
+                    }
+                }
+                return;
+            }
+
+            // Safe first, then mine; assigned[v] holds "is a mine"
+            for (int mine = 0; mine <= 1; mine++) {
+                assigned[v] = mine == 1;
+                if (apply(v, mine)) {
+                    search(v + 1, mines + mine);
+                }
+                undo(v, mine);
+            }
+            assigned[v] = false;
+        }
+
+        // Returns false as soon as a constraint can no longer be met
+        private boolean apply(int v, int mine) {
+            boolean ok = true;
+            for (int c : varConstraints[v]) {
+                remainingCells[c]--;
+                remainingMines[c] -= mine;
+                if (remainingMines[c] < 0 || remainingMines[c] > remainingCells[c]) {
+                    ok = false;
+                }
+            }
+            return ok;
+        }
+
+        private void undo(int v, int mine) {
+            for (int c : varConstraints[v]) {
+                remainingCells[c]++;
+                remainingMines[c] += mine;
+            }
+        }
+    }
+
+    // Growable primitive int list, avoids boxing on big frontiers
+    private static final class IntList
+    {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = java.util.Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return java.util.Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package spinner.minesweeper;
+
+/*Baseline player: reveals a random hidden, unflagged cell
+*/
+
+import java.util.SplittableRandom;
+
+public class RandomPlayer implements Player
+{
+    private static final int MAX_TRIES = 32;
+
+    @Override
+    public void move(Minesweeper game, SplittableRandom random) {
+        int cell = pickHiddenCell(game, random);
+        if (cell >= 0) {
+            game.revealCell(cell / game.getCols(), cell % game.getCols());
+        }
+    }
+
+    // Random probing first; late in a big game fall back to a scan from a random start
+    static int pickHiddenCell(Minesweeper game, SplittableRandom random) {
+        int cols = game.getCols();
+        int cells = game.getRows() * cols;
+
+        for (int i = 0; i < MAX_TRIES; i++) {
+            int cell = random.nextInt(cells);
+            if (isHidden(game, cell / cols, cell % cols)) {
+                return cell;
+            }
+        }
+
+        int start = random.nextInt(cells);
+        for (int i = 0; i < cells; i++) {
+            int cell = (start + i) % cells;
+            if (isHidden(game, cell / cols, cell % cols)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isHidden(Minesweeper game, int row, int col) {
+        return !game.isRevealed(row, col) && !game.isFlagged(row, col);
+    }
+}
@@ -0,0 +1,99 @@
+package spinner.minesweeper;
+
+/*Bounded multi-producer, single-consumer ring of fixed-size byte records
+- Producers claim a slot with a CAS on the tail, fill it, then publish it
+- The consumer reads slots in order as soon as each one is published
+- No locks and no allocation after construction; a full ring makes producers wait
+- A consumer that stops for good abandons the ring, so waiting producers give up instead of hanging
+*/
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+final class RecordRing
+{
+    private final int capacity;
+    private final int mask;
+    private final int recordSize;
+    private final ByteBuffer slots;
+    // published[i] == sequence once the slot for that sequence is filled
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean abandoned;
+
+    RecordRing(int capacity, int recordSize) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.recordSize = recordSize;
+        this.slots = ByteBuffer.allocate(Math.multiplyExact(capacity, recordSize)).order(DatasetFormat.ORDER);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, i - (long) capacity);
+        }
+    }
+
+    // Blocks (spinning, then parking) while the ring is full; returns the claimed sequence,
+    // or -1 once the consumer has abandoned the ring
+    long claim() {
+        int spins = 0;
+        while (true) {
+            long t = tail.get();
+            if (abandoned) {
+                return -1;
+            } else if (t - head >= capacity) {
+                backOff(spins++);
+            } else if (tail.compareAndSet(t, t + 1)) {
+                return t;
+            }
+        }
+    }
+
+    // Byte offset of a claimed slot inside buffer()
+    int offset(long sequence) {
+        return (int) (sequence & mask) * recordSize;
+    }
+
+    ByteBuffer buffer() {
+        return slots;
+    }
+
+    void publish(long sequence) {
+        published.lazySet((int) (sequence & mask), sequence);
+    }
+
+    // Consumer side: offset of the next record, or -1 if it is not published yet
+    int peek() {
+        long h = head;
+        return published.get((int) (h & mask)) == h ? offset(h) : -1;
+    }
+
+    void advance() {
+        head = head + 1;
+    }
+
+    boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    // Consumer side: nothing will be read any more
+    void abandon() {
+        abandoned = true;
+    }
+
+    static void backOff(int spins) {
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else if (spins < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000L);
+        }
+    }
+}
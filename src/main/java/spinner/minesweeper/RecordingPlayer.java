@@ -0,0 +1,82 @@
+package spinner.minesweeper;
+
+/*Wraps a Player and turns its moves into dataset records
+- Before each move: encodes the observation and the true bomb layout
+- After it: the action is the first cell the move changed (reveal or flag toggle)
+- Records wait in a reusable per-player buffer until the game ends, then go out with the outcome
+- Games abandoned before they end (move limit) are dropped
+*/
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+public class RecordingPlayer implements Player
+{
+    private final Player delegate;
+    private final DatasetWriter writer;
+    private final DatasetFormat format;
+    private final BoardEncoder encoder;
+
+    private ByteBuffer pending;
+    private int pendingCount;
+    private Minesweeper current;
+
+    public RecordingPlayer(Player delegate, DatasetWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+        this.format = writer.getFormat();
+        this.encoder = new BoardEncoder(format.getLayout());
+        this.pending = ByteBuffer.allocate(format.getRecordSize() * 16).order(DatasetFormat.ORDER);
+    }
+
+    @Override
+    public void move(Minesweeper game, SplittableRandom random) {
+        if (game != current) {
+            current = game;
+            pendingCount = 0;
+            game.enableChangeTracking();
+            game.acknowledgeChanges();
+        }
+
+        int base = reserve();
+        encoder.encode(game, pending, base);
+        BoardEncoder.encodeMines(game, pending, base + format.labelOffset());
+
+        delegate.move(game, random);
+
+        if (game.getChangedCount() > 0) {
+            int cell = game.getChangedCell(0);
+            boolean revealed = game.isRevealed(cell / game.getCols(), cell % game.getCols());
+
+            pending.putInt(base + format.actionOffset(), cell);
+            pending.put(base + format.actionKindOffset(),
+                    revealed ? DatasetFormat.ACTION_REVEAL : DatasetFormat.ACTION_FLAG);
+            pendingCount++;
+        }
+        game.acknowledgeChanges();
+
+        if (game.getGameState() != Minesweeper.GameState.PLAYING) {
+            flush(game.getGameState());
+        }
+    }
+
+    private void flush(Minesweeper.GameState outcome) {
+        int size = format.getRecordSize();
+        for (int i = 0; i < pendingCount; i++) {
+            pending.put(i * size + format.outcomeOffset(), (byte) outcome.ordinal());
+            writer.append(pending, i * size);
+        }
+        pendingCount = 0;
+    }
+
+    // Byte offset of the next record slot, growing the buffer past the longest game so far
+    private int reserve() {
+        int size = format.getRecordSize();
+        if ((pendingCount + 1) * size > pending.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2).order(DatasetFormat.ORDER);
+            bigger.put(0, pending, 0, pendingCount * size);
+            pending = bigger;
+        }
+        return pendingCount * size;
+    }
+}
@@ -0,0 +1,71 @@
+package spinner.minesweeper;
+
+/*Outcome of a single revealCell call
+- What happened to the clicked cell (CellResult)
+- How many cells were opened, and which ones (index = row * cols + col)
+- Owned and reused by its game: only valid until the next reveal on that game
+*/
+
+public final class RevealResult
+{
+    private Minesweeper.CellResult result;
+    private int[] openedCells;
+    private int openedCount;
+
+    RevealResult() {
+        openedCells = new int[16];
+    }
+
+    public Minesweeper.CellResult getResult() {
+        return result;
+    }
+
+    public int getOpenedCount() {
+        return openedCount;
+    }
+
+    public int getOpenedCell(int i) {
+        if (i < 0 || i >= openedCount) {
+            throw new IndexOutOfBoundsException("Opened cell " + i + " of " + openedCount);
+        }
+        return openedCells[i];
+    }
+
+    // Copies the opened cell indices into dest, returns how many were copied
+    public int copyOpenedCells(int[] dest, int offset) {
+        int n = Math.min(openedCount, dest.length - offset);
+        System.arraycopy(openedCells, 0, dest, offset, n);
+        return n;
+    }
+
+    public boolean openedAny() {
+        return openedCount > 0;
+    }
+
+    void reset(Minesweeper.CellResult newResult) {
+        result = newResult;
+        openedCount = 0;
+    }
+
+    void setResult(Minesweeper.CellResult newResult) {
+        result = newResult;
+    }
+
+    void add(int cell) {
+        if (openedCount == openedCells.length) {
+            // Only grows past the largest cascade seen so far, then stays put
+            openedCells = java.util.Arrays.copyOf(openedCells, openedCells.length * 2);
+        }
+        openedCells[openedCount++] = cell;
+    }
+
+    // The opened list doubles as the flood fill work queue
+    int get(int i) {
+        return openedCells[i];
+    }
+
+    @Override
+    public String toString() {
+        return result + " (" + openedCount + " opened)";
+    }
+}
@@ -0,0 +1,30 @@
+package spinner.minesweeper;
+
+/*Player that uses the model's own deductions
+- Runs autoFlag and autoReveal; if neither changes anything, guesses like RandomPlayer
+*/
+
+import java.util.SplittableRandom;
+
+public class RuleBasedPlayer implements Player
+{
+    @Override
+    public void move(Minesweeper game, SplittableRandom random) {
+        int revealedBefore = game.getRevealedSafeCount();
+        int flagsBefore = game.getFlagCount();
+
+        game.autoFlag();
+        game.autoReveal();
+
+        if (game.getGameState() != Minesweeper.GameState.PLAYING) {
+            return;
+        }
+
+        if (game.getRevealedSafeCount() == revealedBefore && game.getFlagCount() == flagsBefore) {
+            int cell = RandomPlayer.pickHiddenCell(game, random);
+            if (cell >= 0) {
+                game.revealCell(cell / game.getCols(), cell % game.getCols());
+            }
+        }
+    }
+}
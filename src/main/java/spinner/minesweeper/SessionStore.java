@@ -0,0 +1,385 @@
+package spinner.minesweeper;
+
+/*Games keyed by session id - a bounded hot tier on the heap, everything else parked in a spill file
+- The hot tier is an LRU split into shards, each with its own lock, so sessions never share one lock
+- Games pushed out of the hot tier are bit-packed (Minesweeper.pack) into a memory-mapped file
+  and unpacked again by the next acquire, so a parked game costs only a slot in a primitive index
+- Spill slots come in power-of-two size classes with free lists, so the file stops growing once
+  the mix of board sizes settles
+- acquire pins a game until release; pinned games are never evicted, and removing one only takes
+  effect at its last release (until then it is gone for acquire, but still counted by size)
+- The spill file is scratch space: it is deleted on close and not meant to survive a restart
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class SessionStore implements AutoCloseable
+{
+    private static final int SHARDS = 16;
+    // Spill file is mapped in windows of this size; no slot crosses a window
+    private static final long WINDOW_SIZE = 64L << 20;
+    private static final int MIN_SLOT_SHIFT = 6;
+    private static final int SIZE_CLASSES = Long.numberOfTrailingZeros(WINDOW_SIZE) - MIN_SLOT_SHIFT + 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int shardCapacity;
+    private final Shard[] shards = new Shard[SHARDS];
+
+    // Spill space - guarded by `this`
+    private MappedByteBuffer[] windows = new MappedByteBuffer[4];
+    private long fileEnd;
+    private final long[][] freeSlots = new long[SIZE_CLASSES][];
+    private final int[] freeCounts = new int[SIZE_CLASSES];
+
+    public SessionStore(Path file, int maxHotSessions) throws IOException {
+        if (maxHotSessions < SHARDS) {
+            throw new IllegalArgumentException("Hot tier needs room for at least " + SHARDS + " sessions");
+        }
+
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.shardCapacity = (maxHotSessions + SHARDS - 1) / SHARDS;
+
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            freeSlots[i] = new long[16];
+        }
+    }
+
+    // Adds or replaces a session; the game must not be in use while it is stored
+    public void put(long id, Minesweeper game) {
+        if (game.packedSize() > WINDOW_SIZE) {
+            throw new IllegalArgumentException("Board too large to park: " + game.getSpec());
+        }
+        if (id == SlotIndex.EMPTY) {
+            throw new IllegalArgumentException("Reserved session id: " + id);
+        }
+
+        Shard shard = shard(id);
+        synchronized (shard) {
+            long slot = shard.parked.remove(id);
+            if (slot != SlotIndex.EMPTY) {
+                freeSlot(slot);
+            }
+            shard.hot.put(id, new Entry(game));
+            shard.evictOverflow();
+        }
+    }
+
+    // The session's game, loaded back from the spill file if needed, or null if there is none.
+    // Pinned until the matching release
+    public Minesweeper acquire(long id) {
+        Shard shard = shard(id);
+        synchronized (shard) {
+            Entry entry = shard.hot.get(id);
+            if (entry != null && entry.removed) {
+                return null;
+            }
+            if (entry == null) {
+                long slot = shard.parked.remove(id);
+                if (slot == SlotIndex.EMPTY) {
+                    return null;
+                }
+                entry = new Entry(load(slot));
+                freeSlot(slot);
+                shard.hot.put(id, entry);
+            }
+
+            entry.pins++;
+            shard.evictOverflow();
+            return entry.game;
+        }
+    }
+
+    public void release(long id) {
+        Shard shard = shard(id);
+        synchronized (shard) {
+            Entry entry = shard.hot.get(id);
+            if (entry != null && entry.pins > 0) {
+                entry.pins--;
+                if (entry.pins == 0 && entry.removed) {
+                    shard.hot.remove(id);
+                }
+            }
+        }
+    }
+
+    // A pinned session is dropped at its last release; acquire no longer finds it from now on
+    public boolean remove(long id) {
+        Shard shard = shard(id);
+        synchronized (shard) {
+            Entry entry = shard.hot.get(id);
+            if (entry != null) {
+                if (entry.removed) {
+                    return false;
+                }
+                if (entry.pins > 0) {
+                    entry.removed = true;
+                } else {
+                    shard.hot.remove(id);
+                }
+                return true;
+            }
+
+            long slot = shard.parked.remove(id);
+            if (slot == SlotIndex.EMPTY) {
+                return false;
+            }
+            freeSlot(slot);
+            return true;
+        }
+    }
+
+    public int size() {
+        return getHotCount() + getParkedCount();
+    }
+
+    public int getHotCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.hot.size();
+            }
+        }
+        return count;
+    }
+
+    public int getParkedCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.parked.size();
+            }
+        }
+        return count;
+    }
+
+    public synchronized long getSpillFileSize() {
+        return fileEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            windows = new MappedByteBuffer[0];
+        }
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    // Usage: SessionStore [games] [spill file] - parks that many expert games and reports the heap they keep
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path spill = args.length > 1 ? Path.of(args[1]) : Files.createTempFile("minesweeper-sessions", ".spill");
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        try (SessionStore store = new SessionStore(spill, SHARDS)) {
+            for (int id = 1; id <= games; id++) {
+                store.put(id, new Minesweeper(BoardSpec.EXPERT, id, false));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long heap = usedHeap() - heapBefore;
+
+            System.out.printf("%d games stored in %.3f s: %d hot, %d parked%n", games, seconds, store.getHotCount(),
+                    store.getParkedCount());
+            System.out.printf("Heap kept: %.1f MB (%.1f bytes per game), spill file: %.1f MB%n", heap / 1e6,
+                    heap / (double) games, store.getSpillFileSize() / 1e6);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private Shard shard(long id) {
+        return shards[(int) (id ^ (id >>> 32)) & (SHARDS - 1)];
+    }
+
+    // Slot handle: file offset, with the size class in the low bits (offsets are 64-byte aligned)
+    private long park(Minesweeper game) {
+        int size = game.packedSize();
+        int sizeClass = Math.max(0, 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SLOT_SHIFT);
+        long offset = allocate(sizeClass);
+
+        game.pack(window(offset), (int) (offset % WINDOW_SIZE));
+        return offset | sizeClass;
+    }
+
+    private Minesweeper load(long slot) {
+        long offset = slot & ~((1L << MIN_SLOT_SHIFT) - 1);
+        return Minesweeper.unpack(window(offset), (int) (offset % WINDOW_SIZE));
+    }
+
+    private synchronized long allocate(int sizeClass) {
+        if (freeCounts[sizeClass] > 0) {
+            return freeSlots[sizeClass][--freeCounts[sizeClass]];
+        }
+
+        long size = 1L << (sizeClass + MIN_SLOT_SHIFT);
+        if (fileEnd % WINDOW_SIZE + size > WINDOW_SIZE) {
+            fileEnd = (fileEnd / WINDOW_SIZE + 1) * WINDOW_SIZE;
+        }
+        long offset = fileEnd;
+        fileEnd += size;
+        return offset;
+    }
+
+    private synchronized void freeSlot(long slot) {
+        int sizeClass = (int) (slot & ((1L << MIN_SLOT_SHIFT) - 1));
+        if (freeCounts[sizeClass] == freeSlots[sizeClass].length) {
+            freeSlots[sizeClass] = java.util.Arrays.copyOf(freeSlots[sizeClass], freeCounts[sizeClass] * 2);
+        }
+        freeSlots[sizeClass][freeCounts[sizeClass]++] = slot & ~((1L << MIN_SLOT_SHIFT) - 1);
+    }
+
+    // Maps windows lazily; mapping past the end grows the file
+    private synchronized MappedByteBuffer window(long offset) {
+        int index = (int) (offset / WINDOW_SIZE);
+        if (index >= windows.length) {
+            windows = java.util.Arrays.copyOf(windows, Math.max(index + 1, windows.length * 2));
+        }
+
+        if (windows[index] == null) {
+            try {
+                windows[index] = channel.map(FileChannel.MapMode.READ_WRITE, index * WINDOW_SIZE, WINDOW_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map " + file, e);
+            }
+        }
+        return windows[index];
+    }
+
+    private static final class Entry
+    {
+        final Minesweeper game;
+        int pins;
+        // Removed while pinned; dropped by the last release
+        boolean removed;
+
+        Entry(Minesweeper game) {
+            this.game = game;
+        }
+    }
+
+    private final class Shard
+    {
+        // Access order, so the first entry is the least recently used
+        final LinkedHashMap<Long, Entry> hot = new LinkedHashMap<>(16, 0.75f, true);
+        final SlotIndex parked = new SlotIndex();
+
+        // Caller holds the shard lock
+        void evictOverflow() {
+            Iterator<Map.Entry<Long, Entry>> it = hot.entrySet().iterator();
+            while (hot.size() > shardCapacity && it.hasNext()) {
+                Map.Entry<Long, Entry> eldest = it.next();
+                if (eldest.getValue().pins == 0) {
+                    parked.put(eldest.getKey(), park(eldest.getValue().game));
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // Open-addressed long -> long map, so a parked session costs two longs instead of boxed objects
+    private static final class SlotIndex
+    {
+        static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newTable(16);
+        private long[] values = new long[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void put(long key, long value) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                grow();
+            }
+
+            int i = find(key);
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        // Returns the old value, or EMPTY
+        long remove(long key) {
+            int i = find(key);
+            if (keys[i] == EMPTY) {
+                return EMPTY;
+            }
+            long value = values[i];
+            size--;
+
+            // Backward shift, so lookups never need tombstones
+            int mask = keys.length - 1;
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            return value;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newTable(oldKeys.length * 2);
+            values = new long[oldKeys.length * 2];
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private static long[] newTable(int length) {
+            long[] table = new long[length];
+            java.util.Arrays.fill(table, EMPTY);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package spinner.minesweeper;
+
+/*Counters for a batch of simulated games
+- Each worker fills its own instance, so recording needs no locks or atomics
+- Instances are merged once the workers are done
+*/
+
+public final class SimulationStats
+{
+    private long games;
+    private long wins;
+    private long losses;
+    private long unfinished;
+    private long moves;
+    private long cellsOpened;
+    private long maxMoves;
+    private long gameNanos;
+
+    void record(Minesweeper game, int gameMoves, long nanos) {
+        games++;
+        if (game.getGameState() == Minesweeper.GameState.WON) {
+            wins++;
+        } else if (game.getGameState() == Minesweeper.GameState.LOST) {
+            losses++;
+        } else {
+            unfinished++;
+        }
+
+        moves += gameMoves;
+        cellsOpened += game.getRevealedSafeCount();
+        maxMoves = Math.max(maxMoves, gameMoves);
+        gameNanos += nanos;
+    }
+
+    SimulationStats merge(SimulationStats other) {
+        games += other.games;
+        wins += other.wins;
+        losses += other.losses;
+        unfinished += other.unfinished;
+        moves += other.moves;
+        cellsOpened += other.cellsOpened;
+        maxMoves = Math.max(maxMoves, other.maxMoves);
+        gameNanos += other.gameNanos;
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    // Games cut off by the move limit
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getCellsOpened() {
+        return cellsOpened;
+    }
+
+    public long getMaxMoves() {
+        return maxMoves;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0.0 : (double) wins / games;
+    }
+
+    public double getAverageMoves() {
+        return games == 0 ? 0.0 : (double) moves / games;
+    }
+
+    public double getAverageCellsOpened() {
+        return games == 0 ? 0.0 : (double) cellsOpened / games;
+    }
+
+    // Mean time spent inside a single game, summed over all workers
+    public double getAverageGameMicros() {
+        return games == 0 ? 0.0 : gameNanos / 1000.0 / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games=%d won=%d (%.2f%%) lost=%d unfinished=%d avgMoves=%.2f maxMoves=%d"
+                        + " avgOpened=%.1f avgGame=%.2fus",
+                games, wins, getWinRate() * 100, losses, unfinished, getAverageMoves(), maxMoves,
+                getAverageCellsOpened(), getAverageGameMicros());
+    }
+}
@@ -0,0 +1,159 @@
+package spinner.minesweeper;
+
+/*Headless batch runner - plays many games without any UI
+- Splits the batch into fork-join tasks that run on every core
+- Each leaf task has its own player, random stream and stats; results are merged on join
+- Every game gets its own seed from the leaf's stream, so a run is reproducible from one seed
+- main() is a command line entry point that reports games per second
+- With a GameLog set, every game is recorded and appended to it
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+public class Simulator
+{
+    // Games per leaf task - large enough that fork/join overhead disappears
+    private static final int LEAF_GAMES = 256;
+
+    private final BoardSpec spec;
+    private final Supplier<? extends Player> players;
+    private final ForkJoinPool pool;
+    private GameLog gameLog;
+
+    public Simulator(BoardSpec spec, Supplier<? extends Player> players) {
+        this(spec, players, ForkJoinPool.commonPool());
+    }
+
+    public Simulator(BoardSpec spec, Supplier<? extends Player> players, ForkJoinPool pool) {
+        this.spec = spec;
+        this.players = players;
+        this.pool = pool;
+    }
+
+    // Records every game played from now on into log; null turns recording off
+    public void setGameLog(GameLog log) {
+        this.gameLog = log;
+    }
+
+    public SimulationStats run(long games, long seed) {
+        return pool.invoke(new BatchTask(0, games, new SplittableRandom(seed)));
+    }
+
+    // Plays one game to the end, or until the move limit if the player stalls
+    static int playGame(Minesweeper game, Player player, SplittableRandom random) {
+        int maxMoves = 2 * game.getSpec().getCellCount() + 16;
+        int moves = 0;
+
+        while (game.getGameState() == Minesweeper.GameState.PLAYING && moves < maxMoves) {
+            player.move(game, random);
+            moves++;
+        }
+        return moves;
+    }
+
+    private class BatchTask extends RecursiveTask<SimulationStats>
+    {
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        BatchTask(long from, long to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= LEAF_GAMES) {
+                return playBatch();
+            }
+
+            long mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(from, mid, random.split());
+            BatchTask right = new BatchTask(mid, to, random);
+            left.fork();
+            SimulationStats stats = right.compute();
+            return stats.merge(left.join());
+        }
+
+        private SimulationStats playBatch() {
+            SimulationStats stats = new SimulationStats();
+            Player player = players.get();
+
+            for (long i = from; i < to; i++) {
+                long start = System.nanoTime();
+                Minesweeper game = new Minesweeper(spec, random.nextLong());
+                if (gameLog != null) {
+                    game.enableRecording();
+                }
+
+                int moves = playGame(game, player, random);
+                stats.record(game, moves, System.nanoTime() - start);
+
+                if (gameLog != null) {
+                    try {
+                        gameLog.append(game.getRecording());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            return stats;
+        }
+    }
+
+    // Player factories for the command line tools
+    static Supplier<? extends Player> playerByName(String name) {
+        if ("random".equals(name)) {
+            return RandomPlayer::new;
+        } else if ("rules".equals(name)) {
+            return RuleBasedPlayer::new;
+        } else if ("probability".equals(name)) {
+            return ProbabilityPlayer::new;
+        }
+        throw new IllegalArgumentException("Unknown player: " + name + " (expected random, rules or probability)");
+    }
+
+    // Usage: Simulator [games] [rows] [cols] [bombs] [random|rules|probability] [threads] [seed] [log]
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : BoardSpec.BEGINNER.getRows();
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : BoardSpec.BEGINNER.getCols();
+        int bombs = args.length > 3 ? Integer.parseInt(args[3]) : BoardSpec.BEGINNER.getBombs();
+        String playerName = args.length > 4 ? args[4] : "rules";
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+        GameLog log = args.length > 7 ? new GameLog(Path.of(args[7])) : null;
+        GameMetrics.register();
+
+        Supplier<? extends Player> players = playerByName(playerName);
+
+        BoardSpec spec = new BoardSpec(rows, cols, bombs);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Simulator simulator = new Simulator(spec, players, pool);
+            simulator.setGameLog(log);
+
+            long start = System.nanoTime();
+            SimulationStats stats = simulator.run(games, seed);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("board=" + spec + " player=" + playerName + " threads=" + threads + " seed=" + seed);
+            System.out.println(stats);
+            System.out.printf("%.3f s, %.0f games/s, %.0f moves/s%n",
+                    seconds, stats.getGames() / seconds, stats.getMoves() / seconds);
+        } finally {
+            pool.shutdown();
+            if (log != null) {
+                log.close();
+            }
+        }
+    }
+}
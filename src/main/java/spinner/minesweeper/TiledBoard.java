@@ -0,0 +1,764 @@
+package spinner.minesweeper;
+
+/*Game engine for giant boards - the grid is cut into 64x64 tiles and every move runs on a ForkJoinPool
+- Same bomb layout as Minesweeper for the same (spec, seed), so the two can be checked against each other
+- A tile row is one long, so each layer of a tile is a long[64] and most work is word operations
+- A reveal's cascade is a parallel frontier BFS: a tile task floods its own part 64 cells at a time (BlockFlood) and
+  mails the cells its zeros reach past an edge to the neighbour tile's inbox (a lock-free bit OR)
+- A tile is worked on by at most one task at a time, so its layers need no locks
+- autoFlag/autoReveal are rounds of the single-cell rule over all tiles at once, to a fixpoint; only tiles
+  next to last round's changes are looked at again. There is no pairwise rule, so on some positions they
+  stop short of what DeductionEngine finds
+- One move at a time: only the work inside a move is parallel, the board itself is not thread-safe
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+public final class TiledBoard
+{
+    static final int TILE_SIZE = 64;
+    private static final int TILE_SHIFT = 6;
+    // Tiles per leaf of a whole-board pass - a tile is only a few microseconds of work
+    private static final int LEAF_TILES = 8;
+
+    // Layers the deduction passes read across tile edges (see word)
+    private static final int MARKED = 0;
+    private static final int UNKNOWN = 1;
+    private static final int SATURATED = 2;
+    private static final int SATISFIED = 3;
+
+    private final BoardSpec spec;
+    private final long seed;
+    private final int rows;
+    private final int cols;
+    private final int tileRows;
+    private final int tileCols;
+    private final Tile[] tiles;
+    private final ForkJoinPool pool;
+
+    private Minesweeper.GameState gameState = Minesweeper.GameState.PLAYING;
+    // Set by a flood task that opened a bomb - only deduced cells can be bombs, and only under wrong flags
+    private volatile boolean hitBomb;
+    private int openedCount;
+
+    public TiledBoard(BoardSpec spec, long seed) {
+        this(spec, seed, ForkJoinPool.commonPool());
+    }
+
+    public TiledBoard(BoardSpec spec, long seed, ForkJoinPool pool) {
+        this.spec = spec;
+        this.seed = seed;
+        this.pool = pool;
+        this.rows = spec.getRows();
+        this.cols = spec.getCols();
+        this.tileRows = (rows + TILE_SIZE - 1) >>> TILE_SHIFT;
+        this.tileCols = (cols + TILE_SIZE - 1) >>> TILE_SHIFT;
+        this.tiles = new Tile[tileRows * tileCols];
+
+        // A tile is exactly one word wide, so tile column tc of a row is word tc of the layout's row
+        BitGrid layout = Minesweeper.layOutBombs(spec, seed);
+        forEachTile(allTiles(), t -> {
+            Tile tile = new Tile(t / tileCols, t % tileCols);
+            tile.load(layout);
+            tiles[t] = tile;
+        });
+    }
+
+    public Minesweeper.CellResult revealCell(int row, int col) {
+        openedCount = 0;
+        if (gameState != Minesweeper.GameState.PLAYING || isRevealed(row, col)) {
+            return Minesweeper.CellResult.ALREADY_REVEALED;
+        }
+        if (isFlagged(row, col)) {
+            return Minesweeper.CellResult.FLAGGED;
+        }
+
+        Tile tile = tile(row, col);
+        long bit = 1L << col;
+        if (hasBomb(row, col) || countAdjacentBombs(row, col) != 0) {
+            tile.open(row & (TILE_SIZE - 1), bit);
+            openedCount = 1;
+            updateState();
+            return hasBomb(row, col) ? Minesweeper.CellResult.BOMB : Minesweeper.CellResult.NUMBER;
+        }
+
+        long before = getRevealedCount();
+        tile.inbox.set(row & (TILE_SIZE - 1), bit);
+        pool.invoke(new Flood(List.of(tile)));
+        openedCount = (int) (getRevealedCount() - before);
+
+        updateState();
+        return Minesweeper.CellResult.EMPTY;
+    }
+
+    public void flagCell(int row, int col) {
+        if (gameState != Minesweeper.GameState.PLAYING || isRevealed(row, col)) {
+            return;
+        }
+
+        Tile tile = tile(row, col);
+        int r = row & (TILE_SIZE - 1);
+        long bit = 1L << col;
+        int delta = (tile.flagged[r] & bit) != 0 ? -1 : 1;
+
+        tile.flagged[r] ^= bit;
+        tile.flags += delta;
+        if ((tile.bombs[r] & bit) != 0) {
+            tile.correctFlags += delta;
+        }
+    }
+
+    // Flags every cell the single-cell rule proves to be a mine, to a fixpoint; returns the number of flags placed
+    public int autoFlag() {
+        return deduce(false);
+    }
+
+    // Reveals every cell the single-cell rule proves safe, to a fixpoint; returns the number of cells proven
+    // safe (their cascades open more). Mines it proves along the way count without being flagged
+    public int autoReveal() {
+        return deduce(true);
+    }
+
+    public Minesweeper.GameState getGameState() {
+        return gameState;
+    }
+
+    public BoardSpec getSpec() {
+        return spec;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // Cells opened by the last revealCell, cascade included
+    public int getOpenedCount() {
+        return openedCount;
+    }
+
+    public boolean isRevealed(int row, int col) {
+        return bit(tile(row, col).revealed, row, col);
+    }
+
+    public boolean isFlagged(int row, int col) {
+        return bit(tile(row, col).flagged, row, col);
+    }
+
+    public boolean hasBomb(int row, int col) {
+        return bit(tile(row, col).bombs, row, col);
+    }
+
+    public int countAdjacentBombs(int row, int col) {
+        int cell = ((row & (TILE_SIZE - 1)) << TILE_SHIFT) + (col & (TILE_SIZE - 1));
+        return BitKernels.count(tile(row, col).counts, cell);
+    }
+
+    public int getRevealedSafeCount() {
+        int count = 0;
+        for (Tile tile : tiles) {
+            count += tile.revealedSafe;
+        }
+        return count;
+    }
+
+    public int getFlagCount() {
+        int count = 0;
+        for (Tile tile : tiles) {
+            count += tile.flags;
+        }
+        return count;
+    }
+
+    public int getCorrectFlagCount() {
+        int count = 0;
+        for (Tile tile : tiles) {
+            count += tile.correctFlags;
+        }
+        return count;
+    }
+
+    // BoardEncoder's layouts, written a tile per task - see BoardEncoder.encode(TiledBoard, ...)
+    void encode(BoardEncoder.Layout layout, float[] dest, int offset) {
+        int cells = spec.getCellCount();
+        int channels = layout.getChannels();
+
+        forEachTile(allTiles(), t -> {
+            Tile tile = tiles[t];
+            for (int r = 0; r < tile.height; r++) {
+                int base = offset + (tile.firstRow + r) * cols + tile.firstCol;
+                for (int c = 0; c < tile.width; c++) {
+                    int code = tile.cellCode(r, c);
+                    if (layout == BoardEncoder.Layout.SCALAR) {
+                        dest[base + c] = BoardEncoder.scalar(code);
+                        continue;
+                    }
+                    for (int channel = 0; channel < channels; channel++) {
+                        dest[base + channel * cells + c] = channel == code ? 1f : 0f;
+                    }
+                }
+            }
+        });
+    }
+
+    // Usage: TiledBoard [rows] [cols] [bombs] [threads] [seed] - times one game's worth of whole-board moves
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int bombs = args.length > 2 ? Integer.parseInt(args[2]) : (int) ((long) rows * cols / 10);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        BoardSpec spec = new BoardSpec(rows, cols, bombs);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        TiledBoard board = new TiledBoard(spec, seed, pool);
+        long built = System.nanoTime();
+
+        // First click on the zero closest to the middle row's start, so the cascade has somewhere to go
+        int row = rows / 2;
+        int col = 0;
+        while (col < cols - 1 && (board.hasBomb(row, col) || board.countAdjacentBombs(row, col) != 0)) {
+            col++;
+        }
+        board.revealCell(row, col);
+        long revealed = System.nanoTime();
+        int flags = board.autoFlag();
+        long flagged = System.nanoTime();
+        int safe = board.autoReveal();
+        long solved = System.nanoTime();
+        new BoardEncoder(BoardEncoder.Layout.SCALAR).encode(board, new float[spec.getCellCount()], 0);
+        long encoded = System.nanoTime();
+        pool.shutdown();
+
+        System.out.println("board=" + spec + " tiles=" + board.tiles.length + " threads=" + threads + " seed=" + seed);
+        System.out.printf("build %.1f ms, reveal %d cells %.1f ms, autoFlag %d %.1f ms, autoReveal %d %.1f ms, "
+                + "encode %.1f ms, %s with %d safe cells open%n", (built - start) / 1e6, board.getOpenedCount(),
+                (revealed - built) / 1e6, flags, (flagged - revealed) / 1e6, safe, (solved - flagged) / 1e6,
+                (encoded - solved) / 1e6, board.getGameState(), board.getRevealedSafeCount());
+    }
+
+    private long getRevealedCount() {
+        long count = 0;
+        for (Tile tile : tiles) {
+            count += tile.revealedCount;
+        }
+        return count;
+    }
+
+    private void updateState() {
+        if (hitBomb) {
+            gameState = Minesweeper.GameState.LOST;
+        } else if (getRevealedSafeCount() == spec.getCellCount() - spec.getBombs()) {
+            gameState = Minesweeper.GameState.WON;
+        }
+    }
+
+    // Rounds of: classify the numbered cells (read-only, every tile at once), then act on the cells next to
+    // them (each tile writes only its own layers), then run the cascades of any reveals
+    private int deduce(boolean reveal) {
+        if (gameState != Minesweeper.GameState.PLAYING) {
+            return 0;
+        }
+
+        int changes = 0;
+        boolean[] changed = new boolean[tiles.length];
+        java.util.Arrays.fill(changed, true);
+        for (Tile tile : tiles) {
+            tile.changed = false;
+        }
+
+        // A classification reads the 3x3 tiles around it, and acting reads the classifications around
+        // it, so after the first round only tiles within two of a change can find anything new
+        boolean any = true;
+        while (any && !hitBomb) {
+            boolean[] classified = grow(changed);
+            int[] acting = list(grow(classified));
+            forEachTile(list(classified), t -> tiles[t].classify());
+            forEachTile(acting, t -> tiles[t].act(reveal));
+
+            List<Tile> seeded = new ArrayList<>();
+            for (int t : acting) {
+                changes += tiles[t].changes;
+                if (tiles[t].seeded) {
+                    tiles[t].seeded = false;
+                    seeded.add(tiles[t]);
+                }
+            }
+            if (!seeded.isEmpty()) {
+                pool.invoke(new Flood(seeded));
+            }
+
+            any = false;
+            for (int t = 0; t < tiles.length; t++) {
+                changed[t] = tiles[t].changed;
+                tiles[t].changed = false;
+                any |= changed[t];
+            }
+        }
+
+        for (Tile tile : tiles) {
+            java.util.Arrays.fill(tile.known, 0L);
+        }
+        updateState();
+        return changes;
+    }
+
+    // The marked tiles and the 8 around each
+    private boolean[] grow(boolean[] marked) {
+        boolean[] grown = new boolean[tiles.length];
+        for (int t = 0; t < tiles.length; t++) {
+            if (!marked[t]) {
+                continue;
+            }
+
+            int tileRow = t / tileCols;
+            int tileCol = t % tileCols;
+            for (int tr = Math.max(0, tileRow - 1); tr <= Math.min(tileRows - 1, tileRow + 1); tr++) {
+                for (int tc = Math.max(0, tileCol - 1); tc <= Math.min(tileCols - 1, tileCol + 1); tc++) {
+                    grown[tr * tileCols + tc] = true;
+                }
+            }
+        }
+        return grown;
+    }
+
+    private static int[] list(boolean[] marked) {
+        int count = 0;
+        for (boolean m : marked) {
+            if (m) {
+                count++;
+            }
+        }
+
+        int[] list = new int[count];
+        for (int t = 0, i = 0; t < marked.length; t++) {
+            if (marked[t]) {
+                list[i++] = t;
+            }
+        }
+        return list;
+    }
+
+    private int[] allTiles() {
+        int[] all = new int[tileRows * tileCols];
+        for (int t = 0; t < all.length; t++) {
+            all[t] = t;
+        }
+        return all;
+    }
+
+    private void forEachTile(int[] list, IntConsumer action) {
+        pool.invoke(new TilePass(list, 0, list.length, action));
+    }
+
+    private Tile tile(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Cell " + row + "," + col + " is off the " + spec + " board");
+        }
+        return tiles[(row >>> TILE_SHIFT) * tileCols + (col >>> TILE_SHIFT)];
+    }
+
+    // Tile at (tileRow, tileCol), or null past the board's edge
+    private Tile tileAt(int tileRow, int tileCol) {
+        if (tileRow < 0 || tileRow >= tileRows || tileCol < 0 || tileCol >= tileCols) {
+            return null;
+        }
+        return tiles[tileRow * tileCols + tileCol];
+    }
+
+    // Row r (-1 to TILE_SIZE) of a layer around the tile at (tileRow, tileCol); rows past an edge come from
+    // the neighbour tile, and are 0 off the board
+    private long layerWord(int layer, int tileRow, int tileCol, int r) {
+        if (r < 0) {
+            tileRow--;
+            r = TILE_SIZE - 1;
+        } else if (r >= TILE_SIZE) {
+            tileRow++;
+            r = 0;
+        }
+
+        Tile tile = tileAt(tileRow, tileCol);
+        return tile == null ? 0 : tile.word(layer, r);
+    }
+
+    private static boolean bit(long[] layer, int row, int col) {
+        return (layer[row & (TILE_SIZE - 1)] >>> col & 1) != 0;
+    }
+
+    // Splits a list of tiles in halves down to LEAF_TILES, like Simulator's batches
+    private static final class TilePass extends RecursiveAction
+    {
+        private final int[] list;
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        TilePass(int[] list, int from, int to, IntConsumer action) {
+            this.list = list;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_TILES) {
+                for (int i = from; i < to; i++) {
+                    action.accept(list[i]);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new TilePass(list, from, middle, action), new TilePass(list, middle, to, action));
+        }
+    }
+
+    // One cascade: completes once no tile has mail left and every tile task has finished
+    private final class Flood extends CountedCompleter<Void>
+    {
+        private final List<Tile> seeded;
+
+        Flood(List<Tile> seeded) {
+            this.seeded = seeded;
+        }
+
+        @Override
+        public void compute() {
+            for (Tile tile : seeded) {
+                schedule(tile);
+            }
+            tryComplete();
+        }
+
+        // Starts a task for the tile unless one is already running - that one picks the new mail up
+        void schedule(Tile tile) {
+            if (tile.scheduled.compareAndSet(false, true)) {
+                addToPendingCount(1);
+                new TileFlood(this, tile).fork();
+            }
+        }
+
+        void mail(Tile tile, int r, long bits) {
+            if (tile != null && bits != 0) {
+                tile.inbox.getAndAccumulate(r, bits, (a, b) -> a | b);
+                schedule(tile);
+            }
+        }
+    }
+
+    private final class TileFlood extends CountedCompleter<Void>
+    {
+        private final Flood flood;
+        private final Tile tile;
+
+        TileFlood(Flood flood, Tile tile) {
+            super(flood);
+            this.flood = flood;
+            this.tile = tile;
+        }
+
+        @Override
+        public void compute() {
+            long[] frontier = new long[TILE_SIZE];
+            long[] next = new long[TILE_SIZE];
+            BlockFlood.Mail mail = this::mail;
+
+            // Mail that arrives after the last drain but before scheduled is cleared is caught by the recheck
+            do {
+                while (tile.drain(frontier)) {
+                    BlockFlood.spread(tile, tile.zero, frontier, next, mail);
+                }
+                tile.scheduled.set(false);
+            } while (tile.hasMail() && tile.scheduled.compareAndSet(false, true));
+
+            tryComplete();
+        }
+
+        // Cells the cascade reaches past this tile's edges; past the board's edge there is no tile
+        private void mail(int rowStep, int colStep, long rows, long bits) {
+            Tile target = tileAt(tile.tileRow + rowStep, tile.tileCol + colStep);
+            if (target == null) {
+                return;
+            }
+            while (rows != 0) {
+                flood.mail(target, Long.numberOfTrailingZeros(rows), bits);
+                rows &= rows - 1;
+            }
+        }
+    }
+
+    // One layer of a tile plus the ring of cells around it, read once from the neighbour tiles:
+    // row r (-1 to TILE_SIZE) at index r + 1, and the columns just left and right of the tile
+    private final class Halo
+    {
+        final long[] words = new long[TILE_SIZE + 2];
+        final int[] left = new int[TILE_SIZE + 2];
+        final int[] right = new int[TILE_SIZE + 2];
+
+        Halo(int layer, Tile tile) {
+            Tile leftTile = tileAt(tile.tileRow, tile.tileCol - 1);
+            Tile rightTile = tileAt(tile.tileRow, tile.tileCol + 1);
+            for (int r = 0; r < TILE_SIZE; r++) {
+                words[r + 1] = tile.word(layer, r);
+                left[r + 1] = leftTile == null ? 0 : (int) (leftTile.word(layer, r) >>> 63);
+                right[r + 1] = rightTile == null ? 0 : (int) (rightTile.word(layer, r) & 1);
+            }
+
+            for (int i : new int[] {0, TILE_SIZE + 1}) {
+                words[i] = layerWord(layer, tile.tileRow, tile.tileCol, i - 1);
+                left[i] = (int) (layerWord(layer, tile.tileRow, tile.tileCol - 1, i - 1) >>> 63);
+                right[i] = (int) (layerWord(layer, tile.tileRow, tile.tileCol + 1, i - 1) & 1);
+            }
+        }
+
+        // Cells of row r with a set cell among their 8 neighbours or themselves
+        long near(int r) {
+            long column = words[r] | words[r + 1] | words[r + 2];
+            long edges = (left[r] | left[r + 1] | left[r + 2]) | (long) (right[r] | right[r + 1] | right[r + 2]) << 63;
+            return column | column << 1 | column >>> 1 | edges;
+        }
+
+        // Neighbour counts of row r, 4 longs in BitKernels' packing
+        void counts(int r, long[] dest) {
+            BitKernels.rowCounts(words[r], words[r + 1], words[r + 2], left[r] + left[r + 1] + left[r + 2],
+                    right[r] + right[r + 1] + right[r + 2], dest, 0);
+        }
+    }
+
+    private final class Tile implements BlockFlood.Block
+    {
+        final int tileRow;
+        final int tileCol;
+        final int firstRow;
+        final int firstCol;
+        // Rows and columns of the tile that are on the board
+        final int height;
+        final int width;
+        final long colMask;
+
+        final long[] bombs = new long[TILE_SIZE];
+        final long[] revealed = new long[TILE_SIZE];
+        final long[] flagged = new long[TILE_SIZE];
+        // Safe cells with no bomb around them - the ones a cascade goes through
+        final long[] zero = new long[TILE_SIZE];
+        // 4 bits per cell, 16 cells per long, indexed by r * TILE_SIZE + c
+        final long[] counts = new long[TILE_SIZE * 4];
+
+        // Deduction scratch: mines autoReveal proved but did not flag, and the numbered cells whose
+        // hidden neighbours are all mines (saturated) or all safe (satisfied)
+        final long[] known = new long[TILE_SIZE];
+        final long[] saturated = new long[TILE_SIZE];
+        final long[] satisfied = new long[TILE_SIZE];
+        final long[] markedCounts = new long[4];
+        final long[] unknownCounts = new long[4];
+        int changes;
+        boolean changed;
+        boolean seeded;
+
+        // Cells to open, mailed in by neighbour tiles or the move that started the cascade
+        final AtomicLongArray inbox = new AtomicLongArray(TILE_SIZE);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        int revealedCount;
+        int revealedSafe;
+        int flags;
+        int correctFlags;
+
+        Tile(int tileRow, int tileCol) {
+            this.tileRow = tileRow;
+            this.tileCol = tileCol;
+            this.firstRow = tileRow << TILE_SHIFT;
+            this.firstCol = tileCol << TILE_SHIFT;
+            this.height = Math.min(TILE_SIZE, rows - firstRow);
+            this.width = Math.min(TILE_SIZE, cols - firstCol);
+            this.colMask = width == TILE_SIZE ? -1L : (1L << width) - 1;
+        }
+
+        void load(BitGrid layout) {
+            int wordsPerRow = layout.getWordsPerRow();
+            for (int r = 0; r < height; r++) {
+                bombs[r] = layout.word((firstRow + r) * wordsPerRow + tileCol);
+            }
+
+            for (int r = 0; r < height; r++) {
+                int row = firstRow + r;
+                long up = row > 0 ? layout.word((row - 1) * wordsPerRow + tileCol) : 0;
+                long down = row < rows - 1 ? layout.word((row + 1) * wordsPerRow + tileCol) : 0;
+                BitKernels.rowCounts(up, bombs[r], down, columnCount(layout, row, firstCol - 1),
+                        columnCount(layout, row, firstCol + TILE_SIZE), counts, r << 2);
+
+                long none = 0;
+                for (int j = 0; j < 4; j++) {
+                    none |= BitKernels.equalNibbles(counts[(r << 2) + j], 0) << (j << 4);
+                }
+                zero[r] = none & ~bombs[r] & colMask;
+            }
+        }
+
+        // Opens the hidden, unflagged cells among bits; returns the ones it opened
+        @Override
+        public long open(int r, long bits) {
+            long opened = bits & ~(revealed[r] | flagged[r]) & (r < height ? colMask : 0);
+            if (opened == 0) {
+                return 0;
+            }
+
+            revealed[r] |= opened;
+            revealedCount += Long.bitCount(opened);
+            revealedSafe += Long.bitCount(opened & ~bombs[r]);
+            if ((opened & bombs[r]) != 0) {
+                hitBomb = true;
+            }
+            changed = true;
+            return opened;
+        }
+
+        boolean drain(long[] dest) {
+            boolean any = false;
+            for (int r = 0; r < TILE_SIZE; r++) {
+                dest[r] = inbox.getAndSet(r, 0L);
+                any |= dest[r] != 0;
+            }
+            return any;
+        }
+
+        boolean hasMail() {
+            for (int r = 0; r < TILE_SIZE; r++) {
+                if (inbox.get(r) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long word(int layer, int r) {
+            switch (layer) {
+                case MARKED:
+                    return flagged[r] | known[r];
+                case UNKNOWN:
+                    return ~(revealed[r] | flagged[r] | known[r]) & (r < height ? colMask : 0);
+                case SATURATED:
+                    return saturated[r];
+                case SATISFIED:
+                    return satisfied[r];
+                default:
+                    throw new IllegalArgumentException("No layer " + layer);
+            }
+        }
+
+        // Finds the revealed numbers whose unknown neighbours are all mines or all safe. Writes only the scratch
+        void classify() {
+            Halo unknownHalo = new Halo(UNKNOWN, this);
+            Halo markedHalo = null;
+
+            for (int r = 0; r < height; r++) {
+                // Only numbers with an unknown cell beside them can prove anything
+                long numbered = revealed[r] & ~bombs[r] & unknownHalo.near(r);
+                saturated[r] = 0;
+                satisfied[r] = 0;
+                if (numbered == 0) {
+                    continue;
+                }
+
+                if (markedHalo == null) {
+                    markedHalo = new Halo(MARKED, this);
+                }
+                markedHalo.counts(r, markedCounts);
+                unknownHalo.counts(r, unknownCounts);
+                for (int j = 0; j < 4; j++) {
+                    long count = counts[(r << 2) + j];
+                    long marked = markedCounts[j];
+                    long unknown = unknownCounts[j];
+                    long anyUnknown = ~BitKernels.equalNibbles(unknown, 0);
+
+                    // Nibbles are at most 8, so marked + unknown never carries into the next cell
+                    saturated[r] |= (BitKernels.equalNibbles(count, marked + unknown) & anyUnknown) << (j << 4);
+                    satisfied[r] |= (BitKernels.equalNibbles(count, marked) & anyUnknown) << (j << 4);
+                }
+                saturated[r] &= numbered;
+                satisfied[r] &= numbered;
+            }
+        }
+
+        // Flags (or, when revealing, notes) the proven mines and mails the proven safe cells to this
+        // tile's own inbox. Writes only this tile
+        void act(boolean reveal) {
+            changes = 0;
+            Halo saturatedHalo = null;
+            Halo satisfiedHalo = null;
+
+            for (int r = 0; r < height; r++) {
+                long unknown = word(UNKNOWN, r);
+                if (unknown == 0) {
+                    continue;
+                }
+
+                if (saturatedHalo == null) {
+                    saturatedHalo = new Halo(SATURATED, this);
+                    satisfiedHalo = reveal ? new Halo(SATISFIED, this) : null;
+                }
+                long mines = saturatedHalo.near(r) & unknown;
+                if (mines != 0) {
+                    if (reveal) {
+                        known[r] |= mines;
+                    } else {
+                        flagged[r] |= mines;
+                        flags += Long.bitCount(mines);
+                        correctFlags += Long.bitCount(mines & bombs[r]);
+                        changes += Long.bitCount(mines);
+                    }
+                    changed = true;
+                }
+
+                long safe = reveal ? satisfiedHalo.near(r) & unknown & ~mines : 0;
+                if (safe != 0) {
+                    inbox.set(r, safe);
+                    seeded = true;
+                    changes += Long.bitCount(safe);
+                }
+            }
+        }
+
+        // Same codes as BoardEncoder.cellCode
+        int cellCode(int r, int c) {
+            if ((flagged[r] >>> c & 1) != 0) {
+                return BoardEncoder.FLAGGED_CHANNEL;
+            }
+            if ((revealed[r] >>> c & 1) == 0) {
+                return BoardEncoder.HIDDEN_CHANNEL;
+            }
+            return BoardEncoder.REVEALED_CHANNEL + BitKernels.count(counts, (r << TILE_SHIFT) + c);
+        }
+
+        // Bombs in column col of rows row - 1 to row + 1; 0 off the board
+        private int columnCount(BitGrid layout, int row, int col) {
+            if (col < 0 || col >= cols) {
+                return 0;
+            }
+
+            int count = 0;
+            for (int rr = Math.max(0, row - 1); rr <= Math.min(rows - 1, row + 1); rr++) {
+                if (layout.get(rr, col)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package spinner.minesweeper;
+
+/*Word-parallel kernels against cell-by-cell loops
+- Rectangle counts with spans inside one word, across word edges and over the row padding
+- Block counts for block sizes below, at and above the word size
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BitKernelsTest
+{
+    private static BitGrid randomGrid(int rows, int cols, Random random) {
+        BitGrid grid = new BitGrid(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (random.nextInt(3) == 0) {
+                    grid.set(row, col);
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    void rectangleCountsMatchCellByCell() {
+        Random random = new Random(16);
+        int[][] shapes = {{1, 1}, {7, 63}, {9, 64}, {13, 65}, {20, 200}};
+
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            BitGrid a = randomGrid(rows, cols, random);
+            BitGrid b = randomGrid(rows, cols, random);
+
+            for (int i = 0; i < 500; i++) {
+                int rowStart = random.nextInt(rows + 1);
+                int rowEnd = rowStart + random.nextInt(rows - rowStart + 1);
+                int colStart = random.nextInt(cols + 1);
+                int colEnd = colStart + random.nextInt(cols - colStart + 1);
+
+                int all = 0;
+                int andNot = 0;
+                for (int row = rowStart; row < rowEnd; row++) {
+                    for (int col = colStart; col < colEnd; col++) {
+                        all += a.get(row, col) ? 1 : 0;
+                        andNot += a.get(row, col) && !b.get(row, col) ? 1 : 0;
+                    }
+                }
+
+                String context = rows + "x" + cols + " rows " + rowStart + ".." + rowEnd + " cols " + colStart
+                        + ".." + colEnd;
+                assertEquals(all, BitKernels.countAndNot(a, null, rowStart, rowEnd, colStart, colEnd), context);
+                assertEquals(andNot, BitKernels.countAndNot(a, b, rowStart, rowEnd, colStart, colEnd), context);
+            }
+        }
+    }
+
+    @Test
+    void blockCountsMatchRectangleCounts() {
+        Random random = new Random(64);
+        int[][] shapes = {{1, 1}, {7, 63}, {13, 65}, {40, 300}};
+
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            BitGrid a = randomGrid(rows, cols, random);
+            BitGrid b = randomGrid(rows, cols, random);
+
+            for (int blockSize : new int[] {1, 3, 17, 64, 100}) {
+                int blocksPerRow = (cols + blockSize - 1) / blockSize;
+                int blockRows = (rows + blockSize - 1) / blockSize;
+                int[] all = new int[blockRows * blocksPerRow];
+                int[] andNot = new int[all.length];
+                BitKernels.blockCounts(a, null, blockSize, all);
+                BitKernels.blockCounts(a, b, blockSize, andNot);
+
+                for (int block = 0; block < all.length; block++) {
+                    int rowStart = block / blocksPerRow * blockSize;
+                    int colStart = block % blocksPerRow * blockSize;
+                    int rowEnd = Math.min(rows, rowStart + blockSize);
+                    int colEnd = Math.min(cols, colStart + blockSize);
+                    String context = rows + "x" + cols + " block size " + blockSize + " block " + block;
+                    assertEquals(BitKernels.countAndNot(a, null, rowStart, rowEnd, colStart, colEnd), all[block],
+                            context);
+                    assertEquals(BitKernels.countAndNot(a, b, rowStart, rowEnd, colStart, colEnd), andNot[block],
+                            context);
+                }
+            }
+        }
+    }
+}
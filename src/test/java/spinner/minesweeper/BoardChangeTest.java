@@ -0,0 +1,119 @@
+package spinner.minesweeper;
+
+/*Board change events
+- A mirror rebuilt purely from BoardChange batches must match the model after every move
+- rollbackTo arrives as one batch however many moves it crosses
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BoardChangeTest
+{
+    private static final int GAMES = 3000;
+    private static final int MOVES = 60;
+
+    // Revealed/flag layers and state, kept up to date only from the events
+    private static final class Mirror implements BoardListener
+    {
+        private boolean[] revealed;
+        private boolean[] flagged;
+        private Minesweeper.GameState state = Minesweeper.GameState.PLAYING;
+        private int batches;
+
+        Mirror(Minesweeper game) {
+            revealed = new boolean[game.getSpec().getCellCount()];
+            flagged = new boolean[revealed.length];
+        }
+
+        @Override
+        public void boardChanged(Minesweeper game, BoardChange change) {
+            batches++;
+            if (change.isAll()) {
+                // Too much to list: the listener reads the board again
+                for (int cell = 0; cell < revealed.length; cell++) {
+                    revealed[cell] = game.isRevealed(cell / game.getCols(), cell % game.getCols());
+                    flagged[cell] = game.isFlagged(cell / game.getCols(), cell % game.getCols());
+                }
+            }
+
+            for (int i = 0; i < change.getRevealedCount(); i++) {
+                assertFalse(revealed[change.getRevealedCell(i)]);
+                revealed[change.getRevealedCell(i)] = true;
+            }
+            for (int i = 0; i < change.getHiddenCount(); i++) {
+                assertTrue(revealed[change.getHiddenCell(i)]);
+                revealed[change.getHiddenCell(i)] = false;
+            }
+            for (int i = 0; i < change.getFlagToggledCount(); i++) {
+                flagged[change.getFlagToggledCell(i)] ^= true;
+            }
+            if (change.hasStateChange()) {
+                assertEquals(state, change.getOldState());
+                state = change.getNewState();
+            }
+        }
+
+        void assertMatches(Minesweeper game, String context) {
+            assertEquals(game.getGameState(), state, context);
+            for (int cell = 0; cell < revealed.length; cell++) {
+                assertEquals(game.isRevealed(cell / game.getCols(), cell % game.getCols()), revealed[cell], context);
+                assertEquals(game.isFlagged(cell / game.getCols(), cell % game.getCols()), flagged[cell], context);
+            }
+        }
+    }
+
+    @Test
+    void mirrorFollowsEveryMove() {
+        Random random = new Random(17);
+        BoardSpec[] specs = {BoardSpec.BEGINNER, BoardSpec.INTERMEDIATE, new BoardSpec(5, 40, 30)};
+
+        for (int i = 0; i < GAMES; i++) {
+            Minesweeper game = new Minesweeper(specs[i % specs.length], random.nextLong(), false);
+            Mirror mirror = new Mirror(game);
+            game.addBoardListener(mirror);
+            if (random.nextBoolean()) {
+                game.enableJournal();
+            }
+
+            for (int move = 0; move < MOVES; move++) {
+                GameRecordingTest.randomMove(game, random);
+                mirror.assertMatches(game, "seed " + game.getSeed() + " move " + move);
+            }
+        }
+    }
+
+    @Test
+    void rollbackIsOneBatch() {
+        Minesweeper game = new Minesweeper(BoardSpec.EXPERT, 17, false);
+        game.enableJournal();
+        Mirror mirror = new Mirror(game);
+        game.addBoardListener(mirror);
+
+        // Single-cell reveals, so every move is undoable on its own
+        int moves = 0;
+        for (int cell = 0; moves < 5; cell++) {
+            int row = cell / game.getCols();
+            int col = cell % game.getCols();
+            if (!game.hasBomb(row, col) && game.countAdjacentBombs(row, col) > 0 && !game.isRevealed(row, col)) {
+                game.revealCell(row, col);
+                moves++;
+            }
+        }
+        game.flagCell(15, 29);
+        game.flagCell(15, 29);
+
+        int batches = mirror.batches;
+        game.rollbackTo(0);
+        assertEquals(batches + 1, mirror.batches);
+        mirror.assertMatches(game, "after rollback");
+
+        game.rollbackTo(7);
+        assertEquals(batches + 2, mirror.batches);
+        mirror.assertMatches(game, "after roll forward");
+    }
+}
@@ -0,0 +1,120 @@
+package spinner.minesweeper;
+
+/*Encoder targets and incremental updates
+- float[], FloatBuffer and ByteBuffer hold the same values for both layouts
+- update() after some moves matches a fresh encode, and leaves the changes unacknowledged
+*/
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+class BoardEncoderTest
+{
+    private static Minesweeper midGame(long seed) {
+        Minesweeper game = new Minesweeper(BoardSpec.INTERMEDIATE, seed, false);
+        Random random = new Random(seed);
+        for (int i = 0; i < 6 && game.getGameState() == Minesweeper.GameState.PLAYING; i++) {
+            int row = random.nextInt(game.getRows());
+            int col = random.nextInt(game.getCols());
+            if (game.hasBomb(row, col)) {
+                game.flagCell(row, col);
+            } else {
+                game.revealCell(row, col);
+            }
+        }
+        return game;
+    }
+
+    @Test
+    void everyTargetHoldsTheSameValues() {
+        Minesweeper game = midGame(1);
+        for (BoardEncoder.Layout layout : BoardEncoder.Layout.values()) {
+            BoardEncoder encoder = new BoardEncoder(layout);
+            int size = encoder.size(game.getSpec());
+
+            float[] array = new float[size + 3];
+            encoder.encode(game, array, 3);
+
+            FloatBuffer floats = FloatBuffer.allocate(size + 5);
+            encoder.encode(game, floats, 5);
+
+            ByteBuffer bytes = ByteBuffer.allocateDirect((size + 1) * Float.BYTES + 2).order(ByteOrder.nativeOrder());
+            encoder.encode(game, bytes, 2);
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(array[3 + i], floats.get(5 + i), layout + " float " + i);
+                assertEquals(array[3 + i], bytes.getFloat(2 + i * Float.BYTES), layout + " float " + i);
+            }
+        }
+    }
+
+    @Test
+    void updateMatchesAFreshEncode() {
+        for (BoardEncoder.Layout layout : BoardEncoder.Layout.values()) {
+            BoardEncoder encoder = new BoardEncoder(layout);
+            Minesweeper game = midGame(2);
+            game.enableChangeTracking();
+            int size = encoder.size(game.getSpec());
+
+            float[] array = new float[size];
+            FloatBuffer floats = FloatBuffer.allocate(size);
+            ByteBuffer bytes = ByteBuffer.allocate(size * Float.BYTES);
+            encoder.encode(game, array, 0);
+            encoder.encode(game, floats, 0);
+            encoder.encode(game, bytes, 0);
+            game.acknowledgeChanges();
+
+            Random random = new Random(3);
+            for (int move = 0; move < 40 && game.getGameState() == Minesweeper.GameState.PLAYING; move++) {
+                int row = random.nextInt(game.getRows());
+                int col = random.nextInt(game.getCols());
+                if (game.hasBomb(row, col) || random.nextInt(4) == 0) {
+                    game.flagCell(row, col);
+                } else {
+                    game.revealCell(row, col);
+                }
+
+                // Three consumers of one set of changes
+                int changed = game.getChangedCount();
+                encoder.update(game, array, 0);
+                encoder.update(game, floats, 0);
+                encoder.update(game, bytes, 0);
+                assertEquals(changed, game.getChangedCount());
+                game.acknowledgeChanges();
+
+                float[] expected = new float[size];
+                encoder.encode(game, expected, 0);
+                assertArrayEquals(expected, array, layout + " move " + move);
+                for (int i = 0; i < size; i++) {
+                    assertEquals(expected[i], floats.get(i));
+                    assertEquals(expected[i], bytes.getFloat(i * Float.BYTES));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rangeChecksDoNotOverflow() {
+        Minesweeper game = midGame(4);
+        BoardEncoder encoder = new BoardEncoder(BoardEncoder.Layout.ONE_HOT);
+        float[] array = new float[encoder.size(game.getSpec())];
+
+        // Rejected up front by the range check, not by the first out-of-bounds write
+        assertRejected(() -> encoder.encode(game, array, Integer.MAX_VALUE));
+        assertRejected(() -> encoder.encode(game, array, -1));
+        assertRejected(() -> encoder.encode(game, ByteBuffer.allocate(16), Integer.MAX_VALUE - 4));
+    }
+
+    private static void assertRejected(Executable call) {
+        assertTrue(assertThrows(IndexOutOfBoundsException.class, call).getMessage().startsWith("Need "));
+    }
+}
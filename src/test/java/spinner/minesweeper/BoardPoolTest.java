@@ -0,0 +1,31 @@
+package spinner.minesweeper;
+
+/*Pooled no-guess seeds
+- take() hands out a seed for exactly the spec and first click asked for, from the queue or a search
+*/
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BoardPoolTest
+{
+    @Test
+    void takeReturnsABoardForTheSpecAndClick() {
+        BoardSpec spec = BoardSpec.INTERMEDIATE;
+        try (BoardPool pool = new BoardPool(2, 4)) {
+            pool.prepare(spec, 3, 5);
+
+            // More than the queue holds, so some come from the search on this thread
+            for (int i = 0; i < 10; i++) {
+                long seed = pool.take(spec, 3, 5);
+                assertNotEquals(NoGuessGenerator.NO_SEED, seed);
+                assertTrue(NoGuessGenerator.isNoGuess(spec, seed, 3, 5));
+            }
+
+            long seed = pool.take(BoardSpec.BEGINNER, 8, 0);
+            assertTrue(NoGuessGenerator.isNoGuess(BoardSpec.BEGINNER, seed, 8, 0));
+        }
+    }
+}
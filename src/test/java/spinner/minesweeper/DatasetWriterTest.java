@@ -0,0 +1,95 @@
+package spinner.minesweeper;
+
+/*Dataset writer under concurrency
+- Every append that returns normally is in the file, even when close() races the producers
+- Producers waiting on a full ring give up once the consumer abandons it
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DatasetWriterTest
+{
+    private static final int THREADS = 4;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsRacingCloseAreAllWritten() throws Exception {
+        Path path = dir.resolve("race.msds");
+        DatasetFormat format = new DatasetFormat(BoardSpec.BEGINNER, BoardEncoder.Layout.SCALAR);
+        DatasetWriter writer = new DatasetWriter(path, format, 8);
+        AtomicLong appended = new AtomicLong();
+
+        // Each record carries a (thread, counter) id in its first 8 bytes
+        Thread[] producers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            producers[t] = new Thread(() -> {
+                ByteBuffer record = ByteBuffer.allocate(format.getRecordSize()).order(DatasetFormat.ORDER);
+                for (int i = 0; ; i++) {
+                    record.putInt(0, thread).putInt(4, i);
+                    try {
+                        writer.append(record, 0);
+                    } catch (IllegalStateException closed) {
+                        return;
+                    }
+                    appended.incrementAndGet();
+                }
+            });
+            producers[t].start();
+        }
+
+        Thread.sleep(50);
+        writer.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        try (DatasetReader reader = new DatasetReader(path)) {
+            assertEquals(appended.get(), reader.getRecordCount());
+
+            // Per thread, the ids written must be exactly 0..n-1
+            BitSet[] seen = new BitSet[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                seen[t] = new BitSet();
+            }
+            for (long r = 0; r < reader.getRecordCount(); r++) {
+                ByteBuffer record = reader.record(r);
+                BitSet ids = seen[record.getInt(0)];
+                assertFalse(ids.get(record.getInt(4)));
+                ids.set(record.getInt(4));
+            }
+            for (BitSet ids : seen) {
+                assertEquals(ids.cardinality(), ids.length());
+            }
+        }
+    }
+
+    @Test
+    void abandonedRingReleasesWaitingProducers() throws Exception {
+        RecordRing ring = new RecordRing(2, 8);
+        ring.claim();
+        ring.claim();
+
+        long[] claimed = new long[1];
+        Thread producer = new Thread(() -> claimed[0] = ring.claim());
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive());
+
+        ring.abandon();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        assertEquals(-1, claimed[0]);
+    }
+}
@@ -0,0 +1,53 @@
+package spinner.minesweeper;
+
+/*Soundness of the deduction engine
+- Expert boards played by autoFlag/autoReveal, with a known-safe click whenever the rules stall
+- The engine must never reveal a mine or flag a safe cell
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DeductionEngineTest
+{
+    private static final int GAMES = 20_000;
+
+    // A hidden cell without a mine, or -1 when none is left
+    private static int safeHiddenCell(Minesweeper game, Random random) {
+        int cells = game.getSpec().getCellCount();
+        int start = random.nextInt(cells);
+        for (int i = 0; i < cells; i++) {
+            int cell = (start + i) % cells;
+            int row = cell / game.getCols();
+            int col = cell % game.getCols();
+            if (!game.isRevealed(row, col) && !game.hasBomb(row, col)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void neverRevealsAMineOrFlagsASafeCell() {
+        Random random = new Random(20_000);
+        for (int i = 0; i < GAMES; i++) {
+            long seed = random.nextLong();
+            Minesweeper game = new Minesweeper(BoardSpec.EXPERT, seed, false);
+
+            while (game.getGameState() == Minesweeper.GameState.PLAYING) {
+                int changes = game.autoFlag() + game.autoReveal();
+                assertNotEquals(Minesweeper.GameState.LOST, game.getGameState(), "seed " + seed);
+                assertEquals(game.getFlagCount(), game.getCorrectFlagCount(), "seed " + seed);
+
+                if (changes == 0 && game.getGameState() == Minesweeper.GameState.PLAYING) {
+                    int cell = safeHiddenCell(game, random);
+                    game.revealCell(cell / game.getCols(), cell % game.getCols());
+                }
+            }
+            assertEquals(Minesweeper.GameState.WON, game.getGameState(), "seed " + seed);
+        }
+    }
+}
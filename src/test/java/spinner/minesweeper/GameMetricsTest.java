@@ -0,0 +1,151 @@
+package spinner.minesweeper;
+
+/*Game counters in GameMetrics
+- A game's end is counted once, however often undo takes it back to PLAYING
+- Forks, uncounted games and replays leave every counter alone, reveals included, and a packed
+  game keeps whether it is counted
+- The counters are global, so every check compares before and after
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class GameMetricsTest
+{
+    private static int bombCell(Minesweeper game) {
+        int cell = 0;
+        while (!game.hasBomb(cell / game.getCols(), cell % game.getCols())) {
+            cell++;
+        }
+        return cell;
+    }
+
+    private static void reveal(Minesweeper game, int cell) {
+        game.revealCell(cell / game.getCols(), cell % game.getCols());
+    }
+
+    @Test
+    void undoneEndingIsCountedOnce() {
+        GameStatistics metrics = GameMetrics.get();
+        long started = metrics.getGamesStarted();
+        long lost = metrics.getGamesLost();
+        long won = metrics.getGamesWon();
+
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 19);
+        game.enableJournal();
+        int bomb = bombCell(game);
+
+        reveal(game, bomb);
+        assertEquals(Minesweeper.GameState.LOST, game.getGameState());
+        assertEquals(lost + 1, metrics.getGamesLost());
+
+        // Undo, lose again, then undo, redo and win
+        game.undo();
+        reveal(game, bomb);
+        game.undo();
+        game.redo();
+        game.undo();
+        game.revealAllCells();
+        game.undo();
+        for (int cell = 0; cell < BoardSpec.BEGINNER.getCellCount(); cell++) {
+            if (!game.hasBomb(cell / game.getCols(), cell % game.getCols())) {
+                reveal(game, cell);
+            }
+        }
+        assertEquals(Minesweeper.GameState.WON, game.getGameState());
+
+        assertEquals(started + 1, metrics.getGamesStarted());
+        assertEquals(lost + 1, metrics.getGamesLost());
+        assertEquals(won, metrics.getGamesWon());
+    }
+
+    @Test
+    void uncountedGamesLeaveCountersAlone() {
+        GameStatistics metrics = GameMetrics.get();
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 29);
+        long started = metrics.getGamesStarted();
+        long lost = metrics.getGamesLost();
+        long reveals = metrics.getReveals();
+
+        Minesweeper fork = game.fork();
+        Minesweeper uncounted = new Minesweeper(BoardSpec.BEGINNER, 29, false);
+        for (Minesweeper other : new Minesweeper[] {fork, uncounted}) {
+            other.flagCell(0, 0);
+            other.flagCell(0, 0);
+            for (int cell = 0; cell < BoardSpec.BEGINNER.getCellCount(); cell++) {
+                reveal(other, cell);
+            }
+            assertEquals(Minesweeper.GameState.LOST, other.getGameState());
+        }
+
+        assertEquals(started, metrics.getGamesStarted());
+        assertEquals(lost, metrics.getGamesLost());
+        assertEquals(reveals, metrics.getReveals());
+
+        reveal(game, bombCell(game) == 0 ? 1 : 0);
+        assertEquals(reveals + 1, metrics.getReveals());
+    }
+
+    @Test
+    void replaysLeaveCountersAlone() {
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 31, false);
+        game.enableRecording();
+        for (int cell = 0; cell < BoardSpec.BEGINNER.getCellCount(); cell++) {
+            if (!game.hasBomb(cell / game.getCols(), cell % game.getCols())) {
+                reveal(game, cell);
+            }
+        }
+        GameRecord record = game.getRecording();
+
+        GameStatistics metrics = GameMetrics.get();
+        long started = metrics.getGamesStarted();
+        long won = metrics.getGamesWon();
+        long reveals = metrics.getReveals();
+        assertTrue(GameReplayer.verify(record));
+        assertEquals(Minesweeper.GameState.WON, GameReplayer.replay(record).getGameState());
+
+        assertEquals(started, metrics.getGamesStarted());
+        assertEquals(won, metrics.getGamesWon());
+        assertEquals(reveals, metrics.getReveals());
+    }
+
+    @Test
+    void reportedEndSurvivesPacking() {
+        GameStatistics metrics = GameMetrics.get();
+        long lost = metrics.getGamesLost();
+
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 23);
+        game.enableJournal();
+        int bomb = bombCell(game);
+        reveal(game, bomb);
+        game.undo();
+
+        ByteBuffer packed = ByteBuffer.allocate(game.packedSize());
+        game.pack(packed, 0);
+        Minesweeper parked = Minesweeper.unpack(packed, 0);
+        reveal(parked, bomb);
+
+        assertEquals(Minesweeper.GameState.LOST, parked.getGameState());
+        assertEquals(lost + 1, metrics.getGamesLost());
+    }
+
+    @Test
+    void uncountedGameStaysUncountedThroughPacking() {
+        GameStatistics metrics = GameMetrics.get();
+        long lost = metrics.getGamesLost();
+        long reveals = metrics.getReveals();
+
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 37, false);
+        ByteBuffer packed = ByteBuffer.allocate(game.packedSize());
+        game.pack(packed, 0);
+        Minesweeper parked = Minesweeper.unpack(packed, 0);
+        reveal(parked, bombCell(parked));
+
+        assertEquals(Minesweeper.GameState.LOST, parked.getGameState());
+        assertEquals(lost, metrics.getGamesLost());
+        assertEquals(reveals, metrics.getReveals());
+    }
+}
@@ -0,0 +1,70 @@
+package spinner.minesweeper;
+
+/*Line protocol commands, run straight through a Handler
+- A malformed line is rejected as a whole: no game is created, changed or closed
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameProtocolTest
+{
+    @TempDir
+    Path dir;
+
+    private SessionStore sessions;
+    private GameProtocol.Handler handler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sessions = new SessionStore(dir.resolve("sessions.spill"), 16);
+        handler = new GameProtocol(sessions).newHandler();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sessions.close();
+    }
+
+    private String send(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        handler.clearReply();
+        handler.handle(bytes, 0, bytes.length);
+        return new String(handler.replyBytes(), 0, handler.replyLength() - 1, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void trailingInputRejectsTheWholeCommand() {
+        String created = send("NEW 9 9 10 42");
+        assertTrue(created.startsWith("OK "), created);
+        String id = created.substring(3);
+
+        assertEquals("ERR Unexpected trailing input", send("REVEAL " + id + " 4 4 junk"));
+        assertEquals("ERR Unexpected trailing input", send("FLAG " + id + " 0 0 1"));
+        assertEquals("OK PLAYING 0 0", send("STATE " + id));
+
+        assertEquals("ERR Unexpected trailing input", send("NEW 9 9 10 42 7"));
+        assertEquals(1, sessions.size());
+
+        assertEquals("ERR Unexpected trailing input", send("CLOSE " + id + " now"));
+        assertEquals("OK PLAYING 0 0", send("STATE " + id));
+        assertEquals("OK", send("CLOSE " + id));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    void wellFormedMovesStillRun() {
+        String id = send("NEW 9 9 10 42").substring(3);
+        assertTrue(send("FLAG " + id + " 0 0").startsWith("OK 1 "));
+        assertEquals("OK", send("PING"));
+        assertEquals("ERR Unexpected trailing input", send("PING 1"));
+    }
+}
@@ -0,0 +1,113 @@
+package spinner.minesweeper;
+
+/*Recording and replay
+- Fuzzed games mixing every recorded move kind, undo/redo and rollbacks included
+- The encoded record must decode and replay to exactly the same board
+- Moves on cells past 2^28 (boards up to Integer.MAX_VALUE cells) keep their cell and kind
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class GameRecordingTest
+{
+    private static final int GAMES = 3000;
+    private static final int MOVES = 60;
+
+    // One random public call, of any kind the recorder knows
+    static void randomMove(Minesweeper game, Random random) {
+        int row = random.nextInt(game.getRows());
+        int col = random.nextInt(game.getCols());
+
+        int pick = random.nextInt(100);
+        if (pick < 45) {
+            game.revealCell(row, col);
+        } else if (pick < 60) {
+            game.flagCell(row, col);
+        } else if (pick < 66) {
+            game.autoFlag();
+        } else if (pick < 72) {
+            game.autoReveal();
+        } else if (!game.isJournalEnabled()) {
+            game.enableJournal();
+        } else if (pick < 82) {
+            game.undo();
+        } else if (pick < 90) {
+            game.redo();
+        } else if (pick < 96) {
+            game.rollbackTo(random.nextInt(game.checkpoint() + 1));
+        } else if (pick < 98) {
+            game.disableJournal();
+        } else {
+            game.revealAllCells();
+        }
+    }
+
+    static void assertSameBoard(Minesweeper expected, Minesweeper actual, String context) {
+        assertEquals(expected.getGameState(), actual.getGameState(), context);
+        assertEquals(expected.getRevealedSafeCount(), actual.getRevealedSafeCount(), context);
+        assertEquals(expected.getFlagCount(), actual.getFlagCount(), context);
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getCols(); col++) {
+                assertEquals(expected.isRevealed(row, col), actual.isRevealed(row, col), context);
+                assertEquals(expected.isFlagged(row, col), actual.isFlagged(row, col), context);
+            }
+        }
+    }
+
+    @Test
+    void largeCellsSurviveTheMoveEncoding() {
+        int[] cells = {0, 5, (1 << 28) - 1, 1 << 28, Integer.MAX_VALUE - 1};
+        GameRecorder recorder = new GameRecorder();
+        for (int cell : cells) {
+            recorder.record(GameRecord.FLAG, cell);
+            long move = GameRecord.move(GameRecord.FLAG, cell);
+            assertEquals(cell, GameRecord.cell(move));
+            assertEquals(GameRecord.FLAG, GameRecord.kind(move));
+        }
+
+        byte[] bytes = recorder.toRecord(new Minesweeper(BoardSpec.BEGINNER, 1, false)).moveBytes();
+        // Small cells still take the same single byte as before
+        assertEquals(5 << 3 | GameRecord.FLAG, bytes[1]);
+        int[] next = new int[1];
+        int position = 0;
+        for (int cell : cells) {
+            long move = GameRecord.readMove(bytes, position, next);
+            position = next[0];
+            assertEquals(cell, GameRecord.cell(move));
+            assertEquals(GameRecord.FLAG, GameRecord.kind(move));
+        }
+        assertEquals(bytes.length, position);
+    }
+
+    @Test
+    void fuzzedGamesReplayExactly() {
+        Random random = new Random(14);
+        BoardSpec[] specs = {BoardSpec.BEGINNER, BoardSpec.INTERMEDIATE, new BoardSpec(5, 40, 30)};
+
+        for (int i = 0; i < GAMES; i++) {
+            Minesweeper game = new Minesweeper(specs[i % specs.length], random.nextLong(), false);
+            if (random.nextBoolean()) {
+                game.enableJournal();
+            }
+            game.enableRecording();
+
+            for (int move = 0; move < MOVES; move++) {
+                randomMove(game, random);
+            }
+
+            GameRecord record = game.getRecording();
+            ByteBuffer bytes = ByteBuffer.allocate(record.encodedSize());
+            record.encode(bytes);
+            bytes.flip();
+            GameRecord decoded = GameRecord.decode(bytes);
+
+            assertTrue(GameReplayer.verify(decoded), "seed " + game.getSeed());
+            assertSameBoard(game, GameReplayer.replay(decoded), "seed " + game.getSeed());
+        }
+    }
+}
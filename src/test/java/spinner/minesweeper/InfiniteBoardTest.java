@@ -0,0 +1,141 @@
+package spinner.minesweeper;
+
+/*InfiniteBoard against a naive cell-by-cell BFS
+- The board under test keeps only 9 chunks cached, so cascades keep parking and rebuilding chunks
+- Mines and counts come from a second board with a cache big enough to never evict
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class InfiniteBoardTest
+{
+    private static final int RANGE = 400;
+    private static final int MOVES = 3000;
+
+    private static long key(long row, long col) {
+        return row << 32 | (col & 0xFFFFFFFFL);
+    }
+
+    // Opens the cell and the zero region around it like Minesweeper's reveal; returns the cells opened
+    private static long bfs(InfiniteBoard reference, Set<Long> revealed, Set<Long> flagged, long row, long col) {
+        if (revealed.contains(key(row, col)) || flagged.contains(key(row, col))) {
+            return 0;
+        }
+
+        ArrayDeque<long[]> queue = new ArrayDeque<>();
+        queue.add(new long[] {row, col});
+        revealed.add(key(row, col));
+        long opened = 1;
+
+        long[] cell;
+        while ((cell = queue.poll()) != null) {
+            if (reference.countAdjacentBombs(cell[0], cell[1]) != 0) {
+                continue;
+            }
+            for (long r = cell[0] - 1; r <= cell[0] + 1; r++) {
+                for (long c = cell[1] - 1; c <= cell[1] + 1; c++) {
+                    if (!revealed.contains(key(r, c)) && !flagged.contains(key(r, c))) {
+                        revealed.add(key(r, c));
+                        opened++;
+                        queue.add(new long[] {r, c});
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    private static void playAgainstBfs(long seed, double density) {
+        InfiniteBoard reference = new InfiniteBoard(seed, density, 1 << 20);
+        InfiniteBoard board = new InfiniteBoard(seed, density, 9);
+        String context = "seed " + seed + " density " + density;
+
+        for (long row = -RANGE; row < RANGE; row++) {
+            for (long col = -RANGE; col < RANGE; col++) {
+                int bombs = 0;
+                for (long r = row - 1; r <= row + 1; r++) {
+                    for (long c = col - 1; c <= col + 1; c++) {
+                        bombs += (r != row || c != col) && reference.hasBomb(r, c) ? 1 : 0;
+                    }
+                }
+                assertEquals(bombs, reference.countAdjacentBombs(row, col), context);
+                assertFalse(Math.abs(row) <= 1 && Math.abs(col) <= 1 && reference.hasBomb(row, col), context);
+            }
+        }
+
+        Set<Long> revealed = new HashSet<>();
+        Set<Long> flagged = new HashSet<>();
+        Random random = new Random(seed);
+        for (int move = 0; move < MOVES; move++) {
+            long row = move == 0 ? 0 : random.nextInt(2 * RANGE) - RANGE;
+            long col = move == 0 ? 0 : random.nextInt(2 * RANGE) - RANGE;
+            String moveContext = context + " move " + move + " at " + row + "," + col;
+
+            if (random.nextInt(5) == 0) {
+                if (!revealed.contains(key(row, col)) && !flagged.remove(key(row, col))) {
+                    flagged.add(key(row, col));
+                }
+                board.flagCell(row, col);
+            } else if (!reference.hasBomb(row, col)) {
+                long opened = bfs(reference, revealed, flagged, row, col);
+                board.revealCell(row, col);
+                assertEquals(opened, board.getOpenedCount(), moveContext);
+            }
+        }
+
+        assertEquals(Minesweeper.GameState.PLAYING, board.getGameState(), context);
+        assertEquals(revealed.size(), board.getRevealedSafeCount(), context);
+        assertEquals(flagged.size(), board.getFlagCount(), context);
+        assertTrue(board.getParkedChunkCount() > 0, context);
+        for (long cell : revealed) {
+            assertTrue(board.isRevealed(cell >> 32, (int) cell), context);
+        }
+        for (long cell : flagged) {
+            assertTrue(board.isFlagged(cell >> 32, (int) cell), context);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long row = random.nextInt(2 * RANGE) - RANGE;
+            long col = random.nextInt(2 * RANGE) - RANGE;
+            assertEquals(revealed.contains(key(row, col)), board.isRevealed(row, col), context);
+            assertEquals(flagged.contains(key(row, col)), board.isFlagged(row, col), context);
+        }
+
+        int[][] window = board.getVisibleWindow(-5, -5, 10, 10);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                long row = i - 5;
+                long col = j - 5;
+                int expected = flagged.contains(key(row, col)) ? -1
+                        : revealed.contains(key(row, col)) ? reference.countAdjacentBombs(row, col) : -2;
+                assertEquals(expected, window[i][j], context);
+            }
+        }
+    }
+
+    @Test
+    void matchesBfsAtDefaultDensity() {
+        playAgainstBfs(25, InfiniteBoard.DEFAULT_DENSITY);
+    }
+
+    @Test
+    void matchesBfsAtMinimumDensity() {
+        playAgainstBfs(52, InfiniteBoard.MIN_DENSITY);
+    }
+
+    @Test
+    void densityMustLeaveMines() {
+        assertThrows(IllegalArgumentException.class, () -> new InfiniteBoard(1, 0.999, 9));
+        assertThrows(IllegalArgumentException.class, () -> new InfiniteBoard(1, Double.NaN, 9));
+        assertThrows(IllegalArgumentException.class, () -> new InfiniteBoard(1, 0.1, 9));
+        assertEquals(255 / 256.0, new InfiniteBoard(1, 0.997, 9).getDensity());
+    }
+}
@@ -0,0 +1,89 @@
+package spinner.minesweeper;
+
+/*Undo/redo through the move journal
+- Moves that change nothing keep the redo tail
+- A move that changes the board drops it
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MoveJournalTest
+{
+    private static Minesweeper newGame() {
+        Minesweeper game = new Minesweeper(BoardSpec.EXPERT, 7, false);
+        game.enableJournal();
+        return game;
+    }
+
+    // Safe numbered cells, so a reveal opens exactly one cell
+    private static int[] numberedCells(Minesweeper game, int count) {
+        int[] cells = new int[count];
+        int found = 0;
+        for (int cell = 0; found < count; cell++) {
+            int row = cell / game.getCols();
+            int col = cell % game.getCols();
+            if (!game.hasBomb(row, col) && game.countAdjacentBombs(row, col) > 0) {
+                cells[found++] = cell;
+            }
+        }
+        return cells;
+    }
+
+    private static void reveal(Minesweeper game, int cell) {
+        game.revealCell(cell / game.getCols(), cell % game.getCols());
+    }
+
+    private static boolean isRevealed(Minesweeper game, int cell) {
+        return game.isRevealed(cell / game.getCols(), cell % game.getCols());
+    }
+
+    @Test
+    void noOpMoveKeepsRedo() {
+        Minesweeper game = newGame();
+        int[] cells = numberedCells(game, 2);
+        reveal(game, cells[0]);
+        reveal(game, cells[1]);
+        assertTrue(game.undo());
+
+        // Already revealed, so nothing is recorded
+        reveal(game, cells[0]);
+        assertTrue(game.canRedo());
+        assertTrue(game.redo());
+        assertTrue(isRevealed(game, cells[1]));
+        assertEquals(2, game.checkpoint());
+    }
+
+    @Test
+    void fruitlessAutoMovesKeepRedo() {
+        Minesweeper game = newGame();
+        int[] cells = numberedCells(game, 1);
+        reveal(game, cells[0]);
+        assertTrue(game.undo());
+
+        // Nothing is open, so there is nothing to deduce
+        assertEquals(0, game.autoFlag());
+        assertEquals(0, game.autoReveal());
+        assertTrue(game.redo());
+        assertTrue(isRevealed(game, cells[0]));
+    }
+
+    @Test
+    void changingMoveDropsRedo() {
+        Minesweeper game = newGame();
+        int[] cells = numberedCells(game, 3);
+        reveal(game, cells[0]);
+        reveal(game, cells[1]);
+        assertTrue(game.undo());
+
+        reveal(game, cells[2]);
+        assertFalse(game.canRedo());
+        assertFalse(isRevealed(game, cells[1]));
+        assertTrue(game.undo());
+        assertFalse(isRevealed(game, cells[2]));
+        assertTrue(isRevealed(game, cells[0]));
+    }
+}
@@ -0,0 +1,55 @@
+package spinner.minesweeper;
+
+/*No-guess board search
+- A qualifying seed is won by DeductionEngine alone from the first click, on a fresh game
+- The search always ends: a budget, no room for the opening, or an interrupt gives NO_SEED
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class NoGuessGeneratorTest
+{
+    @Test
+    void foundSeedsAreWonWithoutGuessing() {
+        SplittableRandom random = new SplittableRandom(22);
+        BoardSpec[] specs = {BoardSpec.BEGINNER, BoardSpec.INTERMEDIATE, BoardSpec.EXPERT};
+        int[][] clicks = {{4, 4}, {0, 0}, {8, 15}};
+
+        for (int i = 0; i < 30; i++) {
+            BoardSpec spec = specs[i % specs.length];
+            int row = clicks[i % clicks.length][0];
+            int col = clicks[i % clicks.length][1];
+            long seed = NoGuessGenerator.findSeed(spec, row, col, random);
+            assertNotEquals(NoGuessGenerator.NO_SEED, seed, spec.toString());
+            assertTrue(NoGuessGenerator.isNoGuess(spec, seed, row, col));
+
+            Minesweeper game = new Minesweeper(spec, seed, false);
+            assertEquals(Minesweeper.CellResult.EMPTY, game.revealCell(row, col).getResult());
+            game.getDeductionEngine().solve();
+            assertEquals(Minesweeper.GameState.WON, game.getGameState(), spec + " seed " + seed);
+        }
+    }
+
+    @Test
+    void searchEndsWithoutABoard() {
+        SplittableRandom random = new SplittableRandom(22);
+        BoardSpec full = new BoardSpec(9, 9, 73);
+        assertEquals(NoGuessGenerator.NO_SEED, NoGuessGenerator.findSeed(full, 4, 4, random));
+
+        BoardSpec dense = new BoardSpec(9, 9, 60);
+        assertEquals(NoGuessGenerator.NO_SEED, NoGuessGenerator.findSeed(dense, 4, 4, random, 100));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(NoGuessGenerator.NO_SEED, NoGuessGenerator.findSeed(BoardSpec.EXPERT, 8, 15, random));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
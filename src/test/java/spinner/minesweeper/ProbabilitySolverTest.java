@@ -0,0 +1,165 @@
+package spinner.minesweeper;
+
+/*Exact probabilities against brute force
+- Random small positions, every mine layout consistent with them enumerated directly
+- Oversized frontiers and contradictions fail with their own exception types
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ProbabilitySolverTest
+{
+    private static final BoardSpec SMALL = new BoardSpec(4, 5, 5);
+
+    // Mine probability per cell over every layout that matches the visible board
+    private static double[] bruteForce(Minesweeper game) {
+        int rows = game.getRows();
+        int cols = game.getCols();
+        int cells = rows * cols;
+        double[] mines = new double[cells];
+        int layouts = 0;
+
+        // Every cells-bit mask with exactly totalBombs bits set, in increasing order
+        for (int mask = (1 << game.getTotalBombs()) - 1; mask < 1 << cells; mask = nextMask(mask)) {
+            if (matches(game, mask)) {
+                layouts++;
+                for (int cell = 0; cell < cells; cell++) {
+                    mines[cell] += mask >>> cell & 1;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < cells; cell++) {
+            mines[cell] /= layouts;
+        }
+        return mines;
+    }
+
+    private static int nextMask(int mask) {
+        int low = mask & -mask;
+        int ripple = mask + low;
+        return ripple | ((mask ^ ripple) >>> 2) / low;
+    }
+
+    private static boolean matches(Minesweeper game, int mask) {
+        int cols = game.getCols();
+        for (int row = 0; row < game.getRows(); row++) {
+            for (int col = 0; col < cols; col++) {
+                boolean mine = (mask >>> (row * cols + col) & 1) != 0;
+                if (game.isFlagged(row, col) && !mine) {
+                    return false;
+                }
+                if (game.isRevealed(row, col) && (mine || adjacent(game, mask, row, col)
+                        != game.countAdjacentBombs(row, col))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int adjacent(Minesweeper game, int mask, int row, int col) {
+        int count = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(game.getRows() - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(game.getCols() - 1, col + 1); c++) {
+                count += mask >>> (r * game.getCols() + c) & 1;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void matchesBruteForceOnSmallPositions() {
+        Random random = new Random(300);
+        ProbabilitySolver solver = new ProbabilitySolver(null, ProbabilitySolver.DEFAULT_MAX_COMPONENT_CELLS);
+        int checked = 0;
+
+        while (checked < 300) {
+            Minesweeper game = new Minesweeper(SMALL, random.nextLong(), false);
+            int clicks = 1 + random.nextInt(3);
+            for (int i = 0; i < clicks; i++) {
+                int row = random.nextInt(SMALL.getRows());
+                int col = random.nextInt(SMALL.getCols());
+                if (game.hasBomb(row, col)) {
+                    if (random.nextBoolean()) {
+                        game.flagCell(row, col);
+                    }
+                } else {
+                    game.revealCell(row, col);
+                }
+            }
+            if (game.getGameState() != Minesweeper.GameState.PLAYING) {
+                continue;
+            }
+
+            double[] expected = bruteForce(game);
+            double[] actual = solver.solve(game);
+            for (int cell = 0; cell < expected.length; cell++) {
+                assertEquals(expected[cell], actual[cell], 1e-12, "seed " + game.getSeed() + " cell " + cell);
+            }
+            checked++;
+        }
+    }
+
+    @Test
+    void parallelSolveMatchesSequential() {
+        Random random = new Random(7);
+        ProbabilitySolver sequential = new ProbabilitySolver(null, ProbabilitySolver.DEFAULT_MAX_COMPONENT_CELLS);
+        ProbabilitySolver parallel = new ProbabilitySolver();
+
+        for (int i = 0; i < 50; i++) {
+            Minesweeper game = new Minesweeper(BoardSpec.EXPERT, random.nextLong(), false);
+            game.revealCell(BoardSpec.EXPERT.getRows() / 2, BoardSpec.EXPERT.getCols() / 2);
+            if (game.getGameState() != Minesweeper.GameState.PLAYING) {
+                continue;
+            }
+            game.getDeductionEngine().solve();
+
+            double[] expected;
+            try {
+                expected = sequential.solve(game);
+            } catch (ProbabilitySolver.FrontierTooLargeException e) {
+                continue;
+            }
+            double[] actual = parallel.solve(game);
+            for (int cell = 0; cell < expected.length; cell++) {
+                assertEquals(expected[cell], actual[cell], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void rejectsFrontiersAboveTheLimits() {
+        Minesweeper game = new Minesweeper(BoardSpec.EXPERT, 11, false);
+        game.revealCell(BoardSpec.EXPERT.getRows() / 2, BoardSpec.EXPERT.getCols() / 2);
+        assertEquals(Minesweeper.GameState.PLAYING, game.getGameState());
+
+        assertThrows(ProbabilitySolver.FrontierTooLargeException.class,
+                () -> new ProbabilitySolver(null, 1).solve(game));
+        assertThrows(ProbabilitySolver.FrontierTooLargeException.class,
+                () -> new ProbabilitySolver(null, ProbabilitySolver.DEFAULT_MAX_COMPONENT_CELLS, 1).solve(game));
+    }
+
+    @Test
+    void wrongFlagsAreAContradiction() {
+        Minesweeper game = new Minesweeper(SMALL, 3, false);
+        int cols = SMALL.getCols();
+        int numbered = 0;
+        while (game.hasBomb(numbered / cols, numbered % cols)
+                || game.countAdjacentBombs(numbered / cols, numbered % cols) == 0) {
+            numbered++;
+        }
+        game.revealCell(numbered / cols, numbered % cols);
+
+        // Flag every hidden cell: more flags than mines around the revealed number
+        for (int cell = 0; cell < SMALL.getCellCount(); cell++) {
+            game.flagCell(cell / cols, cell % cols);
+        }
+        assertThrows(IllegalStateException.class,
+                () -> new ProbabilitySolver(null, ProbabilitySolver.DEFAULT_MAX_COMPONENT_CELLS).solve(game));
+    }
+}
@@ -0,0 +1,97 @@
+package spinner.minesweeper;
+
+/*Session store pinning
+- A pinned game is never evicted, and removing it waits for its last release
+- Parked games come back from the spill file exactly as they were stored
+*/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionStoreTest
+{
+    private static final int SESSIONS = 200;
+
+    @TempDir
+    Path dir;
+
+    private SessionStore sessions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sessions = new SessionStore(dir.resolve("sessions.spill"), 16);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sessions.close();
+    }
+
+    @Test
+    void pinnedGameOutlivesRemoveUntilReleased() {
+        Minesweeper game = new Minesweeper(BoardSpec.BEGINNER, 21, false);
+        sessions.put(1, game);
+        assertSame(game, sessions.acquire(1));
+        assertSame(game, sessions.acquire(1));
+
+        assertTrue(sessions.remove(1));
+        assertFalse(sessions.remove(1));
+        assertNull(sessions.acquire(1));
+
+        // Other sessions push the hot tier over its bound while the removed game is still pinned
+        for (int id = 2; id <= SESSIONS; id++) {
+            sessions.put(id, new Minesweeper(BoardSpec.BEGINNER, id, false));
+        }
+        game.revealCell(0, 0);
+        assertEquals(SESSIONS, sessions.size());
+
+        sessions.release(1);
+        assertEquals(SESSIONS, sessions.size());
+        sessions.release(1);
+        assertEquals(SESSIONS - 1, sessions.size());
+        assertNull(sessions.acquire(1));
+    }
+
+    @Test
+    void pinnedGameIsNeverEvicted() {
+        Minesweeper game = new Minesweeper(BoardSpec.INTERMEDIATE, 21, false);
+        sessions.put(1, game);
+        assertSame(game, sessions.acquire(1));
+
+        for (int id = 2; id <= SESSIONS; id++) {
+            sessions.put(id, new Minesweeper(BoardSpec.BEGINNER, id, false));
+        }
+        assertSame(game, sessions.acquire(1));
+        sessions.release(1);
+        sessions.release(1);
+    }
+
+    @Test
+    void parkedGamesComeBackUnchanged() {
+        Minesweeper[] games = new Minesweeper[SESSIONS + 1];
+        for (int id = 1; id <= SESSIONS; id++) {
+            games[id] = new Minesweeper(BoardSpec.INTERMEDIATE, id, false);
+            games[id].revealCell(id % games[id].getRows(), id % games[id].getCols());
+            games[id].flagCell(0, id % games[id].getCols());
+            sessions.put(id, games[id]);
+        }
+        assertTrue(sessions.getParkedCount() > 0);
+
+        for (int id = 1; id <= SESSIONS; id++) {
+            Minesweeper game = sessions.acquire(id);
+            GameRecordingTest.assertSameBoard(games[id], game, "session " + id);
+            sessions.release(id);
+        }
+        assertEquals(SESSIONS, sessions.size());
+    }
+}
@@ -0,0 +1,177 @@
+package spinner.minesweeper;
+
+/*TiledBoard against Minesweeper on the same (spec, seed)
+- Reveals, flags, auto moves, counts, state and encodings must agree after every move
+- Shapes that are not multiples of the tile size, on a single-thread and a 4-thread pool
+- autoFlag/autoReveal are checked against a naive fixpoint of the single-cell rule, which is all TiledBoard runs
+*/
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class TiledBoardTest
+{
+    private static final int BOARDS = 120;
+    private static final int MOVES = 40;
+    private static final int[][] SHAPES = {{1, 1}, {1, 70}, {64, 64}, {65, 65}, {70, 130}, {130, 70}, {200, 300},
+            {9, 9}, {16, 30}, {128, 192}};
+    private static final double[] DENSITIES = {0.02, 0.08, 0.15, 0.21};
+
+    private static void assertSameBoard(Minesweeper expected, TiledBoard actual, String context) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getCols(); col++) {
+                assertEquals(expected.isRevealed(row, col), actual.isRevealed(row, col), context);
+                assertEquals(expected.isFlagged(row, col), actual.isFlagged(row, col), context);
+            }
+        }
+        assertEquals(expected.getGameState(), actual.getGameState(), context);
+        assertEquals(expected.getRevealedSafeCount(), actual.getRevealedSafeCount(), context);
+        assertEquals(expected.getFlagCount(), actual.getFlagCount(), context);
+        assertEquals(expected.getCorrectFlagCount(), actual.getCorrectFlagCount(), context);
+    }
+
+    // Single-cell rule to a fixpoint: flags the forced mines, or with reveal set opens the forced safe cells
+    // (treating forced mines as flagged without flagging them). Returns the number of cells changed
+    private static int singleCellRule(Minesweeper game, boolean reveal) {
+        int rows = game.getRows();
+        int cols = game.getCols();
+        boolean[] mine = new boolean[rows * cols];
+        int changed = 0;
+
+        boolean progress = true;
+        while (progress && game.getGameState() == Minesweeper.GameState.PLAYING) {
+            progress = false;
+            List<Integer> mines = new ArrayList<>();
+            List<Integer> safe = new ArrayList<>();
+
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (!game.isRevealed(row, col) || game.hasBomb(row, col)) {
+                        continue;
+                    }
+                    int marked = 0;
+                    List<Integer> unknown = new ArrayList<>();
+                    for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                        for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                            if (game.isFlagged(r, c) || mine[r * cols + c]) {
+                                marked++;
+                            } else if (!game.isRevealed(r, c)) {
+                                unknown.add(r * cols + c);
+                            }
+                        }
+                    }
+
+                    int bombs = game.countAdjacentBombs(row, col);
+                    if (!unknown.isEmpty() && bombs == marked + unknown.size()) {
+                        mines.addAll(unknown);
+                    } else if (!unknown.isEmpty() && bombs == marked) {
+                        safe.addAll(unknown);
+                    }
+                }
+            }
+
+            for (int cell : mines) {
+                if (reveal) {
+                    progress |= !mine[cell];
+                    mine[cell] = true;
+                } else if (!game.isFlagged(cell / cols, cell % cols)) {
+                    game.flagCell(cell / cols, cell % cols);
+                    changed++;
+                    progress = true;
+                }
+            }
+            if (reveal) {
+                for (int cell : safe) {
+                    if (!mine[cell] && !game.isRevealed(cell / cols, cell % cols)) {
+                        game.revealCell(cell / cols, cell % cols);
+                        changed++;
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static void playBoth(ForkJoinPool pool, long testSeed) {
+        Random random = new Random(testSeed);
+
+        for (int i = 0; i < BOARDS; i++) {
+            int rows = SHAPES[i % SHAPES.length][0];
+            int cols = SHAPES[i % SHAPES.length][1];
+            int cells = rows * cols;
+            int bombs = (int) (cells * DENSITIES[random.nextInt(DENSITIES.length)]);
+            BoardSpec spec = new BoardSpec(rows, cols, Math.max(0, Math.min(cells - 1, bombs)));
+            long seed = random.nextLong();
+            Minesweeper game = new Minesweeper(spec, seed, false);
+            TiledBoard board = new TiledBoard(spec, seed, pool);
+            String context = spec + " seed " + seed;
+
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    assertEquals(game.hasBomb(row, col), board.hasBomb(row, col), context);
+                    assertEquals(game.countAdjacentBombs(row, col), board.countAdjacentBombs(row, col), context);
+                }
+            }
+
+            for (int move = 0; move < MOVES && game.getGameState() == Minesweeper.GameState.PLAYING; move++) {
+                int row = random.nextInt(rows);
+                int col = random.nextInt(cols);
+                int pick = random.nextInt(10);
+                String moveContext = context + " move " + move;
+
+                if (pick < 2 && game.hasBomb(row, col)) {
+                    game.flagCell(row, col);
+                    board.flagCell(row, col);
+                } else if (pick == 2) {
+                    assertEquals(singleCellRule(game, false), board.autoFlag(), moveContext);
+                } else if (pick == 3) {
+                    singleCellRule(game, true);
+                    board.autoReveal();
+                } else if (!game.hasBomb(row, col) || random.nextInt(8) == 0) {
+                    RevealResult result = game.revealCell(row, col);
+                    assertEquals(result.getResult(), board.revealCell(row, col), moveContext);
+                    assertEquals(result.getOpenedCount(), board.getOpenedCount(), moveContext);
+                }
+                assertSameBoard(game, board, moveContext);
+            }
+
+            for (BoardEncoder.Layout layout : BoardEncoder.Layout.values()) {
+                BoardEncoder encoder = new BoardEncoder(layout);
+                float[] expected = new float[encoder.size(spec) + 3];
+                float[] actual = new float[expected.length];
+                expected[expected.length - 1] = 5f;
+                actual[actual.length - 1] = 5f;
+                encoder.encode(game, expected, 2);
+                encoder.encode(board, actual, 2);
+                assertArrayEquals(expected, actual, context + " " + layout);
+            }
+        }
+    }
+
+    @Test
+    void matchesMinesweeperOnOneThread() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            playBoth(pool, 24);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void matchesMinesweeperOnFourThreads() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            playBoth(pool, 42);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}